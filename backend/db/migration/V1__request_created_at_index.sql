@@ -0,0 +1,2 @@
+-- Keyset pagination of the request listing (GET /api/v1/requests?paged)
+CREATE INDEX idx_request_created_at_id ON request (created_at, id);
@@ -0,0 +1,17 @@
+-- Result payloads move out of the job row into job_result, which shares the job's primary key
+CREATE TABLE job_result (
+    job_id bigint NOT NULL,
+    result_data json,
+    result_geo_json_data json,
+    PRIMARY KEY (job_id),
+    CONSTRAINT fk_job_result_job FOREIGN KEY (job_id) REFERENCES job (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+INSERT INTO job_result (job_id, result_data, result_geo_json_data)
+SELECT id, result_data, result_geo_json_data
+FROM job
+WHERE result_data IS NOT NULL OR result_geo_json_data IS NOT NULL;
+
+ALTER TABLE job
+    DROP COLUMN result_data,
+    DROP COLUMN result_geo_json_data;
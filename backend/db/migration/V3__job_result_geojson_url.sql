@@ -0,0 +1,2 @@
+-- Result GeoJSON kept in object storage and streamed from there
+ALTER TABLE job ADD COLUMN result_geo_jsons3url varchar(255);
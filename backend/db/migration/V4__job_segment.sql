@@ -0,0 +1,23 @@
+-- Per-segment PCI table exploded from each job's result
+CREATE TABLE job_segment (
+    id bigint NOT NULL AUTO_INCREMENT,
+    job_id bigint NOT NULL,
+    segment_index integer NOT NULL,
+    feature_id varchar(255),
+    street_name varchar(255),
+    surface varchar(255),
+    pci float(53),
+    condition_class enum ('FAILED','FAIR','GOOD','POOR','SATISFACTORY','SERIOUS','VERY_POOR'),
+    length_meters float(53) NOT NULL,
+    min_lon float(53) NOT NULL,
+    min_lat float(53) NOT NULL,
+    max_lon float(53) NOT NULL,
+    max_lat float(53) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_job_segment_job FOREIGN KEY (job_id) REFERENCES job (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_job_segment_job_pci ON job_segment (job_id, pci);
+CREATE INDEX idx_job_segment_job_condition ON job_segment (job_id, condition_class);
+CREATE INDEX idx_job_segment_pci ON job_segment (pci);
+CREATE INDEX idx_job_segment_bbox ON job_segment (min_lon, min_lat);
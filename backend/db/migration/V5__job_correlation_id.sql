@@ -0,0 +1,3 @@
+-- Correlation ID of the job message, echoed back in the worker's reply
+ALTER TABLE job ADD COLUMN correlation_id varchar(36);
+CREATE INDEX idx_job_correlation_id ON job (correlation_id);
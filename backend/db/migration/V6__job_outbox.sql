@@ -0,0 +1,15 @@
+-- Transactional outbox of job messages waiting to be published to the ML queue
+CREATE TABLE job_outbox (
+    id bigint NOT NULL AUTO_INCREMENT,
+    job_id bigint NOT NULL,
+    correlation_id varchar(36) NOT NULL,
+    payload json NOT NULL,
+    attempts integer NOT NULL,
+    next_attempt_at datetime(6),
+    created_at datetime(6),
+    last_error varchar(500),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_job_outbox_job FOREIGN KEY (job_id) REFERENCES job (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_job_outbox_next_attempt ON job_outbox (next_attempt_at, id);
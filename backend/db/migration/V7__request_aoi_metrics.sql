@@ -0,0 +1,10 @@
+-- Metrics of the validated and normalized AOI; NULL for requests stored before validation
+ALTER TABLE request
+    ADD COLUMN aoi_min_lon float(53),
+    ADD COLUMN aoi_min_lat float(53),
+    ADD COLUMN aoi_max_lon float(53),
+    ADD COLUMN aoi_max_lat float(53),
+    ADD COLUMN aoi_area_sq_meters float(53),
+    ADD COLUMN aoi_vertex_count integer,
+    ADD COLUMN aoi_estimated_tiles integer,
+    ADD COLUMN aoi_tile_zoom integer;
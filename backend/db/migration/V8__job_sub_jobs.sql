@@ -0,0 +1,16 @@
+-- Large AOIs are split into sub-jobs that point at their parent job
+ALTER TABLE job
+    ADD COLUMN parent_job_id bigint,
+    ADD COLUMN sub_job_count integer,
+    ADD COLUMN pending_sub_jobs integer,
+    ADD COLUMN failed_sub_jobs integer,
+    ADD COLUMN geo_json json,
+    ADD COLUMN aoi_min_lon float(53),
+    ADD COLUMN aoi_min_lat float(53),
+    ADD COLUMN aoi_max_lon float(53),
+    ADD COLUMN aoi_max_lat float(53),
+    ADD COLUMN aoi_area_sq_meters float(53),
+    ADD COLUMN aoi_vertex_count integer,
+    ADD COLUMN aoi_estimated_tiles integer,
+    ADD COLUMN aoi_tile_zoom integer,
+    ADD CONSTRAINT fk_job_parent_job FOREIGN KEY (parent_job_id) REFERENCES job (id) ON DELETE CASCADE;
@@ -0,0 +1,4 @@
+-- Inputs of the ML queue priority, stored with each outbox message
+ALTER TABLE job_outbox
+    ADD COLUMN customer varchar(255),
+    ADD COLUMN estimated_tiles integer;
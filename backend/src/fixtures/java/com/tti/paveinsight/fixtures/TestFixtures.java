@@ -0,0 +1,185 @@
+package com.tti.paveinsight.fixtures;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.messaging.JobReplyMessage;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Seeded generators for benchmark and load-test inputs: request/job entity graphs, worker
+ * replies and result documents shaped like the worker's output (street segments around College
+ * Station, TX with PCI, StreetName and Surface properties). The same seed always gives the same data, so runs on
+ * different machines and commits measure the same input.
+ */
+public final class TestFixtures {
+
+    public static final long SEED = 42;
+
+    public static final double CENTER_LON = -96.33;
+    public static final double CENTER_LAT = 30.62;
+    public static final double SPAN = 0.2; // Degrees, roughly a 20 km square
+
+    private static final String[] STREETS = {"Texas Ave", "University Dr", "Wellborn Rd", "George Bush Dr",
+            "Harvey Rd", "Rock Prairie Rd", "Southwest Pkwy", "Holleman Dr", "Anderson St", "Dartmouth St"};
+
+    private static final String[] SURFACES = {"Asphalt", "Concrete", "Chip Seal", "Brick"};
+
+    private static final String BUCKET_URL = "https://paveinsight-results.s3.us-east-2.amazonaws.com/";
+
+    private TestFixtures() {
+    }
+
+    public static Random random() {
+        return new Random(SEED);
+    }
+
+    // A request with the given number of completed jobs, as loaded with its jobs for the request endpoints
+    public static Request request(Random random, int jobs) {
+        Request request = new Request();
+        request.setId(new UUID(random.nextLong(), random.nextLong()));
+        request.setUsername("user" + random.nextInt(10_000));
+        request.setEmail("user" + random.nextInt(10_000) + "@example.org");
+        request.setCompanyName("City of College Station");
+        request.setPhoneNumber("979-555-" + (1000 + random.nextInt(9000)));
+        request.setGeoJson(areaOfInterest(random, 64));
+        request.setMessage("Pavement condition survey for the " + STREETS[random.nextInt(STREETS.length)] + " corridor");
+        request.setStatus("COMPLETED");
+        request.setCreatedAt(new Date(1_700_000_000_000L + random.nextInt(1_000_000_000)));
+        request.setUpdatedAt(request.getCreatedAt());
+        for (long i = 0; i < jobs; i++) {
+            request.getJobs().add(job(random, request, i + 1));
+        }
+        return request;
+    }
+
+    public static Job job(Random random, Request request, long id) {
+        Job job = new Job();
+        job.setId(id);
+        job.setRequest(request);
+        job.setStatus("COMPLETED");
+        job.setCorrelationId(new UUID(random.nextLong(), random.nextLong()).toString());
+        job.setResultGeoJsonS3URL(s3Url(random, "results", ".geojson"));
+        job.setSuperResolutionImageS3URL(s3Url(random, "sr", ".png"));
+        job.setSuperResolutionTIFS3URL(s3Url(random, "sr", ".tif"));
+        job.setSatelliteImageS3URL(s3Url(random, "satellite", ".png"));
+        job.setBounds(bounds(random));
+        job.setCreatedAt(request.getCreatedAt());
+        job.setUpdatedAt(new Date(request.getCreatedAt().getTime() + random.nextInt(3_600_000)));
+        job.setResultFinalized(random.nextBoolean());
+        return job;
+    }
+
+    // A completed reply as the worker sends it
+    public static JobReplyMessage reply(Random random, long jobId) {
+        JobReplyMessage reply = new JobReplyMessage();
+        reply.setJobId(jobId);
+        reply.setCorrelationId(new UUID(random.nextLong(), random.nextLong()).toString());
+        reply.setJobStatus("complete");
+        reply.setResultZippedShapefileS3URL(s3Url(random, "results", ".zip"));
+        reply.setResultGeoJsonS3URL(s3Url(random, "results", ".geojson"));
+        reply.setSuperResolutionImageS3URL(s3Url(random, "sr", ".png"));
+        reply.setSuperResolutionTIFS3URL(s3Url(random, "sr", ".tif"));
+        reply.setBounds(bounds(random));
+        return reply;
+    }
+
+    // Virtual-hosted style object URL, as stored on jobs
+    public static String s3Url(Random random, String folder, String extension) {
+        return BUCKET_URL + folder + "/" + new UUID(random.nextLong(), random.nextLong()) + "/output" + extension;
+    }
+
+    // A street segment of 2-8 vertices, each step about 30 m
+    public static Geometry segment(Random random) {
+        int vertices = 2 + random.nextInt(7);
+        Coordinate[] coordinates = new Coordinate[vertices];
+        double lon = CENTER_LON - SPAN / 2 + random.nextDouble() * SPAN;
+        double lat = CENTER_LAT - SPAN / 2 + random.nextDouble() * SPAN;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < vertices; i++) {
+            coordinates[i] = new Coordinate(lon, lat);
+            heading += (random.nextDouble() - 0.5) * 0.5;
+            lon += Math.cos(heading) * 0.0003;
+            lat += Math.sin(heading) * 0.0003;
+        }
+        return GeoJsonGeometries.FACTORY.createLineString(coordinates);
+    }
+
+    // FeatureCollection of street segments with the worker's properties, UTF-8 encoded
+    public static byte[] resultDocument(Random random, int features) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(features * 400);
+        writeResultDocument(random, features, out);
+        return out.toByteArray();
+    }
+
+    public static void writeResultDocument(Random random, int features, OutputStream out) {
+        try (JsonGenerator json = new ObjectMapper().getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("type", "FeatureCollection");
+            json.writeArrayFieldStart("features");
+            for (int i = 0; i < features; i++) {
+                json.writeStartObject();
+                json.writeStringField("type", "Feature");
+                json.writeStringField("id", "segment-" + i);
+                json.writeObjectFieldStart("geometry");
+                json.writeStringField("type", "LineString");
+                json.writeArrayFieldStart("coordinates");
+                for (Coordinate coordinate : segment(random).getCoordinates()) {
+                    json.writeStartArray();
+                    json.writeNumber(coordinate.x);
+                    json.writeNumber(coordinate.y);
+                    json.writeEndArray();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeObjectFieldStart("properties");
+                json.writeNumberField("PCI", Math.round(random.nextDouble() * 1000) / 10.0);
+                json.writeStringField("StreetName", STREETS[random.nextInt(STREETS.length)]);
+                json.writeStringField("Surface", SURFACES[random.nextInt(SURFACES.length)]);
+                json.writeNumberField("Cracks", random.nextInt(40));
+                json.writeNumberField("Potholes", random.nextInt(5));
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Area of interest drawn by the client: a closed polygon of the given number of vertices
+    public static String areaOfInterest(Random random, int vertices) {
+        double lon = CENTER_LON + (random.nextDouble() - 0.5) * SPAN;
+        double lat = CENTER_LAT + (random.nextDouble() - 0.5) * SPAN;
+        StringBuilder geoJson = new StringBuilder("{\"type\":\"Polygon\",\"coordinates\":[[");
+        String first = null;
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double radius = 0.01 * (0.8 + 0.4 * random.nextDouble());
+            String vertex = "[" + (lon + radius * Math.cos(angle)) + "," + (lat + radius * Math.sin(angle)) + "]";
+            first = first == null ? vertex : first;
+            geoJson.append(vertex).append(',');
+        }
+        return geoJson.append(first).append("]]}").toString(); // Closed ring
+    }
+
+    public static String bounds(Random random) {
+        double west = CENTER_LON - SPAN / 2 + random.nextDouble() * SPAN;
+        double south = CENTER_LAT - SPAN / 2 + random.nextDouble() * SPAN;
+        return "{\"north\":" + (south + 0.01) + ",\"south\":" + south + ",\"east\":" + (west + 0.01) +
+                ",\"west\":" + west + "}";
+    }
+}
@@ -0,0 +1,64 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.dto.RequestDto;
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.utils.JobUtils;
+import com.tti.paveinsight.utils.RequestUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion as done by the request endpoints: every job of a request through
+ * JobUtils.convertToDto, then the request through RequestUtils.convertToDto. The entity graphs
+ * come from {@link TestFixtures}: requests with a 64-vertex AOI polygon and completed jobs.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="DtoConversionBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoConversionBenchmark {
+
+    private static final int REQUESTS = 100;
+
+    @Param({"1", "10", "100"})
+    public int jobsPerRequest;
+
+    private final JobUtils jobUtils = new JobUtils();
+    private final RequestUtils requestUtils = new RequestUtils();
+    private List<Request> requests;
+
+    @Setup
+    public void setUp() {
+        Random random = TestFixtures.random();
+        requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(TestFixtures.request(random, jobsPerRequest));
+        }
+    }
+
+    // GET /api/v1/requests: all requests with their jobs
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public List<RequestDto> convertRequests() {
+        List<RequestDto> dtos = new ArrayList<>(REQUESTS);
+        for (Request request : requests) {
+            List<JobDto> jobs = new ArrayList<>(request.getJobs().size());
+            for (Job job : request.getJobs()) {
+                jobs.add(jobUtils.convertToDto(request, job));
+            }
+            dtos.add(requestUtils.convertToDto(request, jobs));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.utils.geo.FeatureIndex;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.tti.paveinsight.fixtures.TestFixtures.*;
+
+/**
+ * Bounding-box and nearest-segment lookups on the STR-tree index compared with a linear scan
+ * over the same features. The network is the seeded set of short street segments from
+ * {@link TestFixtures}, so runs are repeatable.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="FeatureIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int segments;
+
+    private List<ResultFeature> features;
+    private FeatureIndex index;
+    private Envelope[] boxes;
+    private double[][] points;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = TestFixtures.random();
+        features = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            features.add(new ResultFeature(i, TestFixtures.segment(random), Map.of("PCI", random.nextInt(101))));
+        }
+        index = new FeatureIndex(features);
+
+        // Viewport-sized boxes (about 500 m) and probe points, cycled through by the benchmarks
+        boxes = new Envelope[1024];
+        points = new double[1024][];
+        for (int i = 0; i < boxes.length; i++) {
+            double lon = CENTER_LON - SPAN / 2 + random.nextDouble() * SPAN;
+            double lat = CENTER_LAT - SPAN / 2 + random.nextDouble() * SPAN;
+            boxes[i] = new Envelope(lon, lon + 0.005, lat, lat + 0.005);
+            points[i] = new double[]{lon, lat};
+        }
+    }
+
+    @Benchmark
+    public int bboxIndexed() {
+        return index.intersecting(boxes[next++ & 1023]).size();
+    }
+
+    @Benchmark
+    public int bboxLinearScan() {
+        Envelope box = boxes[next++ & 1023];
+        Geometry boxGeometry = GeoJsonGeometries.FACTORY.toGeometry(box);
+        int count = 0;
+        for (ResultFeature feature : features) {
+            if (feature.getGeometry().getEnvelopeInternal().intersects(box)
+                    && boxGeometry.intersects(feature.getGeometry())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Object nearestIndexed() {
+        double[] point = points[next++ & 1023];
+        return index.nearest(point[0], point[1]);
+    }
+
+    @Benchmark
+    public Object nearestLinearScan() {
+        double[] point = points[next++ & 1023];
+        Point probe = GeoJsonGeometries.FACTORY.createPoint(new Coordinate(point[0], point[1]));
+        ResultFeature best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (ResultFeature feature : features) {
+            double distance = feature.getGeometry().distance(probe);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = feature;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,57 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureReader;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing result documents of 1k, 10k and 100k street segments (about 0.4, 4 and 40 MB) from
+ * the seeded generator: the streaming GeoJsonFeatureReader used by the feature cache and the
+ * segment indexer, against reading the whole document into a Jackson tree.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="GeoJsonParseBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class GeoJsonParseBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int features;
+
+    private ObjectMapper objectMapper;
+    private byte[] document;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        document = TestFixtures.resultDocument(TestFixtures.random(), features);
+    }
+
+    // Features with JTS geometries, one at a time
+    @Benchmark
+    public int featureReader() throws IOException {
+        int count = 0;
+        try (GeoJsonFeatureReader reader = new GeoJsonFeatureReader(new ByteArrayInputStream(document), objectMapper)) {
+            for (ResultFeature feature = reader.next(); feature != null; feature = reader.next()) {
+                count += feature.getGeometry().getNumPoints();
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public JsonNode tree() throws IOException {
+        return objectMapper.readTree(document);
+    }
+}
@@ -0,0 +1,115 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.dto.RequestDto;
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.models.*;
+import com.tti.paveinsight.utils.JobUtils;
+import com.tti.paveinsight.utils.RequestUtils;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The request listing (GET /api/v1/requests) against an in-memory H2 database: every request is
+ * loaded with its jobs, which are converted with JobUtils.convertToDto. "split" is the current
+ * mapping, where the result payloads live in job_result and are never read here. "inline" also
+ * loads each job's payloads, which is what the listing paid when they were columns of the job
+ * row. Every job has a result of the given number of features.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JobListingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobListingBenchmark {
+
+    private static final int REQUESTS = 50;
+
+    private static final int JOBS_PER_REQUEST = 4;
+
+    @Param({"split", "inline"})
+    public String payloads;
+
+    @Param({"200", "2000"})
+    public int features;
+
+    private final JobUtils jobUtils = new JobUtils();
+    private final RequestUtils requestUtils = new RequestUtils();
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        StandardServiceRegistryBuilder registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:listing-" + payloads + "-" + features + ";DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.username", "sa")
+                .applySetting("hibernate.hbm2ddl.auto", "create")
+                .applySetting("hibernate.physical_naming_strategy",
+                        "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        MetadataSources sources = new MetadataSources(registry.build());
+        for (Class<?> entity : List.of(Request.class, Job.class, JobResult.class, JobSegment.class, JobOutboxMessage.class)) {
+            sources.addAnnotatedClass(entity);
+        }
+        sessionFactory = sources.buildMetadata().buildSessionFactory();
+
+        Random random = TestFixtures.random();
+        sessionFactory.inTransaction(session -> {
+            // As in the load test: H2 would read strings bound to JSON columns back quoted
+            for (String column : List.of("job_result.result_data", "job_result.result_geo_json_data",
+                    "job.bounds", "job.geo_json", "request.geo_json")) {
+                String[] tableAndColumn = column.split("\\.");
+                session.createNativeMutationQuery("ALTER TABLE " + tableAndColumn[0] + " ALTER COLUMN "
+                        + tableAndColumn[1] + " CLOB").executeUpdate();
+            }
+        });
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < REQUESTS; i++) {
+                Request request = TestFixtures.request(random, JOBS_PER_REQUEST);
+                request.setId(null);
+                request.getJobs().forEach(job -> job.setId(null));
+                session.persist(request); // Cascades to the jobs
+                for (Job job : request.getJobs()) {
+                    JobResult result = new JobResult(job);
+                    String document = new String(TestFixtures.resultDocument(random, features), StandardCharsets.UTF_8);
+                    result.setResultData("{\"resultGeoJsonS3URL\":\"" + job.getResultGeoJsonS3URL() + "\"}");
+                    result.setResultGeoJsonData(document);
+                    session.persist(result);
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<RequestDto> listRequests() {
+        try (Session session = sessionFactory.openSession()) {
+            List<RequestDto> dtos = new ArrayList<>(REQUESTS);
+            for (Request request : session.createQuery("from Request", Request.class).list()) {
+                List<JobDto> jobs = new ArrayList<>(request.getJobs().size());
+                for (Job job : request.getJobs()) {
+                    if (payloads.equals("inline")) {
+                        session.get(JobResult.class, job.getId());
+                    }
+                    jobs.add(jobUtils.convertToDto(request, job));
+                }
+                dtos.add(requestUtils.convertToDto(request, jobs));
+            }
+            return dtos;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.services.job.JobPublishResult;
+import com.tti.paveinsight.services.job.JobServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk job publishing throughput in jobs/sec. The broker is a stand-in template that confirms
+ * every message after a fixed round trip, so the numbers isolate the cost of waiting for confirms.
+ * A publish window of 1 is the old behaviour of publishing and confirming one job at a time.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JobPublishBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobPublishBenchmark {
+
+    private static final int JOBS = 500;
+
+    @Param({"1", "32", "256"})
+    public int publishWindow;
+
+    @Param({"500"})
+    public int confirmLatencyMicros;
+
+    private ScheduledExecutorService broker;
+    private JobServiceImpl jobService;
+    private Map<String, String> jobs;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        broker = Executors.newSingleThreadScheduledExecutor();
+        ObjectMapper objectMapper = new ObjectMapper();
+        jobService = new JobServiceImpl(new StandInTemplate(broker, confirmLatencyMicros), publishWindow, 60_000);
+        String geoJson = "{\"type\":\"Polygon\",\"coordinates\":[[[-96.34,30.61],[-96.32,30.61],[-96.32,30.63],[-96.34,30.61]]]}";
+        jobs = new LinkedHashMap<>();
+        for (long i = 0; i < JOBS; i++) {
+            jobs.put(UUID.randomUUID().toString(), objectMapper.writeValueAsString(
+                    new JobDto(i, "PENDING", null, null, null, null, null, false, UUID.randomUUID(), geoJson, null, null)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS)
+    public List<JobPublishResult> submitJobs() {
+        return jobService.submitJobs(jobs);
+    }
+
+    // Converts and post-processes like the real template, then acks after the broker round trip
+    private static class StandInTemplate extends RabbitTemplate {
+
+        private final ScheduledExecutorService broker;
+        private final long latencyMicros;
+
+        StandInTemplate(ScheduledExecutorService broker, long latencyMicros) {
+            this.broker = broker;
+            this.latencyMicros = latencyMicros;
+        }
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object object,
+                                   MessagePostProcessor messagePostProcessor, CorrelationData correlationData) {
+            Message message = getMessageConverter().toMessage(object, new MessageProperties());
+            messagePostProcessor.postProcessMessage(message, correlationData, exchange, routingKey);
+            broker.schedule(() -> correlationData.getFuture().complete(new CorrelationData.Confirm(true, null)),
+                    latencyMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.messaging.JobReplyMessage;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.utils.JobUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trips on the messaging and API hot paths: a worker reply (read by the reply
+ * listener, written to job_result) and JobDto lists of the size the request endpoints return.
+ * The mapper is built like Spring Boot's default one.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JsonSerializationBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    @State(Scope.Benchmark)
+    public static class Reply {
+        private final ObjectWriter writer = OBJECT_MAPPER.writerFor(JobReplyMessage.class);
+        private final ObjectReader reader = OBJECT_MAPPER.readerFor(JobReplyMessage.class);
+        private JobReplyMessage reply;
+        private byte[] json;
+
+        @Setup
+        public void setUp() throws JsonProcessingException {
+            reply = TestFixtures.reply(TestFixtures.random(), 1);
+            json = writer.writeValueAsBytes(reply);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class JobList {
+        @Param({"100", "10000"})
+        public int jobs;
+
+        private ObjectWriter writer;
+        private ObjectReader reader;
+        private List<JobDto> jobDtos;
+        private byte[] json;
+
+        @Setup
+        public void setUp() throws JsonProcessingException {
+            CollectionType type = OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, JobDto.class);
+            writer = OBJECT_MAPPER.writerFor(type);
+            reader = OBJECT_MAPPER.readerFor(type);
+            JobUtils jobUtils = new JobUtils();
+            Request request = TestFixtures.request(TestFixtures.random(), jobs);
+            jobDtos = new ArrayList<>(jobs);
+            for (Job job : request.getJobs()) {
+                jobDtos.add(jobUtils.convertToDto(request, job));
+            }
+            json = writer.writeValueAsBytes(jobDtos);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeReply(Reply state) throws JsonProcessingException {
+        return state.writer.writeValueAsBytes(state.reply);
+    }
+
+    @Benchmark
+    public JobReplyMessage readReply(Reply state) throws IOException {
+        return state.reader.readValue(state.json);
+    }
+
+    @Benchmark
+    public byte[] writeJobList(JobList state) throws JsonProcessingException {
+        return state.writer.writeValueAsBytes(state.jobDtos);
+    }
+
+    @Benchmark
+    public List<JobDto> readJobList(JobList state) throws IOException {
+        return state.reader.readValue(state.json);
+    }
+}
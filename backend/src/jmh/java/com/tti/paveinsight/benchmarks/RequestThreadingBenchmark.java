@@ -0,0 +1,78 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.tti.paveinsight.utils.ThreadUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A burst of requests that each block on I/O for a fixed time, as most endpoints block on MySQL
+ * or S3, served by a platform-thread pool the size of Tomcat's default (200) or by a virtual
+ * thread per request. Scores the time to serve the burst; each iteration also prints the peak
+ * number of requests in flight and the p99 request latency, queueing included.
+ * <p>
+ * The virtual case needs Java 21: mvn -Pjmh,java21 test-compile exec:exec -Djmh.args="RequestThreadingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000", "5000"})
+    public int requests;
+
+    @Param({"20"})
+    public int ioMillis;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = ThreadUtils.newIoExecutor("request", PLATFORM_THREADS, threads.equals("virtual"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        long[] latencies = new long[requests];
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            int request = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(ioMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                    latencies[request] = System.nanoTime() - submitted;
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(requests * 0.99) - 1];
+        System.out.printf("peak in flight %d, p99 latency %d ms%n", peak.get(), TimeUnit.NANOSECONDS.toMillis(p99));
+    }
+}
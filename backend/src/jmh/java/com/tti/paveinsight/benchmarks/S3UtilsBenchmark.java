@@ -0,0 +1,46 @@
+package com.tti.paveinsight.benchmarks;
+
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.utils.S3Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bucket and key extraction from stored S3 object URLs, done for every result, image and raster
+ * read. The URLs are virtual-hosted style, as stored on jobs.
+ * <p>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="S3UtilsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S3UtilsBenchmark {
+
+    private final S3Utils s3Utils = new S3Utils();
+    private String[] urls;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = TestFixtures.random();
+        urls = new String[1024];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = TestFixtures.s3Url(random, "results", ".geojson");
+        }
+    }
+
+    @Benchmark
+    public String bucketName() {
+        return s3Utils.extractBucketNameFromUrl(urls[next++ & 1023]);
+    }
+
+    @Benchmark
+    public String fileName() {
+        return s3Utils.extractFileNameFromUrl(urls[next++ & 1023]);
+    }
+}
@@ -0,0 +1,280 @@
+package com.tti.paveinsight.loadtest;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * S3 stand-in that keeps objects as files under a local directory, one directory per bucket.
+ * Covers the operations the backend uses: whole and ranged reads, HEAD, puts, deletes and
+ * multipart uploads (parts are kept under .uploads until completed). There is no network or
+ * SDK pipeline involved, so the storage metrics interceptor does not see these calls.
+ */
+public class FileSystemS3Client implements S3Client {
+
+    private static final String UPLOADS = ".uploads";
+
+    private final Path root;
+
+    public FileSystemS3Client(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+                                       ResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+        Path file = object(request.bucket(), request.key());
+        try {
+            long size = Files.size(file);
+            InputStream content;
+            long length;
+            String contentRange = null;
+            if (request.range() != null) {
+                long[] range = parseRange(request.range(), size);
+                length = range[1] - range[0] + 1;
+                content = new ByteArrayInputStream(read(file, range[0], (int) length));
+                contentRange = "bytes " + range[0] + "-" + range[1] + "/" + size;
+            } else {
+                length = size;
+                content = Files.newInputStream(file);
+            }
+            GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength(length)
+                    .contentRange(contentRange)
+                    .eTag(eTag(file))
+                    .lastModified(Files.getLastModifiedTime(file).toInstant())
+                    .build();
+            return responseTransformer.transform(response, AbortableInputStream.create(content));
+        } catch (NoSuchFileException e) {
+            throw noSuchKey(request.bucket(), request.key());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw S3Exception.builder().message(e.getMessage()).cause(e).build();
+        }
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        Path file = object(request.bucket(), request.key());
+        try {
+            return HeadObjectResponse.builder()
+                    .contentLength(Files.size(file))
+                    .eTag(eTag(file))
+                    .lastModified(Files.getLastModifiedTime(file).toInstant())
+                    .build();
+        } catch (NoSuchFileException e) {
+            throw noSuchKey(request.bucket(), request.key());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+        Path file = object(request.bucket(), request.key());
+        write(file, requestBody);
+        return PutObjectResponse.builder().eTag(eTag(file)).build();
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        try {
+            Files.deleteIfExists(object(request.bucket(), request.key()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(upload(request.bucket(), uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CreateMultipartUploadResponse.builder()
+                .bucket(request.bucket()).key(request.key()).uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+        Path part = upload(request.bucket(), request.uploadId()).resolve(String.valueOf(request.partNumber()));
+        write(part, requestBody);
+        return UploadPartResponse.builder().eTag(eTag(part)).build();
+    }
+
+    @Override
+    public ListPartsResponse listParts(ListPartsRequest request) {
+        Path upload = upload(request.bucket(), request.uploadId());
+        int after = request.partNumberMarker() == null ? 0 : request.partNumberMarker();
+        List<Part> parts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(upload)) {
+            for (Path part : files.sorted(Comparator.comparingInt(FileSystemS3Client::partNumber)).toList()) {
+                if (partNumber(part) > after) {
+                    parts.add(Part.builder().partNumber(partNumber(part)).size(Files.size(part)).eTag(eTag(part)).build());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw NoSuchUploadException.builder().message("No such upload: " + request.uploadId()).statusCode(404).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ListPartsResponse.builder().bucket(request.bucket()).key(request.key()).uploadId(request.uploadId())
+                .parts(parts).isTruncated(false).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Path upload = upload(request.bucket(), request.uploadId());
+        Path file = object(request.bucket(), request.key());
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                for (CompletedPart part : request.multipartUpload().parts()) {
+                    Files.copy(upload.resolve(String.valueOf(part.partNumber())), out);
+                }
+            }
+            deleteDirectory(upload);
+        } catch (NoSuchFileException e) {
+            throw NoSuchUploadException.builder().message("No such upload: " + request.uploadId()).statusCode(404).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CompleteMultipartUploadResponse.builder()
+                .bucket(request.bucket()).key(request.key()).eTag(eTag(file)).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        try {
+            deleteDirectory(upload(request.bucket(), request.uploadId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public ListBucketsResponse listBuckets(ListBucketsRequest request) {
+        List<Bucket> buckets = new ArrayList<>();
+        try (Stream<Path> directories = Files.list(root)) {
+            directories.filter(Files::isDirectory).forEach(directory -> buckets.add(Bucket.builder()
+                    .name(directory.getFileName().toString()).creationDate(Instant.EPOCH).build()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ListBucketsResponse.builder().buckets(buckets).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Path object(String bucket, String key) {
+        Path file = root.resolve(bucket).resolve(key).normalize();
+        if (!file.startsWith(root.resolve(bucket))) {
+            throw S3Exception.builder().message("Invalid key: " + key).statusCode(400).build();
+        }
+        return file;
+    }
+
+    private Path upload(String bucket, String uploadId) {
+        return root.resolve(bucket).resolve(UPLOADS).resolve(uploadId);
+    }
+
+    private static void write(Path file, RequestBody requestBody) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (InputStream content = requestBody.contentStreamProvider().newStream()) {
+                Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(Path file, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                // Keep reading until the range is filled
+            }
+        }
+        return buffer.array();
+    }
+
+    // bytes=first-last, bytes=first- or bytes=-suffix, clamped to the object like S3 does
+    private static long[] parseRange(String range, long size) {
+        String spec = range.substring(range.indexOf('=') + 1);
+        int dash = spec.indexOf('-');
+        long first;
+        long last;
+        if (dash == 0) {
+            first = Math.max(0, size - Long.parseLong(spec.substring(1)));
+            last = size - 1;
+        } else {
+            first = Long.parseLong(spec.substring(0, dash));
+            last = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+        }
+        if (first >= size || first > last) {
+            throw S3Exception.builder().message("Range not satisfiable: " + range).statusCode(416).build();
+        }
+        return new long[]{first, last};
+    }
+
+    private static String eTag(Path file) {
+        try {
+            return "\"" + Long.toHexString(Files.size(file)) + "-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+        } catch (IOException e) {
+            return "\"0\"";
+        }
+    }
+
+    private static int partNumber(Path part) {
+        return Integer.parseInt(part.getFileName().toString());
+    }
+
+    private static NoSuchKeyException noSuchKey(String bucket, String key) {
+        return NoSuchKeyException.builder().message("No such key: " + bucket + "/" + key).statusCode(404).build();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.tti.paveinsight.loadtest;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.lang.Nullable;
+
+/**
+ * Broker stand-in for publishing: jobs routed to pci-analysis-queue go straight to the simulated
+ * worker and are confirmed at once, anything else is returned as unroutable like the mandatory
+ * flag makes the broker do. The connection factory is never used.
+ */
+public class InProcessRabbitTemplate extends RabbitTemplate {
+
+    public static final String JOB_QUEUE = "pci-analysis-queue";
+
+    private final SimulatedMlWorker worker;
+
+    public InProcessRabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter,
+                                   SimulatedMlWorker worker) {
+        super(connectionFactory);
+        setMessageConverter(messageConverter);
+        this.worker = worker;
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, @Nullable CorrelationData correlationData) {
+        if (JOB_QUEUE.equals(routingKey)) {
+            worker.accept(message);
+        } else if (correlationData != null) {
+            correlationData.setReturned(new ReturnedMessage(message, 312, "NO_ROUTE", exchange, routingKey));
+        }
+        if (correlationData != null) {
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        }
+    }
+}
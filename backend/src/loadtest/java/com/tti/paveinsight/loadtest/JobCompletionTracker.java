@@ -0,0 +1,93 @@
+package com.tti.paveinsight.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.services.notification.NotificationServiceImpl;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows submitted jobs to completion the way the portal does: by listening to the job status
+ * notifications the backend pushes to the dashboard topic. Records the end-to-end turnaround from
+ * the submit call to the notification and keeps the completed jobs for the read operations.
+ */
+public class JobCompletionTracker implements MessageHandler {
+
+    public record CompletedJob(UUID requestId, Long jobId) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Long> submittedAt = new ConcurrentHashMap<>();
+
+    private final List<CompletedJob> completedJobs = new ArrayList<>();
+
+    private final LatencyRecorder turnaround = new LatencyRecorder("turnaround");
+
+    private final AtomicLong failed = new AtomicLong();
+
+    public JobCompletionTracker(SubscribableChannel brokerChannel, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        brokerChannel.subscribe(this);
+    }
+
+    public void submitted(Long jobId) {
+        submittedAt.put(jobId, System.nanoTime());
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (!NotificationServiceImpl.DASHBOARD_TOPIC.equals(destination) || !(message.getPayload() instanceof byte[] payload)) {
+            return;
+        }
+        try {
+            JsonNode notification = objectMapper.readTree(payload);
+            long jobId = notification.path("jobId").asLong();
+            Long submitted = submittedAt.remove(jobId);
+            if ("COMPLETED".equals(notification.path("status").asText())) {
+                synchronized (completedJobs) {
+                    completedJobs.add(new CompletedJob(UUID.fromString(notification.path("requestId").asText()), jobId));
+                }
+                if (submitted != null) {
+                    turnaround.record(System.nanoTime() - submitted, 0);
+                }
+            } else {
+                failed.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A random completed job, or null while none has completed yet
+    public CompletedJob randomCompletedJob() {
+        synchronized (completedJobs) {
+            return completedJobs.isEmpty() ? null : completedJobs.get(ThreadLocalRandom.current().nextInt(completedJobs.size()));
+        }
+    }
+
+    public int getOutstanding() {
+        return submittedAt.size();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public LatencyRecorder getTurnaround() {
+        return turnaround;
+    }
+}
@@ -0,0 +1,69 @@
+package com.tti.paveinsight.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency samples of one operation, kept in full so percentiles are exact. Samples taken before
+ * the measurement starts are dropped, as are errors, which are only counted.
+ */
+public class LatencyRecorder {
+
+    private final String name;
+
+    private long[] samples = new long[1024];
+
+    private int count;
+
+    private long errors;
+
+    private long bytes;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long nanos, long responseBytes) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        bytes += responseBytes;
+    }
+
+    public synchronized void error() {
+        errors++;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        errors = 0;
+        bytes = 0;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    // name, count, errors, throughput over the given seconds, p50/p90/p99/max in ms and MB received
+    public synchronized String summary(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("%-12s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %10.1f", name, count, errors, count / seconds,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99),
+                count == 0 ? 0.0 : sorted[count - 1] / 1e6, bytes / 1e6);
+    }
+
+    public static String header() {
+        return String.format("%-12s %8s %7s %9s %9s %9s %9s %9s %10s", "operation", "count", "errors", "ops/s",
+                "p50 ms", "p90 ms", "p99 ms", "max ms", "MB read");
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        long nanos = sorted[Math.max(0, (int) Math.ceil(sorted.length * percentile) - 1)];
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,270 @@
+package com.tti.paveinsight.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.fixtures.TestFixtures;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load against the backend's HTTP API: each client repeatedly picks an operation by
+ * the configured mix and waits for its response. Operations without a target yet fall back to
+ * creating a request.
+ * <ul>
+ * <li>create: POST /api/v1/requests with a 64-vertex area of interest</li>
+ * <li>submit: POST /api/v1/requests/{id}/submit-job for a request not submitted yet</li>
+ * <li>status: GET /api/v1/requests/{id}</li>
+ * <li>read: GET .../job/{jobId}/geojson-result of a completed job, body read in full</li>
+ * </ul>
+ */
+@Slf4j
+public class LoadDriver {
+
+    private static final String REQUESTS = "/api/v1/requests";
+
+    private final String baseUrl;
+
+    private final LoadTestOptions options;
+
+    private final JobCompletionTracker tracker;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient httpClient;
+
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+
+    private final String[] operations;
+
+    private final int[] cumulativeWeights;
+
+    private final List<UUID> requestIds = new ArrayList<>();
+
+    private final ConcurrentLinkedQueue<UUID> unsubmitted = new ConcurrentLinkedQueue<>();
+
+    private volatile long measuredNanos;
+
+    public LoadDriver(String baseUrl, LoadTestOptions options, JobCompletionTracker tracker, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.options = options;
+        this.tracker = tracker;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        Map<String, Integer> mix = options.getMix();
+        operations = mix.keySet().toArray(String[]::new);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            if (!List.of("create", "submit", "status", "read").contains(operations[i])) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + operations[i]);
+            }
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        for (String operation : List.of("create", "submit", "status", "read")) {
+            recorders.put(operation, new LatencyRecorder(operation));
+        }
+    }
+
+    // Runs the clients through the warm-up and the measured duration
+    public void run() throws InterruptedException {
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.getLong("warmup-s"));
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(options.getLong("duration-s"));
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < options.getInt("clients"); i++) {
+            Thread client = new Thread(() -> loop(end), "load-client-" + i);
+            client.setDaemon(true);
+            client.start();
+            clients.add(client);
+        }
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(Math.max(0, warmupEnd - System.nanoTime())));
+        recorders.values().forEach(LatencyRecorder::reset);
+        tracker.getTurnaround().reset();
+        long measuredStart = System.nanoTime();
+        log.info("Warm-up done, measuring for {} s", options.getLong("duration-s"));
+        for (Thread client : clients) {
+            client.join();
+        }
+        measuredNanos = System.nanoTime() - measuredStart;
+    }
+
+    // Waits up to drain-s for jobs still with the worker or the reply pipeline
+    public void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.getLong("drain-s"));
+        while (tracker.getOutstanding() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    public void report(PrintStream out, SimulatedMlWorker worker) {
+        double seconds = measuredNanos / 1e9;
+        out.printf("%nLoad test: %s%n", options);
+        out.printf("Measured %.1f s%n%n", seconds);
+        out.println(LatencyRecorder.header());
+        recorders.values().forEach(recorder -> out.println(recorder.summary(seconds)));
+        out.println(tracker.getTurnaround().summary(seconds));
+        out.printf("%nJobs: %d completed and %d failed by the worker, %d failure notifications, %d still outstanding, %d queued at the worker%n",
+                worker.getCompleted(), worker.getFailed(), tracker.getFailed(), tracker.getOutstanding(), worker.getQueueDepth());
+    }
+
+    private void loop(long end) {
+        Random random = ThreadLocalRandom.current();
+        long thinkMillis = options.getLong("think-ms");
+        while (System.nanoTime() < end) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int operation = 0;
+            while (cumulativeWeights[operation] <= pick) {
+                operation++;
+            }
+            execute(operations[operation]);
+            if (thinkMillis > 0) {
+                try {
+                    Thread.sleep(thinkMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void execute(String operation) {
+        switch (operation) {
+            case "submit" -> {
+                UUID requestId = unsubmitted.poll();
+                if (requestId == null) {
+                    create();
+                } else {
+                    submit(requestId);
+                }
+            }
+            case "status" -> {
+                UUID requestId = randomRequest();
+                if (requestId == null) {
+                    create();
+                } else {
+                    timed("status", HttpRequest.newBuilder(uri(REQUESTS + "/" + requestId)).GET().build());
+                }
+            }
+            case "read" -> {
+                JobCompletionTracker.CompletedJob job = tracker.randomCompletedJob();
+                if (job == null) {
+                    create();
+                } else {
+                    timed("read", HttpRequest.newBuilder(
+                            uri(REQUESTS + "/" + job.requestId() + "/job/" + job.jobId() + "/geojson-result")).GET().build());
+                }
+            }
+            default -> create();
+        }
+    }
+
+    private void create() {
+        Map<String, String> request = Map.of(
+                "username", "loadtest",
+                "email", "loadtest@example.org",
+                "companyName", "Load Test",
+                "phoneNumber", "979-555-0100",
+                "geoJson", TestFixtures.areaOfInterest(ThreadLocalRandom.current(), 64),
+                "message", "Load test request");
+        JsonNode created = timed("create", post(REQUESTS, request));
+        if (created != null) {
+            UUID requestId = UUID.fromString(created.path("id").asText());
+            synchronized (requestIds) {
+                requestIds.add(requestId);
+            }
+            unsubmitted.add(requestId);
+        }
+    }
+
+    private void submit(UUID requestId) {
+        JsonNode request = timed("submit", post(REQUESTS + "/" + requestId + "/submit-job", null));
+        if (request != null) {
+            long jobId = 0;
+            for (JsonNode job : request.path("jobs")) {
+                if (!job.hasNonNull("parentJobId")) { // A split job completes with its last sub-job
+                    jobId = Math.max(jobId, job.path("id").asLong());
+                }
+            }
+            tracker.submitted(jobId);
+        }
+    }
+
+    // Sends the request and records its latency; returns the parsed body of JSON responses, null on errors
+    private JsonNode timed(String operation, HttpRequest request) {
+        LatencyRecorder recorder = recorders.get(operation);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            JsonNode body = null;
+            long bytes;
+            try (InputStream in = response.body()) {
+                if (operation.equals("read")) {
+                    bytes = in.transferTo(OutputStream.nullOutputStream());
+                } else {
+                    byte[] content = in.readAllBytes();
+                    bytes = content.length;
+                    body = response.statusCode() < 300 && content.length > 0 ? objectMapper.readTree(content) : null;
+                }
+            }
+            if (response.statusCode() >= 300) {
+                recorder.error();
+                log.debug("{} {} returned {}", request.method(), request.uri(), response.statusCode());
+                return null;
+            }
+            recorder.record(System.nanoTime() - start, bytes);
+            return body == null ? objectMapper.nullNode() : body;
+        } catch (IOException e) {
+            recorder.error();
+            log.debug("{} {} failed: {}", request.method(), request.uri(), e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private UUID randomRequest() {
+        synchronized (requestIds) {
+            return requestIds.isEmpty() ? null : requestIds.get(ThreadLocalRandom.current().nextInt(requestIds.size()));
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+}
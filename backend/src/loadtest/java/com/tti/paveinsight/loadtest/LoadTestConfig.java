@@ -0,0 +1,54 @@
+package com.tti.paveinsight.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.SubscribableChannel;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.file.Path;
+
+/**
+ * In-process stand-ins for the load test: S3 on the local filesystem, job publishing straight to
+ * the simulated ML worker and a tracker following job notifications. MySQL is replaced by H2 in
+ * application-loadtest.properties. The stand-ins are primary, so the real clients are created
+ * but never used.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+
+    @Bean
+    public SimulatedMlWorker simulatedMlWorker(ObjectMapper objectMapper, LoadTestOptions loadTestOptions,
+                                               @Value("${paveinsight.loadtest.storage-dir}") String storageDir,
+                                               @Value("${paveinsight.loadtest.bucket}") String bucket) {
+        return new SimulatedMlWorker(objectMapper, Path.of(storageDir), bucket, loadTestOptions);
+    }
+
+    @Bean
+    @Primary
+    public S3Client fileSystemS3Client(@Value("${paveinsight.loadtest.storage-dir}") String storageDir) {
+        return new FileSystemS3Client(Path.of(storageDir));
+    }
+
+    @Bean
+    @Primary
+    public RabbitTemplate inProcessRabbitTemplate(ConnectionFactory connectionFactory,
+                                                  Jackson2JsonMessageConverter jackson2JsonMessageConverter,
+                                                  SimulatedMlWorker simulatedMlWorker) {
+        return new InProcessRabbitTemplate(connectionFactory, jackson2JsonMessageConverter, simulatedMlWorker);
+    }
+
+    @Bean
+    public JobCompletionTracker jobCompletionTracker(@Qualifier("brokerChannel") SubscribableChannel brokerChannel,
+                                                     ObjectMapper objectMapper) {
+        return new JobCompletionTracker(brokerChannel, objectMapper);
+    }
+}
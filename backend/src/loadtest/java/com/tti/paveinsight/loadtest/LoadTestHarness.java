@@ -0,0 +1,78 @@
+package com.tti.paveinsight.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.PaveinsightApplication;
+import com.tti.paveinsight.messaging.JobReplyListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Boots the backend with the loadtest profile (H2, filesystem S3, in-process job publishing and a
+ * simulated ML worker), drives the submit, ML, reply and result-read loop over HTTP and prints
+ * throughput and latency percentiles per operation plus the backend's own job timers. Needs no
+ * network or external services.
+ * <p>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="clients=32 duration-s=120 worker.latency-ms=2000"
+ */
+public class LoadTestHarness {
+
+    private static final List<String> BACKEND_TIMERS = List.of("paveinsight.outbox.lag", "paveinsight.job.turnaround",
+            "paveinsight.job.replies.handling", "paveinsight.job.replies.lag", "paveinsight.results.merge",
+            "paveinsight.job.queue.wait");
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Path storageDir = options.get("storage-dir").isEmpty()
+                ? Files.createTempDirectory("paveinsight-loadtest")
+                : Files.createDirectories(Path.of(options.get("storage-dir")));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PaveinsightApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().registerSingleton("loadTestOptions", options))
+                .run("--spring.profiles.active=loadtest", "--paveinsight.loadtest.storage-dir=" + storageDir);
+        try {
+            SimulatedMlWorker worker = context.getBean(SimulatedMlWorker.class);
+            worker.start(context.getBean(JobReplyListener.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            LoadDriver driver = new LoadDriver("http://localhost:" + port, options,
+                    context.getBean(JobCompletionTracker.class), context.getBean(ObjectMapper.class));
+            driver.run();
+            driver.drain();
+            driver.report(System.out, worker);
+            printBackendTimers(context.getBean(MeterRegistry.class));
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    // Includes the warm-up, unlike the client-side figures
+    private static void printBackendTimers(MeterRegistry meterRegistry) {
+        System.out.printf("%nBackend timers (warm-up included)%n");
+        for (String name : BACKEND_TIMERS) {
+            for (Timer timer : meterRegistry.find(name).timers()) {
+                String tags = timer.getId().getTags().stream()
+                        .filter(tag -> !tag.getKey().equals("application")) // Common to all meters
+                        .map(tag -> tag.getKey() + "=" + tag.getValue())
+                        .collect(Collectors.joining(" "));
+                StringBuilder percentiles = new StringBuilder();
+                for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                    percentiles.append(String.format("  p%.0f %9.1f ms", percentile.percentile() * 100,
+                            percentile.value(TimeUnit.MILLISECONDS)));
+                }
+                System.out.printf("%-34s %-20s %8d  mean %9.1f ms  max %9.1f ms%s%n", name, tags,
+                        timer.count(), timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS), percentiles);
+            }
+        }
+    }
+}
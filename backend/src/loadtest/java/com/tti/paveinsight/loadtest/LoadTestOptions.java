@@ -0,0 +1,81 @@
+package com.tti.paveinsight.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Harness settings given as key=value arguments; anything not given keeps its default.
+ * <ul>
+ * <li>duration-s, warmup-s: measured run time, and time before it whose samples are dropped</li>
+ * <li>clients, think-ms: concurrent virtual users and their pause between operations</li>
+ * <li>mix: relative weights of the create, submit, status and read operations</li>
+ * <li>drain-s: time allowed after the run for submitted jobs to finish</li>
+ * <li>worker.*: simulated ML fleet size, per-job latency and jitter, result features per job
+ * and the share of jobs that fail</li>
+ * </ul>
+ */
+public class LoadTestOptions {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("duration-s", "60");
+        DEFAULTS.put("warmup-s", "10");
+        DEFAULTS.put("clients", "16");
+        DEFAULTS.put("think-ms", "0");
+        DEFAULTS.put("mix", "create:1,submit:1,status:2,read:6");
+        DEFAULTS.put("drain-s", "30");
+        DEFAULTS.put("storage-dir", "");
+        DEFAULTS.put("worker.concurrency", "8");
+        DEFAULTS.put("worker.latency-ms", "500");
+        DEFAULTS.put("worker.jitter-ms", "250");
+        DEFAULTS.put("worker.features", "2000");
+        DEFAULTS.put("worker.failure-rate", "0");
+    }
+
+    private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String key = equals < 0 ? arg : arg.substring(0, equals);
+            if (equals < 0 || !DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown option " + arg + "; options are " + DEFAULTS);
+            }
+            options.values.put(key, arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(values.get(key));
+    }
+
+    public long getLong(String key) {
+        return Long.parseLong(values.get(key));
+    }
+
+    public double getDouble(String key) {
+        return Double.parseDouble(values.get(key));
+    }
+
+    // Operation weights from mix, e.g. create:1,submit:1,status:2,read:6
+    public Map<String, Integer> getMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : values.get("mix").split(",")) {
+            String[] weight = entry.split(":");
+            mix.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
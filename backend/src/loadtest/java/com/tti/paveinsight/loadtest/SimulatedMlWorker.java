@@ -0,0 +1,171 @@
+package com.tti.paveinsight.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import com.tti.paveinsight.fixtures.TestFixtures;
+import com.tti.paveinsight.messaging.JobReplyListener;
+import com.tti.paveinsight.messaging.JobReplyMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Random;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the ML fleet: a fixed number of workers take jobs off an in-memory pci-analysis
+ * queue, highest message priority first like the broker's priority queue, spend the configured latency (plus uniform jitter) on each, write a synthetic result
+ * document of the configured size to storage and deliver the reply to {@link JobReplyListener}
+ * as the reply queue would. A share of jobs can be made to fail. Results are seeded by job ID,
+ * so the same job always gets the same document.
+ */
+@Slf4j
+public class SimulatedMlWorker {
+
+    private final ObjectMapper objectMapper;
+
+    private final Path storageRoot;
+
+    private final String bucket;
+
+    private final LoadTestOptions options;
+
+    // FIFO within a priority, as in RabbitMQ
+    private final BlockingQueue<Queued> queue = new PriorityBlockingQueue<>(64, Comparator
+            .comparingInt((Queued queued) -> queued.priority()).reversed()
+            .thenComparingLong(Queued::sequence));
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong deliveryTags = new AtomicLong();
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final Channel channel;
+
+    private volatile JobReplyListener replyListener;
+
+    public SimulatedMlWorker(ObjectMapper objectMapper, Path storageRoot, String bucket, LoadTestOptions options) {
+        this.objectMapper = objectMapper;
+        this.storageRoot = storageRoot;
+        this.bucket = bucket;
+        this.options = options;
+        this.channel = acknowledgingChannel();
+    }
+
+    // Starts the workers; replies go to the listener the backend registered for job-reply-queue
+    public void start(JobReplyListener replyListener) {
+        this.replyListener = replyListener;
+        for (int i = 0; i < options.getInt("worker.concurrency"); i++) {
+            Thread thread = new Thread(this::work, "ml-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public void accept(Message message) {
+        Integer priority = message.getMessageProperties().getPriority();
+        queue.add(new Queued(message, priority == null ? 0 : priority, sequence.incrementAndGet()));
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Message message = queue.take().message();
+                long startedAt = System.currentTimeMillis();
+                long latency = options.getLong("worker.latency-ms");
+                long jitter = options.getLong("worker.jitter-ms");
+                Thread.sleep(Math.max(0, latency + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0)));
+                JobReplyMessage reply = process(message);
+                reply.setStartedAt(startedAt);
+                reply.setFinishedAt(System.currentTimeMillis());
+                replyListener.handleJobReply(reply, channel, deliveryTags.incrementAndGet(), new Date());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                log.error("Simulated worker failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private JobReplyMessage process(Message message) throws IOException {
+        // The backend publishes the job as a JSON string, so the body is a JSON-encoded document
+        JsonNode body = objectMapper.readTree(message.getBody());
+        JsonNode job = body.isTextual() ? objectMapper.readTree(body.asText()) : body;
+        long jobId = job.path("id").asLong();
+        String correlationId = message.getMessageProperties().getCorrelationId();
+
+        JobReplyMessage reply = new JobReplyMessage();
+        reply.setJobId(jobId);
+        reply.setCorrelationId(correlationId);
+        if (ThreadLocalRandom.current().nextDouble() < options.getDouble("worker.failure-rate")) {
+            reply.setJobStatus("incomplete");
+            reply.setError("Simulated worker failure");
+            failed.incrementAndGet();
+            return reply;
+        }
+
+        Random random = new Random(TestFixtures.SEED ^ jobId);
+        String key = "results/" + correlationId + "/output.geojson";
+        Path file = storageRoot.resolve(bucket).resolve(key);
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            TestFixtures.writeResultDocument(random, options.getInt("worker.features"), out);
+        }
+        String url = "https://" + bucket + ".s3.us-east-1.amazonaws.com/";
+        reply.setJobStatus("complete");
+        reply.setResultGeoJsonS3URL(url + key);
+        reply.setResultZippedShapefileS3URL(url + "results/" + correlationId + "/output.zip");
+        reply.setBounds(TestFixtures.bounds(random));
+        completed.incrementAndGet();
+        return reply;
+    }
+
+    // Only acknowledgements are called on the channel handed to the listener
+    private Channel acknowledgingChannel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "basicReject", "basicNack" -> {
+                        rejected.incrementAndGet();
+                        yield null;
+                    }
+                    case "toString" -> "SimulatedChannel";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private record Queued(Message message, int priority, long sequence) {
+    }
+}
@@ -1,14 +1,23 @@
 package com.tti.paveinsight.config;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+@Slf4j
 @Configuration
 public class RabbitMQConfig {
     @Bean
@@ -20,26 +29,70 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(CachingConnectionFactory connectionFactory, Jackson2JsonMessageConverter jackson2JsonMessageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jackson2JsonMessageConverter);
+        // Unroutable jobs come back instead of being dropped; the publisher sees them on its CorrelationData
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setReturnsCallback(returned -> log.warn("Job message returned by the broker: {} {}, routing key {}",
+                returned.getReplyCode(), returned.getReplyText(), returned.getRoutingKey()));
         return rabbitTemplate;
     }
 
+    // Reply consumers: acknowledgement is manual because replies complete asynchronously in JobReplyPipeline
+    @Bean
+    public SimpleRabbitListenerContainerFactory jobReplyContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${paveinsight.replies.concurrency:2}") int concurrency,
+            @Value("${paveinsight.replies.max-concurrency:4}") int maxConcurrency,
+            @Value("${paveinsight.replies.prefetch:16}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(prefetch);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
     @Bean
     public DirectExchange pciAnalysisExchange() {
         return new DirectExchange("pci-analysis", true, false);
     }
 
+    // A priority queue; the ML worker declares it with the same x-max-priority, which cannot change once declared
     @Bean
-    public Queue pciAnalysisQueue() {
-        return new Queue("pci-analysis-queue", true);
+    public Queue pciAnalysisQueue(@Value("${paveinsight.scheduling.max-priority:9}") int maxPriority) {
+        return QueueBuilder.durable("pci-analysis-queue").maxPriority(maxPriority).build();
     }
 
+    /**
+     * Dedicated reply queue. Rejected replies are dead-lettered to job-reply-dlq to be inspected or
+     * shovelled back. Queue arguments cannot change once declared, so a job-reply-queue declared
+     * before the dead-letter exchange must be deleted once (after draining it) for this to apply.
+     */
     @Bean
     public Queue jobReplyQueue() {
-        return new Queue("job-reply-queue", true); // Dedicated reply queue
+        return QueueBuilder.durable("job-reply-queue")
+                .deadLetterExchange("job-reply-dlx")
+                .deadLetterRoutingKey("job-reply-dlq")
+                .build();
+    }
+
+    @Bean
+    public DirectExchange jobReplyDeadLetterExchange() {
+        return new DirectExchange("job-reply-dlx", true, false);
+    }
+
+    @Bean
+    public Queue jobReplyDeadLetterQueue() {
+        return QueueBuilder.durable("job-reply-dlq").build();
+    }
+
+    @Bean
+    public Binding jobReplyDeadLetterBinding(@Qualifier("jobReplyDeadLetterQueue") Queue jobReplyDeadLetterQueue) {
+        return BindingBuilder.bind(jobReplyDeadLetterQueue).to(jobReplyDeadLetterExchange()).with("job-reply-dlq");
     }
 
     @Bean
-    public Binding pciAnalysisQueueBinding() {
-        return BindingBuilder.bind(pciAnalysisQueue()).to(pciAnalysisExchange()).with("pci-analysis-queue");
+    public Binding pciAnalysisQueueBinding(@Qualifier("pciAnalysisQueue") Queue pciAnalysisQueue) {
+        return BindingBuilder.bind(pciAnalysisQueue).to(pciAnalysisExchange()).with("pci-analysis-queue");
     }
 }
\ No newline at end of file
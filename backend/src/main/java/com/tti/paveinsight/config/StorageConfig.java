@@ -1,4 +1,6 @@
 package com.tti.paveinsight.config;
+import com.tti.paveinsight.services.storage.StorageMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Bean;
@@ -25,8 +27,11 @@ public class StorageConfig {
     @Value("${spring.cloud.aws.s3.endpoint:}")
     private String s3Endpoint; // Optional: Useful for local S3-compatible services like MinIO
 
+    @Value("${spring.cloud.aws.s3.path-style-access-enabled:false}")
+    private boolean pathStyleAccess; // MinIO and most local stand-ins need bucket-in-path URLs
+
     @Bean
-    public S3Client s3Client() {
+    public S3Client s3Client(MeterRegistry meterRegistry) {
         S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(region))
                 .credentialsProvider(
@@ -36,6 +41,8 @@ public class StorageConfig {
         if (!s3Endpoint.isEmpty()) {
             builder.endpointOverride(URI.create(s3Endpoint));
         }
+        builder.forcePathStyle(pathStyleAccess);
+        builder.overrideConfiguration(config -> config.addExecutionInterceptor(new StorageMetricsInterceptor(meterRegistry)));
 
         return builder.build();
     }
@@ -15,4 +15,4 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*") // Allow all headers
                 .allowCredentials(true); // Allow credentials if needed
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.tti.paveinsight.controllers;
+
+import com.tti.paveinsight.dto.EmailStatusDto;
+import com.tti.paveinsight.services.email.EmailService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/emails")
+public class EmailController {
+    private final EmailService emailService;
+
+    public EmailController(EmailService emailService) {
+        this.emailService = emailService;
+    }
+
+    // Delivery state of an email queued by send-email; kept for a day
+    @GetMapping("{id}")
+    public ResponseEntity<EmailStatusDto> getEmailStatus(@PathVariable UUID id) {
+        EmailStatusDto status = emailService.getEmailStatus(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+}
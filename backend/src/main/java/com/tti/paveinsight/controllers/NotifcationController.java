@@ -1,15 +1,17 @@
 package com.tti.paveinsight.controllers;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Controller;
 
+@Slf4j
 @Controller
 public class NotifcationController {
     @MessageMapping("/application")
     @SendTo("/all/messages")
     public String sendNotification(String message){
-        System.out.println("message :" + message);
+        log.debug("message: {}", message);
         return message;
     }
 }
@@ -1,24 +1,51 @@
 package com.tti.paveinsight.controllers;
 
 import com.tti.paveinsight.dto.*;
-import com.tti.paveinsight.services.email.EmailServiceImpl;
+import com.tti.paveinsight.models.PciCondition;
+import com.tti.paveinsight.services.email.EmailService;
 import com.tti.paveinsight.services.request.RequestServiceImpl;
+import com.tti.paveinsight.services.result.CachedResult;
+import com.tti.paveinsight.utils.geo.TileMath;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/v1/requests")
 public class RequestController {
+    private static final MediaType MVT_MEDIA_TYPE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
     private final RequestServiceImpl requestServiceImpl;
 
-    private final EmailServiceImpl emailService;
+    private final EmailService emailService;
+
+    @Value("${paveinsight.requests.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${paveinsight.requests.max-page-size:200}")
+    private int maxPageSize;
 
-    @Autowired RequestController(RequestServiceImpl requestServiceImpl, EmailServiceImpl emailService){
+    @Value("${paveinsight.segments.max-results:10000}")
+    private int maxSegmentResults;
+
+    @Value("${paveinsight.jobs.bulk-max-size:1000}")
+    private int maxBulkSubmitSize;
+
+    @Autowired RequestController(RequestServiceImpl requestServiceImpl, EmailService emailService){
         this.requestServiceImpl = requestServiceImpl;
         this.emailService = emailService;
     }
@@ -28,6 +55,19 @@ public class RequestController {
         List<RequestDto> requests = requestServiceImpl.getAllRequests();
         return ResponseEntity.ok(requests);
     }
+
+    @GetMapping(params = {"paged"})
+    public ResponseEntity<?> getRequestPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        try {
+            RequestPageDto page = requestServiceImpl.getRequestPage(cursor, pageSize);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<RequestDto> getRequestById(@PathVariable UUID id) {
         RequestDto request = requestServiceImpl.getRequestById(id);
@@ -49,10 +89,20 @@ public class RequestController {
         return ResponseEntity.ok(requestServiceImpl.getCompletedRequestCount());
     }
 
+    @GetMapping("/stats")
+    public ResponseEntity<RequestStatsDto> getRequestStats() {
+        return ResponseEntity.ok(requestServiceImpl.getRequestStats());
+    }
+
     @PostMapping
-    public ResponseEntity<RequestDto> createRequest(@RequestBody RequestDto requestDto){
-        RequestDto createdRequest = requestServiceImpl.createRequest(requestDto);
-        return ResponseEntity.status(201).body(createdRequest);
+    public ResponseEntity<?> createRequest(@RequestBody RequestDto requestDto){
+        try {
+            RequestDto createdRequest = requestServiceImpl.createRequest(requestDto);
+            return ResponseEntity.status(201).body(createdRequest);
+        } catch (IllegalArgumentException e) {
+            // The AOI was rejected
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     @DeleteMapping("/{id}")
@@ -62,15 +112,37 @@ public class RequestController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<RequestDto> updateRequest(@PathVariable UUID id, @RequestBody RequestDto requestDto) {
-        RequestDto updatedRequest = requestServiceImpl.updateRequest(id, requestDto);
-        return ResponseEntity.ok(updatedRequest);
+    public ResponseEntity<?> updateRequest(@PathVariable UUID id, @RequestBody RequestDto requestDto) {
+        try {
+            RequestDto updatedRequest = requestServiceImpl.updateRequest(id, requestDto);
+            return ResponseEntity.ok(updatedRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping("/{id}/submit-job")
-    public ResponseEntity<RequestDto> submitJob(@PathVariable UUID id) {
-        RequestDto submittedJob = requestServiceImpl.submitJobForRequest(id);
-        return ResponseEntity.ok(submittedJob);
+    public ResponseEntity<?> submitJob(@PathVariable UUID id) {
+        try {
+            RequestDto submittedJob = requestServiceImpl.submitJobForRequest(id);
+            return ResponseEntity.ok(submittedJob);
+        } catch (IllegalArgumentException e) {
+            // The request does not exist, or its AOI no longer passes the checks it is split with
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/submit-jobs")
+    public ResponseEntity<?> submitJobs(@RequestBody BulkSubmitDto bulkSubmitDto) {
+        if (bulkSubmitDto.getRequestIds() != null && bulkSubmitDto.getRequestIds().size() > maxBulkSubmitSize) {
+            return ResponseEntity.badRequest().body("At most " + maxBulkSubmitSize + " requests can be submitted at once");
+        }
+        try {
+            BulkSubmitResultDto result = requestServiceImpl.submitJobsForRequests(bulkSubmitDto.getRequestIds());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}/jobs-results")
@@ -91,7 +163,7 @@ public class RequestController {
 
         boolean isEmailValid = requestServiceImpl.verifyEmailWithRequest(id, emailRequestDto.getEmailId());
         if (!isEmailValid) {
-            System.out.println("Email ID does not match");
+            log.info("Email ID does not match request {}", id);
             return ResponseEntity.status(400).body("Email ID does not match the request ID.");
         }
         // Fetch the finalized job
@@ -115,7 +187,7 @@ public class RequestController {
         boolean isAnyJobFinalized = requestServiceImpl.isAnyJobFinalized(requestId);
 
         if (isAnyJobFinalized) {
-            System.out.println("Another job is already finalized.");
+            log.info("Another job of request {} is already finalized", requestId);
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body("Another job is already finalized. Only one job can be finalized at a time.");
         }
@@ -143,20 +215,162 @@ public class RequestController {
         try {
             requestServiceImpl.deleteJob(requestId, jobId);
         }catch (Exception e) {
-            System.out.println(e.getMessage());
+            log.warn("Error deleting job {} of request {}: {}", jobId, requestId, e.getMessage());
             return ResponseEntity.badRequest().build();
         }
         return ResponseEntity.ok("Job Id: "+jobId+" deleted successfully");
     }
 
     @GetMapping("{requestId}/job/{jobId}/geojson-result")
-    public ResponseEntity<String> getJobResultGeoJSON(@PathVariable UUID requestId, @PathVariable Long jobId) {
+    public ResponseEntity<StreamingResponseBody> getJobResultGeoJSON(@PathVariable UUID requestId, @PathVariable Long jobId,
+                                                                     @RequestParam(required = false) Integer lod,
+                                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                                     WebRequest webRequest) {
+        // Simplified levels for overview maps are built once and served like finalized results
+        if (lod != null && lod != 0) {
+            CachedResult simplified;
+            try {
+                simplified = requestServiceImpl.getSimplifiedJobResultGeoJson(requestId, jobId, lod);
+            } catch (EntityNotFoundException e) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            if (simplified == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            return cachedResultResponse(simplified, acceptEncoding, webRequest);
+        }
+
+        // Finalized results are cached with strong ETags, so If-None-Match can be answered with 304
+        CachedResult cached;
+        try {
+            cached = requestServiceImpl.getFinalizedJobResultGeoJson(requestId, jobId);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // The job is not part of the request
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (cached != null) {
+            return cachedResultResponse(cached, acceptEncoding, webRequest);
+        }
+
         // Delegate logic to the service
-        String result = requestServiceImpl.getJobResultGeoJson(requestId, jobId);
+        StreamingResponseBody result = requestServiceImpl.getJobResultGeoJson(requestId, jobId);
         if (result == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(result);
+    }
+
+    @GetMapping("{requestId}/job/{jobId}/tiles/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getJobResultTile(@PathVariable UUID requestId, @PathVariable Long jobId,
+                                                   @PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!TileMath.isValidTile(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        byte[] tile;
+        try {
+            tile = requestServiceImpl.getJobResultTile(requestId, jobId, z, x, y);
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            // The job is not part of the request
+            return ResponseEntity.badRequest().build();
+        }
+        if (tile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (tile.length == 0) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok().contentType(MVT_MEDIA_TYPE).body(tile);
+    }
+
+    @GetMapping("{requestId}/job/{jobId}/sri-tiles/{z}/{x}/{y}.png")
+    public ResponseEntity<byte[]> getSuperResolutionTile(@PathVariable UUID requestId, @PathVariable Long jobId,
+                                                         @PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!TileMath.isValidTile(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        byte[] tile;
+        try {
+            tile = requestServiceImpl.getSuperResolutionTile(requestId, jobId, z, x, y);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            // The job is not part of the request
+            return ResponseEntity.badRequest().build();
+        }
+        if (tile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (tile.length == 0) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.IMAGE_PNG).body(tile);
+    }
+
+    @GetMapping("{requestId}/job/{jobId}/features")
+    public ResponseEntity<StreamingResponseBody> getJobResultFeatures(@PathVariable UUID requestId, @PathVariable Long jobId,
+                                                                      @RequestParam String bbox) {
+        StreamingResponseBody features;
+        try {
+            features = requestServiceImpl.getJobResultFeatures(requestId, jobId, bbox);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (features == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(features);
+    }
+
+    @GetMapping("{requestId}/job/{jobId}/features/nearest")
+    public ResponseEntity<StreamingResponseBody> getNearestJobResultFeature(@PathVariable UUID requestId, @PathVariable Long jobId,
+                                                                            @RequestParam double lon, @RequestParam double lat) {
+        StreamingResponseBody feature;
+        try {
+            feature = requestServiceImpl.getNearestJobResultFeature(requestId, jobId, lon, lat);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (feature == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(feature);
+    }
+
+    @GetMapping("{requestId}/job/{jobId}/segments")
+    public ResponseEntity<?> getJobSegments(@PathVariable UUID requestId, @PathVariable Long jobId,
+                                            @RequestParam(required = false) Double minPci,
+                                            @RequestParam(required = false) Double maxPci,
+                                            @RequestParam(required = false) PciCondition condition,
+                                            @RequestParam(required = false) Integer limit) {
+        int maxResults = limit == null ? maxSegmentResults : Math.max(1, Math.min(limit, maxSegmentResults));
+        try {
+            return ResponseEntity.ok(requestServiceImpl.getJobSegments(requestId, jobId, minPci, maxPci, condition, maxResults));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("{requestId}/job/{jobId}/segments/stats")
+    public ResponseEntity<?> getJobSegmentStats(@PathVariable UUID requestId, @PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(requestServiceImpl.getJobSegmentStats(requestId, jobId));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        return ResponseEntity.ok(result);
     }
 
     @GetMapping("{requestId}/job/{jobId}/result")
@@ -178,32 +392,47 @@ public class RequestController {
         return ResponseEntity.ok(result);
     }
 
+    // Queues the results-ready email and returns its status; poll GET /api/v1/emails/{id} for delivery
     @PostMapping("{requestId}/send-email")
     public ResponseEntity<?> sendEmail(@PathVariable UUID requestId, @RequestBody SendEmailDto sendEmailDto){
-        String link = sendEmailDto.getLink();
-        System.out.println(link);
-        System.out.println(requestId);
-        try {
-            // Fetch the request details to get the associated email
-            RequestDto request = requestServiceImpl.getRequestById(requestId);
-            if (request == null) {
-                return ResponseEntity.status(404).body("Request not found.");
-            }
-
-            String emailId = request.getEmail(); // Assuming 'Request' entity has an 'email' field
-
-            // Construct the email body
-            String emailBody = "Hello, \n\nThe results for request ID " + requestId.toString() + " are now ready. " +
-                    "You can view the results by following this link: \n" +
-                     link + "\n" +
-                    "Best regards,\nPaveVision";
-
-            // Send the email
-            emailService.sendEmail(emailId, "Results Ready for Request ID " + requestId.toString(), emailBody);
+        // Fetch the request details to get the associated email
+        RequestDto request;
+        try {
+            request = requestServiceImpl.getRequestById(requestId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body("Request not found.");
+        }
+        try {
+            EmailStatusDto status = emailService.sendResultsReadyEmail(request.getEmail(), requestId, sendEmailDto.getLink());
+            return ResponseEntity.accepted().body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
 
-            return ResponseEntity.ok("Email sent successfully!");
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("An error occurred while sending the email: " + e.getMessage());
+    /**
+     * Serves a cached document in the smallest encoding the client accepts. The streaming return
+     * value handler does not evaluate conditional requests, so If-None-Match is checked here.
+     */
+    private static ResponseEntity<StreamingResponseBody> cachedResultResponse(CachedResult cached, String acceptEncoding,
+                                                                              WebRequest webRequest) {
+        String encoding = cached.selectEncoding(acceptEncoding);
+        String etag = cached.etag(encoding);
+        boolean notModified = webRequest.checkNotModified(etag); // Also sets the ETag header
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .cacheControl(CacheControl.noCache()) // Revalidate, finalization can be reset
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (notModified) {
+            return response.build();
+        }
+        if (encoding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding);
         }
+        byte[] body = cached.body(encoding);
+        return response.contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(out -> out.write(body));
     }
 }
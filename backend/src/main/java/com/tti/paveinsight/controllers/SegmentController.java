@@ -0,0 +1,39 @@
+package com.tti.paveinsight.controllers;
+
+import com.tti.paveinsight.dto.JobSegmentDto;
+import com.tti.paveinsight.models.PciCondition;
+import com.tti.paveinsight.services.segment.SegmentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/segments")
+public class SegmentController {
+    private final SegmentService segmentService;
+
+    @Value("${paveinsight.segments.max-results:10000}")
+    private int maxSegmentResults;
+
+    public SegmentController(SegmentService segmentService) {
+        this.segmentService = segmentService;
+    }
+
+    // Segments of all finalized results inside a bbox, e.g. ?bbox=-96.4,30.5,-96.2,30.7&maxPci=40
+    @GetMapping
+    public ResponseEntity<?> getFinalizedSegments(@RequestParam String bbox,
+                                                  @RequestParam(required = false) Double minPci,
+                                                  @RequestParam(required = false) Double maxPci,
+                                                  @RequestParam(required = false) PciCondition condition,
+                                                  @RequestParam(required = false) Integer limit) {
+        int maxResults = limit == null ? maxSegmentResults : Math.max(1, Math.min(limit, maxSegmentResults));
+        try {
+            List<JobSegmentDto> segments = segmentService.getFinalizedSegments(bbox, minPci, maxPci, condition, maxResults);
+            return ResponseEntity.ok(segments);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
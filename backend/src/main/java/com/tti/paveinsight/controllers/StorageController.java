@@ -1,6 +1,9 @@
 package com.tti.paveinsight.controllers;
 
+import com.tti.paveinsight.dto.UploadPartDto;
+import com.tti.paveinsight.dto.UploadSessionDto;
 import com.tti.paveinsight.services.storage.StorageService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -30,6 +33,92 @@ public class StorageController {
         }
     }
 
+    // Raw request body streamed to S3 in parts; avoids multipart spooling for large imagery
+    @PutMapping("/stream")
+    public ResponseEntity<String> streamFile(
+            @RequestParam("bucketName") String bucketName,
+            @RequestParam("fileName") String fileName,
+            HttpServletRequest request
+    ) {
+        try {
+            String uploadedName = storageService.uploadFile(bucketName, fileName, request.getInputStream());
+            return ResponseEntity.ok("File uploaded successfully with name: " + uploadedName);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startUpload(
+            @RequestParam("bucketName") String bucketName,
+            @RequestParam("fileName") String fileName
+    ) {
+        try {
+            UploadSessionDto upload = storageService.startUpload(bucketName, fileName);
+            return ResponseEntity.status(201).body(upload);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to start upload: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUpload(
+            @PathVariable String uploadId,
+            @RequestParam("bucketName") String bucketName,
+            @RequestParam("key") String key
+    ) {
+        try {
+            return ResponseEntity.ok(storageService.getUpload(bucketName, key, uploadId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to read upload: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/uploads/{uploadId}/parts/{partNumber}")
+    public ResponseEntity<?> uploadPart(
+            @PathVariable String uploadId,
+            @PathVariable int partNumber,
+            @RequestParam("bucketName") String bucketName,
+            @RequestParam("key") String key,
+            HttpServletRequest request
+    ) {
+        try {
+            UploadPartDto part = storageService.uploadPart(bucketName, key, uploadId, partNumber,
+                    request.getInputStream(), request.getContentLengthLong());
+            return ResponseEntity.ok(part);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to upload part: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<String> completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam("bucketName") String bucketName,
+            @RequestParam("key") String key
+    ) {
+        try {
+            String fileName = storageService.completeUpload(bucketName, key, uploadId);
+            return ResponseEntity.ok("File uploaded successfully with name: " + fileName);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to complete upload: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<String> abortUpload(
+            @PathVariable String uploadId,
+            @RequestParam("bucketName") String bucketName,
+            @RequestParam("key") String key
+    ) {
+        try {
+            storageService.abortUpload(bucketName, key, uploadId);
+            return ResponseEntity.ok("Upload aborted: " + key);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to abort upload: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/read")
     public ResponseEntity<String> readFile(
             @RequestParam("bucketName") String bucketName,
@@ -0,0 +1,13 @@
+package com.tti.paveinsight.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class BulkSubmitDto {
+    private List<UUID> requestIds;
+}
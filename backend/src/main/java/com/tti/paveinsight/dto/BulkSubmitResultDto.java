@@ -0,0 +1,19 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BulkSubmitResultDto {
+    private int submitted;
+    private int acknowledged;
+    private int failed;
+    private long publishMillis;
+    private double jobsPerSecond;
+    private List<JobSubmissionDto> jobs;
+}
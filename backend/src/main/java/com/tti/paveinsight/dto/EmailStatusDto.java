@@ -0,0 +1,25 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Delivery state of a queued email: QUEUED, RETRYING, SENT or FAILED.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class EmailStatusDto {
+    private UUID id;
+    private String to;
+    private String subject;
+    private String status;
+    private int attempts;
+    private String lastError;
+    private Date queuedAt;
+    private Date updatedAt;
+}
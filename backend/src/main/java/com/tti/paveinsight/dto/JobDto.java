@@ -23,6 +23,8 @@ public class JobDto {
     private boolean isFinalized;
     private UUID requestId; // To associate with a specific request
     private String geoJson; // The geoJSON data for the job
+    private Long parentJobId; // Set on the sub-jobs of a split job
+    private Integer subJobCount; // Set on a split job
 
 
     @Override
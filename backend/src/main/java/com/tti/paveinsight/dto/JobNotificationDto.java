@@ -0,0 +1,23 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Job status change pushed to /specific/requests/{requestId}. Carries no result data; clients
+ * fetch the result from the job endpoints once they see COMPLETED.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class JobNotificationDto {
+    private UUID requestId;
+    private Long jobId;
+    private String status;
+    private String message;
+    private Date timestamp;
+}
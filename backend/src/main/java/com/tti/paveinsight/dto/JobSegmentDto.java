@@ -0,0 +1,24 @@
+package com.tti.paveinsight.dto;
+
+import com.tti.paveinsight.models.PciCondition;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor // Used by the JPQL constructor expressions in JobSegmentRepository
+public class JobSegmentDto {
+    private Long jobId;
+    private int segmentIndex;
+    private String featureId;
+    private String streetName;
+    private String surface;
+    private Double pci;
+    private PciCondition conditionClass;
+    private double lengthMeters;
+    private double minLon;
+    private double minLat;
+    private double maxLon;
+    private double maxLat;
+}
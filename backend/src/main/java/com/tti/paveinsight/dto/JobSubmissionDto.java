@@ -0,0 +1,21 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * Outcome of publishing one job of a bulk submission.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class JobSubmissionDto {
+    private UUID requestId;
+    private Long jobId;
+    private String correlationId;
+    private boolean acknowledged; // The broker confirmed the message and did not return it
+    private String reason;
+}
@@ -1,5 +1,6 @@
 package com.tti.paveinsight.dto;
 
+import com.tti.paveinsight.models.AoiMetrics;
 import com.tti.paveinsight.models.Job;
 import lombok.Getter;
 import lombok.Setter;
@@ -18,6 +19,8 @@ public class RequestDto {
     private String companyName;
     private String phoneNumber;
     private String geoJson;
+    // Computed on ingestion; ignored when sent by the client
+    private AoiMetrics aoi;
     private String message;
     private String status;
     private List<JobDto> jobs;
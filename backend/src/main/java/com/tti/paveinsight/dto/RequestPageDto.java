@@ -0,0 +1,15 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RequestPageDto {
+    private List<RequestSummaryDto> requests;
+    private String nextCursor; // null when this is the last page
+}
@@ -0,0 +1,22 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Request and job counts per status, as kept in memory by StatsService.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class RequestStatsDto {
+    private long totalRequests;
+    private Map<String, Long> requestsByStatus;
+    private long totalJobs;
+    private Map<String, Long> jobsByStatus;
+    private Date reconciledAt; // Last time the counters were checked against the database
+}
@@ -0,0 +1,48 @@
+package com.tti.paveinsight.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Lightweight view of a request for list screens. Carries job counts instead of the
+ * jobs themselves so none of the AOI or result JSON columns are read.
+ */
+@Getter
+@Setter
+public class RequestSummaryDto {
+    private UUID id;
+    private String username;
+    private String email;
+    private String companyName;
+    private String phoneNumber;
+    private String message;
+    private String status;
+    private Date requestCreatedAt;
+    private Date requestUpdatedAt;
+    private long jobCount;
+    private long completedJobCount;
+    private long pendingJobCount;
+    private boolean finalized;
+
+    // Used by the JPQL constructor expression in RequestRepository
+    public RequestSummaryDto(UUID id, String username, String email, String companyName, String phoneNumber,
+                             String message, String status, Date requestCreatedAt, Date requestUpdatedAt,
+                             Long jobCount, Long completedJobCount, Long pendingJobCount, Long finalizedJobCount) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.companyName = companyName;
+        this.phoneNumber = phoneNumber;
+        this.message = message;
+        this.status = status;
+        this.requestCreatedAt = requestCreatedAt;
+        this.requestUpdatedAt = requestUpdatedAt;
+        this.jobCount = jobCount == null ? 0 : jobCount;
+        this.completedJobCount = completedJobCount == null ? 0 : completedJobCount;
+        this.pendingJobCount = pendingJobCount == null ? 0 : pendingJobCount;
+        this.finalized = finalizedJobCount != null && finalizedJobCount > 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tti.paveinsight.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.tti.paveinsight.models.PciCondition;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Segment count and length of one PCI condition band; a null band groups unscored segments.
+ */
+@Getter
+@Setter
+public class SegmentConditionStatsDto {
+    private PciCondition conditionClass;
+    private long segmentCount;
+    private double lengthMeters;
+    @JsonIgnore
+    private double pciSum;
+    @JsonIgnore
+    private double pciLengthSum;
+
+    // Used by the JPQL constructor expression in JobSegmentRepository
+    public SegmentConditionStatsDto(PciCondition conditionClass, Long segmentCount, Double lengthMeters,
+                                    Double pciSum, Double pciLengthSum) {
+        this.conditionClass = conditionClass;
+        this.segmentCount = segmentCount == null ? 0 : segmentCount;
+        this.lengthMeters = lengthMeters == null ? 0 : lengthMeters;
+        this.pciSum = pciSum == null ? 0 : pciSum;
+        this.pciLengthSum = pciLengthSum == null ? 0 : pciLengthSum;
+    }
+}
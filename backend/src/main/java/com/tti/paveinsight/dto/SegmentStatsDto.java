@@ -0,0 +1,23 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Network-level PCI statistics of a job's result.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class SegmentStatsDto {
+    private Long jobId;
+    private long segmentCount;
+    private long scoredSegmentCount;
+    private double totalLengthMeters;
+    private Double averagePci; // null when no segment carries a PCI score
+    private Double lengthWeightedPci;
+    private List<SegmentConditionStatsDto> conditions;
+}
@@ -0,0 +1,14 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// Used by the JPQL constructor expressions that count requests and jobs per status
+@Getter
+@Setter
+@AllArgsConstructor
+public class StatusCountDto {
+    private String status;
+    private long count;
+}
@@ -0,0 +1,14 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class UploadPartDto {
+    private int partNumber;
+    private String eTag;
+    private long size;
+}
@@ -0,0 +1,22 @@
+package com.tti.paveinsight.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * State of a resumable upload. The S3 multipart upload is the only record of it, so a client can
+ * resume after a failure (or a server restart) by listing the parts already stored.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class UploadSessionDto {
+    private String bucketName;
+    private String key;
+    private String uploadId;
+    private int partSize; // Every part except the last must have exactly this size
+    private List<UploadPartDto> parts;
+}
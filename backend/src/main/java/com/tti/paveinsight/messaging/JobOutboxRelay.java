@@ -0,0 +1,295 @@
+package com.tti.paveinsight.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobOutboxMessage;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobOutboxRepository;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.services.job.JobPublishResult;
+import com.tti.paveinsight.services.job.JobService;
+import com.tti.paveinsight.services.notification.NotificationService;
+import com.tti.paveinsight.services.stats.StatsService;
+import com.tti.paveinsight.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the job outbox to the ML queue. Jobs are added to the outbox in the caller's
+ * transaction; a single relay thread then publishes due messages in batches with pipelined
+ * publisher confirms and deletes the confirmed ones. Messages the broker did not confirm are
+ * retried with exponential back-off, and their job is marked FAILED after the last attempt.
+ * The relay wakes up after each committed submission and otherwise polls, so messages left
+ * behind by a crash or a broker outage are picked up. Delivery is at least once: a message is
+ * published again if the relay dies between the confirm and the delete. Each message is published
+ * with the priority the {@link JobScheduler} assigns to it.
+ */
+@Slf4j
+@Service
+public class JobOutboxRelay {
+
+    private final JobOutboxRepository outboxRepository;
+
+    private final JobRepository jobRepository;
+
+    private final JobService jobService;
+
+    private final StatsService statsService;
+
+    private final NotificationService notificationService;
+
+    private final JobTurnaroundTracker turnaroundTracker;
+
+    private final SubJobTracker subJobTracker;
+
+    private final JobScheduler jobScheduler;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService relay;
+
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long baseBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final Counter published;
+
+    private final Counter retried;
+
+    private final Counter failed;
+
+    private final Timer batchTime;
+
+    private final Timer lag;
+
+    public JobOutboxRelay(JobOutboxRepository outboxRepository, JobRepository jobRepository, JobService jobService,
+                          StatsService statsService, NotificationService notificationService, JobTurnaroundTracker turnaroundTracker,
+                          SubJobTracker subJobTracker, JobScheduler jobScheduler,
+                          ObjectMapper objectMapper, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                          @Value("${paveinsight.outbox.batch-size:100}") int batchSize,
+                          @Value("${paveinsight.outbox.poll-interval-ms:1000}") long pollIntervalMillis,
+                          @Value("${paveinsight.outbox.max-attempts:10}") int maxAttempts,
+                          @Value("${paveinsight.outbox.backoff-ms:1000}") long baseBackoffMillis,
+                          @Value("${paveinsight.outbox.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.jobRepository = jobRepository;
+        this.jobService = jobService;
+        this.statsService = statsService;
+        this.notificationService = notificationService;
+        this.turnaroundTracker = turnaroundTracker;
+        this.subJobTracker = subJobTracker;
+        this.jobScheduler = jobScheduler;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        this.published = Counter.builder("paveinsight.outbox.published").register(meterRegistry);
+        this.retried = Counter.builder("paveinsight.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("paveinsight.outbox.failed")
+                .description("Jobs given up on after the last publish attempt")
+                .register(meterRegistry);
+        this.batchTime = Timer.builder("paveinsight.outbox.batch")
+                .description("Time to publish and settle one outbox batch")
+                .register(meterRegistry);
+        this.lag = Timer.builder("paveinsight.outbox.lag")
+                .description("Time from a job being committed to the broker confirming it")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("paveinsight.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+
+        this.relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relay.scheduleWithFixedDelay(this::drain, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Adds a job to the outbox; must run in the transaction that saves the job
+    public JobOutboxMessage add(Job job, JobDto jobDto) {
+        JobOutboxMessage message = new JobOutboxMessage();
+        message.setJob(job);
+        message.setCorrelationId(job.getCorrelationId());
+        message.setCustomer(customer(job.getRequest()));
+        if (job.getAoi() != null) {
+            message.setEstimatedTiles(job.getAoi().getEstimatedTiles());
+        } else if (job.getRequest().getAoi() != null) {
+            message.setEstimatedTiles(job.getRequest().getAoi().getEstimatedTiles());
+        }
+        try {
+            message.setPayload(objectMapper.writeValueAsString(jobDto));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Job " + job.getId() + " cannot be serialized", e);
+        }
+        Date now = new Date();
+        message.setCreatedAt(now);
+        message.setNextAttemptAt(now);
+        return outboxRepository.save(message);
+    }
+
+    // Drains the outbox as soon as the current transaction has committed
+    public void wakeUpAfterCommit() {
+        TransactionUtils.afterCommit(this::wakeUp);
+    }
+
+    /**
+     * Publishes the given outbox messages right away on the relay thread and returns the outcome
+     * by correlation ID. Messages the broker did not confirm stay in the outbox for retry; messages
+     * missing from the result were already relayed elsewhere.
+     */
+    public Map<String, JobPublishResult> relayNow(Collection<Long> outboxIds) {
+        try {
+            return relay.submit(() -> relayBatch(() -> outboxRepository.findByIdInOrderByIdAsc(outboxIds))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the outbox relay", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Outbox relay failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        relay.shutdown();
+        relay.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            relay.execute(() -> {
+                wakeUpPending.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            PageRequest batch = PageRequest.of(0, batchSize);
+            while (!relay.isShutdown()
+                    && relayBatch(() -> outboxRepository.findByNextAttemptAtLessThanEqualOrderByIdAsc(new Date(), batch)).size() == batchSize) {
+                // A full batch; there may be more due messages
+            }
+            pending.set(outboxRepository.count());
+        } catch (RuntimeException e) {
+            log.error("Error relaying job outbox: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, JobPublishResult> relayBatch(Supplier<List<JobOutboxMessage>> select) {
+        long start = System.nanoTime();
+        Map<String, JobPublishResult> outcome = transactionTemplate.execute(status -> {
+            List<JobOutboxMessage> messages = select.get();
+            if (messages.isEmpty()) {
+                return Map.of();
+            }
+            Map<String, String> payloads = new LinkedHashMap<>();
+            messages.forEach(message -> payloads.put(message.getCorrelationId(), message.getPayload()));
+            Map<String, Integer> priorities = jobScheduler.priorities(messages);
+            List<JobPublishResult> results = jobService.submitJobs(payloads, priorities);
+
+            Map<String, JobPublishResult> byCorrelationId = new LinkedHashMap<>();
+            List<JobOutboxMessage> settled = new ArrayList<>();
+            List<Long> failedJobIds = new ArrayList<>();
+            List<Job> failedSubJobs = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < messages.size(); i++) {
+                JobOutboxMessage message = messages.get(i);
+                JobPublishResult result = results.get(i);
+                byCorrelationId.put(message.getCorrelationId(), result);
+                if (result.acknowledged()) {
+                    settled.add(message);
+                    published.increment();
+                    lag.record(Math.max(0, now - message.getCreatedAt().getTime()), TimeUnit.MILLISECONDS);
+                    turnaroundTracker.published(message.getCorrelationId());
+                    jobScheduler.published(message, priorities.get(message.getCorrelationId()));
+                    continue;
+                }
+                message.setAttempts(message.getAttempts() + 1);
+                message.setLastError(truncate(result.reason()));
+                if (message.getAttempts() >= maxAttempts) {
+                    settled.add(message);
+                    failedJobIds.add(message.getJob().getId());
+                    if (message.getJob().getParentJob() != null) {
+                        failedSubJobs.add(message.getJob());
+                    }
+                    statsService.jobStatusChanged(message.getJob().getStatus(), "FAILED");
+                    notificationService.sendJobFailureNotification(message.getJob(), "could not be queued for processing");
+                    failed.increment();
+                    log.error("Giving up on job {} after {} publish attempts: {}", message.getJob().getId(),
+                            message.getAttempts(), result.reason());
+                } else {
+                    message.setNextAttemptAt(new Date(now + backoffMillis(message.getAttempts())));
+                    retried.increment();
+                }
+            }
+            outboxRepository.deleteAllInBatch(settled);
+            if (!failedJobIds.isEmpty()) {
+                jobRepository.updateStatus(failedJobIds, "FAILED");
+            }
+            for (Job parent : subJobTracker.subJobsFinished(List.of(), failedSubJobs)) {
+                notificationService.sendJobFailureNotification(parent,
+                        parent.getFailedSubJobs() + " of " + parent.getSubJobCount() + " parts failed");
+            }
+            return byCorrelationId;
+        });
+        if (!outcome.isEmpty()) {
+            batchTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return outcome;
+    }
+
+    private long backoffMillis(int attempts) {
+        long backoff = baseBackoffMillis << Math.min(attempts - 1, 20);
+        return Math.min(maxBackoffMillis, backoff);
+    }
+
+    // Requests are grouped by email, falling back to the company and the user name
+    private static String customer(Request request) {
+        for (String customer : new String[]{request.getEmail(), request.getCompanyName(), request.getUsername()}) {
+            if (customer != null && !customer.isBlank()) {
+                return truncate(customer.trim().toLowerCase(Locale.ROOT), 255);
+            }
+        }
+        return null;
+    }
+
+    private static String truncate(String reason) {
+        return truncate(reason, 500);
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+}
@@ -0,0 +1,76 @@
+package com.tti.paveinsight.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the broker for the depth of the job and reply queues and exports it as the
+ * paveinsight.queue.depth and paveinsight.queue.consumers gauges. Polling keeps scrapes from
+ * opening a channel each time; a gauge reports -1 while its queue cannot be read.
+ */
+@Slf4j
+@Service
+public class JobQueueMonitor {
+
+    private static final String[] QUEUES = {"job-reply-queue", "pci-analysis-queue"};
+
+    private final AmqpAdmin amqpAdmin;
+
+    private final AtomicLong[] depths = new AtomicLong[QUEUES.length];
+
+    private final AtomicLong[] consumers = new AtomicLong[QUEUES.length];
+
+    private final ScheduledExecutorService poller;
+
+    public JobQueueMonitor(AmqpAdmin amqpAdmin, MeterRegistry meterRegistry,
+                             @Value("${paveinsight.queues.poll-interval-ms:15000}") long pollIntervalMillis) {
+        this.amqpAdmin = amqpAdmin;
+        for (int i = 0; i < QUEUES.length; i++) {
+            depths[i] = new AtomicLong(-1);
+            consumers[i] = new AtomicLong(-1);
+            Gauge.builder("paveinsight.queue.depth", depths[i], AtomicLong::get)
+                    .description("Messages ready in the queue")
+                    .tag("queue", QUEUES[i])
+                    .register(meterRegistry);
+            Gauge.builder("paveinsight.queue.consumers", consumers[i], AtomicLong::get)
+                    .tag("queue", QUEUES[i])
+                    .register(meterRegistry);
+        }
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "queue-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        for (int i = 0; i < QUEUES.length; i++) {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(QUEUES[i]);
+                depths[i].set(info == null ? -1 : info.getMessageCount());
+                consumers[i].set(info == null ? -1 : info.getConsumerCount());
+            } catch (RuntimeException e) {
+                depths[i].set(-1);
+                consumers[i].set(-1);
+                log.debug("Error reading the depth of {}: {}", QUEUES[i], e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.tti.paveinsight.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobResult;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.repositories.JobResultRepository;
+import com.tti.paveinsight.services.result.JobResultInvalidatedEvent;
+import com.tti.paveinsight.services.stats.StatsService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persists job replies in batched transactions. Replies are queued and a single writer thread
+ * flushes them when the batch is full or the oldest reply has waited for the maximum delay, so
+ * a burst of replies costs one lookup and one commit per batch instead of per reply. When a batch
+ * fails, its replies are retried one per transaction so a single broken reply fails alone.
+ */
+@Slf4j
+@Service
+public class JobReplyBatchWriter {
+
+    private final JobRepository jobRepository;
+
+    private final JobResultRepository jobResultRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final StatsService statsService;
+
+    private final SubJobTracker subJobTracker;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingReply> queue = new LinkedBlockingQueue<>();
+
+    private final ExecutorService writer;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final DistributionSummary batchSizes;
+
+    private final Timer flushTimer;
+
+    private volatile boolean running = true;
+
+    public JobReplyBatchWriter(JobRepository jobRepository, JobResultRepository jobResultRepository,
+                               ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                               StatsService statsService, SubJobTracker subJobTracker,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${paveinsight.replies.batch-size:50}") int maxBatchSize,
+                               @Value("${paveinsight.replies.batch-max-delay-ms:20}") long maxDelayMillis) {
+        this.jobRepository = jobRepository;
+        this.jobResultRepository = jobResultRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.statsService = statsService;
+        this.subJobTracker = subJobTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.batchSizes = DistributionSummary.builder("paveinsight.job.replies.batch.size")
+                .description("Replies persisted per transaction")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("paveinsight.job.replies.batch.flush")
+                .description("Time to persist one batch of replies")
+                .register(meterRegistry);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-reply-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(this::run);
+    }
+
+    // Queues a reply; the future completes with the updated job once its batch has committed
+    public CompletableFuture<PersistedReply> enqueue(JobReplyMessage reply) {
+        CompletableFuture<PersistedReply> persisted = new CompletableFuture<>();
+        if (!running) {
+            persisted.completeExceptionally(new IllegalStateException("Reply writer is shut down"));
+            return persisted;
+        }
+        try {
+            queue.add(new PendingReply(reply, objectMapper.writeValueAsString(reply), persisted));
+        } catch (JsonProcessingException e) {
+            persisted.completeExceptionally(e);
+        }
+        return persisted;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void run() {
+        List<PendingReply> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingReply first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingReply next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        // Anything left is redelivered by the broker, the messages were never acknowledged
+        for (PendingReply pending; (pending = queue.poll()) != null; ) {
+            pending.persisted().completeExceptionally(new IllegalStateException("Reply writer is shut down"));
+        }
+    }
+
+    private void flush(List<PendingReply> batch) {
+        batchSizes.record(batch.size());
+        Map<PendingReply, PersistedReply> saved;
+        try {
+            saved = flushTimer.recordCallable(() -> transactionTemplate.execute(status -> write(batch)));
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).persisted().completeExceptionally(e);
+                return;
+            }
+            log.warn("Batch of {} replies failed, retrying them one at a time: {}", batch.size(), e.getMessage());
+            for (PendingReply pending : batch) {
+                flush(List.of(pending));
+            }
+            return;
+        }
+        for (PendingReply pending : batch) {
+            PersistedReply persisted = saved.get(pending);
+            if (persisted == null) {
+                pending.persisted().completeExceptionally(new IllegalArgumentException(
+                        "Job not found for correlation ID: " + pending.reply().getCorrelationId()));
+                continue;
+            }
+            if (!pending.reply().isFailed()) {
+                eventPublisher.publishEvent(new JobResultInvalidatedEvent(persisted.job().getId())); // A re-run replaces the result
+            }
+            pending.persisted().complete(persisted);
+        }
+    }
+
+    private Map<PendingReply, PersistedReply> write(List<PendingReply> batch) {
+        Set<Long> jobIds = batch.stream().map(pending -> pending.reply().getJobId()).collect(Collectors.toSet());
+        Map<Long, Job> jobs = jobRepository.findWithRequestByIdIn(jobIds).stream()
+                .collect(Collectors.toMap(Job::getId, Function.identity()));
+        Map<Long, JobResult> results = jobResultRepository.findAllById(jobIds).stream()
+                .collect(Collectors.toMap(JobResult::getId, Function.identity()));
+
+        Map<PendingReply, Job> saved = new IdentityHashMap<>();
+        Set<Job> completedSubJobs = new LinkedHashSet<>();
+        Set<Job> failedSubJobs = new LinkedHashSet<>();
+        for (PendingReply pending : batch) {
+            JobReplyMessage reply = pending.reply();
+            Job job = jobs.get(reply.getJobId());
+            if (job == null) {
+                continue;
+            }
+            if (job.getCorrelationId() == null) {
+                job.setCorrelationId(reply.getCorrelationId()); // Jobs submitted before correlation IDs were stored
+            }
+            boolean outstanding = !"COMPLETED".equals(job.getStatus()) && !"FAILED".equals(job.getStatus());
+            if (reply.isFailed()) {
+                // Only the reply is kept; the locations of any earlier result of the job are left as they were
+                if (outstanding && job.getParentJob() != null) {
+                    failedSubJobs.add(job);
+                }
+                statsService.jobStatusChanged(job.getStatus(), "FAILED");
+                job.setStatus("FAILED");
+                results.computeIfAbsent(job.getId(), id -> new JobResult(job)).setResultData(pending.resultData());
+                saved.put(pending, job);
+                continue;
+            }
+            // The GeoJSON document is streamed from storage on request, so only its location is kept
+            if (outstanding && job.getParentJob() != null) {
+                completedSubJobs.add(job);
+            }
+            statsService.jobStatusChanged(job.getStatus(), "COMPLETED");
+            job.setStatus("COMPLETED");
+            Request request = job.getRequest();
+            // The request of a split job is completed once the parent's merged result is stored
+            if (job.getParentJob() == null && !"COMPLETED".equals(request.getStatus())) {
+                statsService.requestStatusChanged(request.getStatus(), "COMPLETED");
+                request.setStatus("COMPLETED"); // Saved by dirty checking at commit
+            }
+            job.setResultGeoJsonS3URL(reply.getResultGeoJsonS3URL());
+            job.setBounds(reply.getBounds());
+            job.setSuperResolutionImageS3URL(reply.getSuperResolutionImageS3URL());
+            job.setSuperResolutionTIFS3URL(reply.getSuperResolutionTIFS3URL());
+            results.computeIfAbsent(job.getId(), id -> new JobResult(job)).setResultData(pending.resultData());
+            saved.put(pending, job);
+        }
+        jobRepository.saveAll(new HashSet<>(saved.values()));
+        jobResultRepository.saveAll(results.values());
+
+        // The parent goes with the last reply of the batch for one of its sub-jobs
+        Map<Long, Job> finishedParents = subJobTracker.subJobsFinished(completedSubJobs, failedSubJobs)
+                .stream().collect(Collectors.toMap(Job::getId, Function.identity()));
+        Map<PendingReply, PersistedReply> persisted = new IdentityHashMap<>();
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingReply pending = batch.get(i);
+            Job job = saved.get(pending);
+            if (job != null) {
+                Job parent = job.getParentJob() == null ? null : finishedParents.remove(job.getParentJob().getId());
+                persisted.put(pending, new PersistedReply(job, parent));
+            }
+        }
+        return persisted;
+    }
+
+    private record PendingReply(JobReplyMessage reply, String resultData, CompletableFuture<PersistedReply> persisted) {
+    }
+}
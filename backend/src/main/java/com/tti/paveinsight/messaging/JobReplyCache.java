@@ -0,0 +1,71 @@
+package com.tti.paveinsight.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.repositories.JobResultRepository;
+import com.tti.paveinsight.utils.CacheUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recently received job replies by correlation ID, bounded in size and age. Every reply is also
+ * persisted with its job, so a miss is answered from the database and the cache never has to
+ * hold more than the recent working set. Hit, miss and eviction counts are exported as
+ * cache.* metrics under the name "jobReplies".
+ */
+@Service
+public class JobReplyCache {
+
+    private final JobResultRepository jobResultRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final AsyncCache<String, JobReplyMessage> cache;
+
+    public JobReplyCache(JobResultRepository jobResultRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${paveinsight.reply-cache.max-size:10000}") long maxSize,
+                         @Value("${paveinsight.reply-cache.expire-after-write-minutes:60}") long expireAfterWriteMinutes) {
+        this.jobResultRepository = jobResultRepository;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jobReplies");
+    }
+
+    public void put(JobReplyMessage reply) {
+        if (reply.getCorrelationId() != null) {
+            cache.put(reply.getCorrelationId(), CompletableFuture.completedFuture(reply));
+        }
+    }
+
+    // The reply for a correlation ID, loaded from the persisted job result on a miss; null if none exists
+    public JobReplyMessage get(String correlationId) {
+        if (correlationId == null) {
+            return null;
+        }
+        cache.getIfPresent(correlationId); // Counts the hit or miss, which CacheUtils.get does not
+        return CacheUtils.get(cache, correlationId, this::load); // Caffeine drops a null reply
+    }
+
+    private JobReplyMessage load(String correlationId) {
+        return jobResultRepository.findResultDataByCorrelationId(correlationId)
+                .map(resultData -> {
+                    try {
+                        return objectMapper.readValue(resultData, JobReplyMessage.class);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Stored reply for correlation ID " + correlationId + " is not readable", e);
+                    }
+                })
+                .orElse(null);
+    }
+}
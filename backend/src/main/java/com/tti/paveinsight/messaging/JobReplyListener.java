@@ -1,69 +1,62 @@
 package com.tti.paveinsight.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.tti.paveinsight.models.Job;
-import com.tti.paveinsight.repositories.JobRepository;
-import com.tti.paveinsight.services.storage.StorageService;
-import com.tti.paveinsight.utils.S3Utils;
+import com.rabbitmq.client.Channel;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
 
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class JobReplyListener {
 
-    private final ConcurrentHashMap<String, JobReplyMessage> jobResponses = new ConcurrentHashMap<>();
+    private final JobReplyCache jobReplyCache;
 
-    private JobRepository jobRepository;
+    private final JobReplyPipeline jobReplyPipeline;
 
-    private ObjectMapper objectMapper; // Jackson ObjectMapper for JSON serialization
-
-    private final S3Utils s3Utils;
-
-    private final StorageService storageService;
-
-    @RabbitListener(queues = "job-reply-queue")
-    public void handleJobReply(JobReplyMessage jobReply) {
+    // Runs on the consumers of jobReplyContainerFactory; the pipeline acknowledges once the reply is persisted
+    @RabbitListener(queues = "job-reply-queue", containerFactory = "jobReplyContainerFactory")
+    public void handleJobReply(JobReplyMessage jobReply, Channel channel,
+                               @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                               @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date sentAt) {
         try {
-            // Extract the correlation ID from the job reply
-            String correlationId = jobReply.getCorrelationId();
-
-            // Store the full JobReplyMessage with correlation ID for reference
-            jobResponses.put(correlationId, jobReply);
-            Long jobId = jobReply.getJobId();
-            Job job = jobRepository.findById(jobId)
-                    .orElseThrow(() -> new IllegalArgumentException("Job not found for correlation ID: " + correlationId));
-            String resultDataJson = objectMapper.writeValueAsString(jobReply);
-            // Update the job's status and resultData field
-            job.setStatus("COMPLETED");
-            job.setResultData(resultDataJson);
-            jobResponses.put(jobReply.getCorrelationId(), jobReply);
-            // Save the updated job to the database
-            String geoJsonURL = jobReply.getResultGeoJsonS3URL();
-            String bucketName = s3Utils.extractBucketNameFromUrl(geoJsonURL);
-            String fileName = s3Utils.extractFileNameFromUrl(geoJsonURL);
-            String resultGeoJsonContent = storageService.readFile(bucketName, fileName);
-            job.setResultGeoJsonData(resultGeoJsonContent);
-            job.setBounds(jobReply.getBounds());
-            job.setSuperResolutionImageS3URL(jobReply.getSuperResolutionImageS3URL());
-            job.setSuperResolutionTIFS3URL(jobReply.getSuperResolutionTIFS3URL());
-            jobRepository.save(job);
-            System.out.println("Received reply for correlation ID " + correlationId + ": " +
-                    "Status: " + jobReply.getJobStatus() +
-                    ", Zipped Shapefile URL: " + jobReply.getResultZippedShapefileS3URL() +
-                    ", GeoJSON URL: " + jobReply.getResultGeoJsonS3URL());
-//            System.out.println(resultGeoJsonContent);
+            // Keep the full JobReplyMessage by correlation ID for reference
+            jobReplyCache.put(jobReply);
+            jobReplyPipeline.submit(jobReply, sentAt,
+                    () -> acknowledge(channel, deliveryTag, true),
+                    () -> acknowledge(channel, deliveryTag, false));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acknowledge(channel, deliveryTag, false);
         } catch (Exception e) {
-            System.err.println("Error handling job reply: " + e.getMessage());
+            log.error("Error handling job reply: {}", e.getMessage());
+            acknowledge(channel, deliveryTag, false);
         }
     }
 
     // Method to retrieve the full response based on correlation ID, if needed
     public JobReplyMessage getJobResponse(String correlationId) {
-        return jobResponses.get(correlationId);
+        return jobReplyCache.get(correlationId);
+    }
+
+    // Failed replies are not requeued, a broken message would otherwise be redelivered forever; the broker dead-letters them to job-reply-dlq
+    private static void acknowledge(Channel channel, long deliveryTag, boolean success) {
+        try {
+            if (success) {
+                channel.basicAck(deliveryTag, false);
+            } else {
+                channel.basicReject(deliveryTag, false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to acknowledge reply " + deliveryTag, e);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.tti.paveinsight.messaging;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -16,7 +17,14 @@ public class JobReplyMessage {
     private String jobStatus;
     private Long jobId;
     private String error;
+    private Long startedAt; // Epoch milliseconds at which the worker started and finished the job
+    private Long finishedAt;
 
+    // The worker reports "complete", or "incomplete" together with an error
+    @JsonIgnore
+    public boolean isFailed() {
+        return error != null || "incomplete".equalsIgnoreCase(jobStatus);
+    }
 
     @Override
     public String toString() {
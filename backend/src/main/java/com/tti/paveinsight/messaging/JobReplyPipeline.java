@@ -0,0 +1,232 @@
+package com.tti.paveinsight.messaging;
+
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.services.notification.NotificationService;
+import com.tti.paveinsight.services.result.ResultMergeService;
+import com.tti.paveinsight.services.segment.SegmentService;
+import com.tti.paveinsight.utils.ThreadUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes job replies off the listener threads. Each reply is persisted through the
+ * {@link JobReplyBatchWriter} and its result is then indexed from storage on a bounded I/O pool,
+ * so S3 reads of different jobs overlap; subscribers of the request are notified once that is done.
+ * When the last sub-job of a split job is done, their results are merged into the parent's, the
+ * parent is completed (or failed if the merge fails) and subscribers are notified of the parent
+ * too. Merges cut short by a restart are run again at startup.
+ * A reply is acknowledged once it is persisted; indexing, merging and notifying run after that and
+ * only log their failures. Replies for the same job are chained and handled strictly in arrival
+ * order. The number of replies awaiting persistence is capped; when the cap is reached the listener
+ * thread blocks, which in turn stops the broker from delivering beyond the prefetch.
+ */
+@Slf4j
+@Service
+public class JobReplyPipeline {
+
+    private final JobReplyBatchWriter batchWriter;
+
+    private final SegmentService segmentService;
+
+    private final NotificationService notificationService;
+
+    private final ResultMergeService resultMergeService;
+
+    private final SubJobTracker subJobTracker;
+
+    private final JobRepository jobRepository;
+
+    private final JobTurnaroundTracker turnaroundTracker;
+
+    private final JobScheduler jobScheduler;
+
+    private final ExecutorService ioExecutor;
+
+    private final Semaphore inFlightPermits;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter received;
+
+    private final Counter succeeded;
+
+    private final Counter failed;
+
+    private final Timer handlingTime;
+
+    private final Timer lag;
+
+    public JobReplyPipeline(JobReplyBatchWriter batchWriter, SegmentService segmentService,
+                            NotificationService notificationService, ResultMergeService resultMergeService,
+                            SubJobTracker subJobTracker, JobRepository jobRepository,
+                            JobTurnaroundTracker turnaroundTracker, JobScheduler jobScheduler,
+                            MeterRegistry meterRegistry,
+                            @Value("${paveinsight.replies.io-threads:8}") int ioThreads,
+                            @Value("${paveinsight.replies.max-in-flight:64}") int maxInFlight,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.batchWriter = batchWriter;
+        this.segmentService = segmentService;
+        this.notificationService = notificationService;
+        this.resultMergeService = resultMergeService;
+        this.subJobTracker = subJobTracker;
+        this.jobRepository = jobRepository;
+        this.turnaroundTracker = turnaroundTracker;
+        this.jobScheduler = jobScheduler;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        // With virtual threads every reply gets its own; the in-flight limit still bounds them
+        this.ioExecutor = ThreadUtils.newIoExecutor("job-reply-io", ioThreads, virtualThreads);
+
+        this.received = Counter.builder("paveinsight.job.replies.received").register(meterRegistry);
+        this.succeeded = Counter.builder("paveinsight.job.replies.handled").tag("outcome", "success").register(meterRegistry);
+        this.failed = Counter.builder("paveinsight.job.replies.handled").tag("outcome", "failure").register(meterRegistry);
+        this.handlingTime = Timer.builder("paveinsight.job.replies.handling")
+                .description("Time from delivery to acknowledgement")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lag = Timer.builder("paveinsight.job.replies.lag")
+                .description("Time from the worker sending a reply to its acknowledgement")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("paveinsight.job.replies.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Hands a delivered reply to the pipeline. Exactly one of the callbacks runs once the reply
+     * has been persisted or has failed to be. Blocks while the in-flight limit is reached.
+     */
+    public void submit(JobReplyMessage reply, Date sentAt, Runnable ack, Runnable reject) throws InterruptedException {
+        received.increment();
+        if (reply.getJobId() == null) {
+            log.error("Error handling job reply: no job id in {}", reply);
+            failed.increment();
+            reject.run();
+            return;
+        }
+        turnaroundTracker.replied(reply);
+        jobScheduler.replied(reply);
+        inFlightPermits.acquire();
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        Long jobId = reply.getJobId();
+
+        // Chained outside the map's lock: when the previous reply is done, enqueue runs right here
+        CompletableFuture<Void> handled = new CompletableFuture<>();
+        CompletableFuture<Void> previous = lanes.put(jobId, handled);
+        CompletableFuture<Void> after = previous == null ? CompletableFuture.completedFuture(null) : previous;
+        CompletableFuture<PersistedReply> persisted = after.thenCompose(ignored -> batchWriter.enqueue(reply));
+        // Acknowledged as soon as the reply is committed; indexing, merging and notifying don't hold it
+        persisted.whenComplete((ignored, error) -> finish(reply, start, sentAt, error, ack, reject));
+        persisted.thenAcceptAsync(saved -> complete(reply, saved), ioExecutor)
+                .whenComplete((ignored, error) -> handled.complete(null)); // Never fails, so the next reply of the job always runs
+        handled.whenComplete((ignored, error) -> lanes.remove(jobId, handled));
+    }
+
+    // Split jobs left MERGING by a restart have their sub-job results merged again
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeMerges() {
+        for (Job parent : jobRepository.findByStatus("MERGING")) {
+            log.info("Resuming the merge of the sub-job results of job {}", parent.getId());
+            ioExecutor.execute(() -> completeSplitJob(parent));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ioExecutor.shutdown();
+        ioExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // Notifies subscribers once the segments are indexed, so everything is queryable when they hear of it.
+    // The reply is already acknowledged, so a failure here is only logged.
+    private void complete(JobReplyMessage reply, PersistedReply persisted) {
+        Job job = persisted.job();
+        try {
+            if (reply.isFailed()) {
+                notificationService.sendJobFailureNotification(job, reply.getError());
+            } else {
+                indexSegments(job);
+                notificationService.sendJobCompletionNotification(job);
+            }
+            if (persisted.finishedParent() != null) {
+                completeSplitJob(persisted.finishedParent());
+            }
+        } catch (RuntimeException e) {
+            log.error("Error completing job {} after its reply {}: {}", job.getId(), reply.getCorrelationId(), e.getMessage());
+        }
+    }
+
+    private void completeSplitJob(Job parent) {
+        if ("MERGING".equals(parent.getStatus())) {
+            try {
+                subJobTracker.mergeFinished(parent, resultMergeService.mergeSubJobResults(parent));
+            } catch (IOException | RuntimeException e) {
+                log.error("Error merging the sub-job results of job {}: {}", parent.getId(), e.getMessage());
+                try {
+                    subJobTracker.mergeFinished(parent, null);
+                } catch (RuntimeException failure) {
+                    // Left MERGING, so the merge is run again at the next startup
+                    log.error("Error failing job {}: {}", parent.getId(), failure.getMessage());
+                }
+                notificationService.sendJobFailureNotification(parent, "the results of its parts could not be merged");
+                return;
+            }
+            indexSegments(parent);
+            notificationService.sendJobCompletionNotification(parent);
+        } else {
+            notificationService.sendJobFailureNotification(parent,
+                    parent.getFailedSubJobs() + " of " + parent.getSubJobCount() + " parts failed");
+        }
+    }
+
+    private void indexSegments(Job job) {
+        try {
+            // Explode the result into job_segment rows for SQL analytics
+            int segments = segmentService.replaceSegments(job);
+            log.debug("Indexed {} segments for job {}", segments, job.getId());
+        } catch (RuntimeException e) {
+            log.error("Error indexing segments for job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void finish(JobReplyMessage reply, long start, Date sentAt, Throwable error, Runnable ack, Runnable reject) {
+        try {
+            if (error == null) {
+                succeeded.increment();
+                ack.run();
+                log.info("Received reply for correlation ID {}: status {}, zipped shapefile URL {}, GeoJSON URL {}",
+                        reply.getCorrelationId(), reply.getJobStatus(), reply.getResultZippedShapefileS3URL(),
+                        reply.getResultGeoJsonS3URL());
+            } else {
+                failed.increment();
+                reject.run();
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                log.error("Error handling job reply {}: {}", reply.getCorrelationId(), cause.getMessage());
+            }
+        } finally {
+            handlingTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (sentAt != null) {
+                lag.record(Math.max(0, System.currentTimeMillis() - sentAt.getTime()), TimeUnit.MILLISECONDS);
+            }
+            inFlight.decrementAndGet();
+            inFlightPermits.release();
+        }
+    }
+}
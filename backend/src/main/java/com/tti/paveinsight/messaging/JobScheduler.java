@@ -0,0 +1,192 @@
+package com.tti.paveinsight.messaging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.models.JobOutboxMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns the priority a job is published with on the ML queue, a RabbitMQ priority queue, so
+ * short jobs are not stuck behind large ones. The runtime of a job is predicted from its estimated
+ * tiles and the time per tile the workers recently took; each doubling above short-job-ms costs a
+ * level. A customer with more than a fair share of the outstanding predicted work loses up to
+ * fair-share-levels more. The broker cannot reprioritize queued messages, so aging works as a
+ * ceiling: once a published job has gone aging-ms past its predicted runtime without a reply, no
+ * new job is published above its priority. The ceiling rises a level per further aging-ms, so a
+ * job whose reply was lost holds it down for a while rather than until it expires; past the top
+ * level the job is dropped. Jobs that waited in the outbox gain a level per aging-ms.
+ */
+@Service
+public class JobScheduler {
+
+    private static final double SMOOTHING = 0.2; // Weight of the newest runtime in the per-tile average
+
+    private final int maxPriority;
+
+    private final long shortJobMillis;
+
+    private final int fairShareLevels;
+
+    private final long agingMillis;
+
+    private volatile double millisPerTile;
+
+    // Published jobs without a reply yet, by correlation ID
+    private final Cache<String, Dispatch> dispatched;
+
+    // Predicted work of the dispatched jobs by customer
+    private final ConcurrentHashMap<String, Long> outstandingMillis = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> queueWait = new HashMap<>();
+
+    public JobScheduler(MeterRegistry meterRegistry,
+                        @Value("${paveinsight.scheduling.max-priority:9}") int maxPriority,
+                        @Value("${paveinsight.scheduling.short-job-ms:60000}") long shortJobMillis,
+                        @Value("${paveinsight.scheduling.millis-per-tile:50}") double millisPerTile,
+                        @Value("${paveinsight.scheduling.fair-share-levels:3}") int fairShareLevels,
+                        @Value("${paveinsight.scheduling.aging-ms:900000}") long agingMillis,
+                        @Value("${paveinsight.jobs.turnaround-max-hours:24}") long maxHours) {
+        this.maxPriority = maxPriority;
+        this.shortJobMillis = Math.max(1, shortJobMillis);
+        this.millisPerTile = millisPerTile;
+        this.fairShareLevels = fairShareLevels;
+        this.agingMillis = Math.max(1, agingMillis);
+        this.dispatched = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(maxHours))
+                .maximumSize(100_000)
+                .executor(Runnable::run)
+                .<String, Dispatch>removalListener((correlationId, dispatch, cause) -> {
+                    if (dispatch != null) {
+                        outstandingMillis.computeIfPresent(dispatch.customer(),
+                                (customer, millis) -> millis - dispatch.predictedMillis() > 0 ? millis - dispatch.predictedMillis() : null);
+                    }
+                })
+                .build();
+
+        for (String priorityClass : List.of("high", "normal", "low")) {
+            queueWait.put(priorityClass, Timer.builder("paveinsight.job.queue.wait")
+                    .description("Time from a job being published to an ML worker starting it")
+                    .tag("priority", priorityClass)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(100))
+                    .maximumExpectedValue(Duration.ofHours(maxHours))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("paveinsight.job.predicted.millis.per.tile", this, scheduler -> scheduler.millisPerTile)
+                .description("Recent ML worker time per estimated tile, used to predict job runtimes")
+                .register(meterRegistry);
+        Gauge.builder("paveinsight.job.dispatched", dispatched, cache -> cache.estimatedSize())
+                .description("Jobs published to the ML queue and not replied to yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Priorities for a batch of outbox messages about to be published, by correlation ID. Each
+     * message counts towards its customer's share for the ones after it.
+     */
+    public Map<String, Integer> priorities(List<JobOutboxMessage> messages) {
+        long now = System.currentTimeMillis();
+        int ceiling = maxPriority;
+        for (Iterator<Dispatch> iterator = dispatched.asMap().values().iterator(); iterator.hasNext(); ) {
+            Dispatch dispatch = iterator.next();
+            long overdueLevels = (now - dispatch.publishedAt() - dispatch.predictedMillis()) / agingMillis;
+            if (overdueLevels > maxPriority) {
+                iterator.remove(); // Its reply is presumed lost
+            } else if (overdueLevels > 0) {
+                ceiling = (int) Math.min(ceiling, dispatch.priority() + overdueLevels - 1);
+            }
+        }
+
+        Map<String, Long> outstanding = new HashMap<>(outstandingMillis);
+        long totalMillis = outstanding.values().stream().mapToLong(Long::longValue).sum();
+        Map<String, Integer> priorities = new HashMap<>();
+        for (JobOutboxMessage message : messages) {
+            long predicted = predictedMillis(message.getEstimatedTiles());
+            String customer = customer(message);
+            int levels = sizeLevels(predicted) + fairShareLevels(outstanding, totalMillis, customer)
+                    - (int) Math.min(maxPriority, Math.max(0, now - message.getCreatedAt().getTime()) / agingMillis);
+            priorities.put(message.getCorrelationId(), Math.min(ceiling, Math.max(0, Math.min(maxPriority, maxPriority - levels))));
+            outstanding.merge(customer, predicted, Long::sum);
+            totalMillis += predicted;
+        }
+        return priorities;
+    }
+
+    // The broker confirmed the message, published with the given priority
+    public void published(JobOutboxMessage message, int priority) {
+        long predicted = predictedMillis(message.getEstimatedTiles());
+        String customer = customer(message);
+        dispatched.put(message.getCorrelationId(), new Dispatch(customer, message.getEstimatedTiles(), predicted,
+                priority, System.currentTimeMillis()));
+        outstandingMillis.merge(customer, predicted, Long::sum);
+    }
+
+    /**
+     * Records the queue wait and, for completed jobs of known size, the runtime per tile from the
+     * start and finish times the worker reports.
+     */
+    public void replied(JobReplyMessage reply) {
+        if (reply.getCorrelationId() == null) {
+            return;
+        }
+        Dispatch dispatch = dispatched.asMap().remove(reply.getCorrelationId());
+        if (dispatch == null || reply.getStartedAt() == null) {
+            return;
+        }
+        queueWait.get(priorityClass(dispatch.priority()))
+                .record(Math.max(0, reply.getStartedAt() - dispatch.publishedAt()), TimeUnit.MILLISECONDS);
+        Integer tiles = dispatch.estimatedTiles();
+        if (!reply.isFailed() && reply.getFinishedAt() != null && tiles != null && tiles > 0) {
+            double sample = Math.max(0, reply.getFinishedAt() - reply.getStartedAt()) / (double) tiles;
+            synchronized (this) {
+                millisPerTile += SMOOTHING * (sample - millisPerTile);
+            }
+        }
+    }
+
+    // Jobs of unknown size are treated as short
+    private long predictedMillis(Integer estimatedTiles) {
+        return estimatedTiles == null ? shortJobMillis : Math.round(estimatedTiles * millisPerTile);
+    }
+
+    private int sizeLevels(long predictedMillis) {
+        if (predictedMillis <= shortJobMillis) {
+            return 0;
+        }
+        return (int) Math.ceil(Math.log((double) predictedMillis / shortJobMillis) / Math.log(2));
+    }
+
+    // Levels lost for the customer's share of the outstanding work against an even split between customers
+    private int fairShareLevels(Map<String, Long> outstanding, long totalMillis, String customer) {
+        Long own = outstanding.get(customer);
+        if (own == null || totalMillis <= 0) {
+            return 0;
+        }
+        double overShare = (double) own / totalMillis * outstanding.size();
+        return (int) Math.max(0, Math.min(fairShareLevels, Math.round(Math.log(overShare) / Math.log(2))));
+    }
+
+    private String priorityClass(int priority) {
+        if (3 * priority >= 2 * maxPriority) {
+            return "high";
+        }
+        return 3 * priority >= maxPriority ? "normal" : "low";
+    }
+
+    private static String customer(JobOutboxMessage message) {
+        return message.getCustomer() == null ? "" : message.getCustomer();
+    }
+
+    private record Dispatch(String customer, Integer estimatedTiles, long predictedMillis, int priority, long publishedAt) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.tti.paveinsight.messaging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ML turnaround: the time from the broker confirming a job to its reply arriving, matched by
+ * correlation ID and recorded as paveinsight.job.turnaround by outcome. Publish times are kept in
+ * memory, so jobs published by another instance or before a restart are not measured.
+ */
+@Service
+public class JobTurnaroundTracker {
+
+    private final Cache<String, Long> publishedAt;
+
+    private final Timer succeeded;
+
+    private final Timer failed;
+
+    public JobTurnaroundTracker(MeterRegistry meterRegistry,
+                                @Value("${paveinsight.jobs.turnaround-max-hours:24}") long maxHours) {
+        this.publishedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(maxHours))
+                .maximumSize(100_000)
+                .build();
+        this.succeeded = turnaround(meterRegistry, "success", maxHours);
+        this.failed = turnaround(meterRegistry, "failure", maxHours);
+    }
+
+    public void published(String correlationId) {
+        if (correlationId != null) {
+            publishedAt.put(correlationId, System.currentTimeMillis());
+        }
+    }
+
+    public void replied(JobReplyMessage reply) {
+        if (reply.getCorrelationId() == null) {
+            return;
+        }
+        Long published = publishedAt.asMap().remove(reply.getCorrelationId());
+        if (published != null) {
+            (reply.isFailed() ? failed : succeeded)
+                    .record(Math.max(0, System.currentTimeMillis() - published), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Timer turnaround(MeterRegistry meterRegistry, String outcome, long maxHours) {
+        return Timer.builder("paveinsight.job.turnaround")
+                .description("Time from a job being published to the ML queue to its reply arriving")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofHours(maxHours))
+                .register(meterRegistry);
+    }
+}
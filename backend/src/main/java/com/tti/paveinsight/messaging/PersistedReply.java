@@ -0,0 +1,7 @@
+package com.tti.paveinsight.messaging;
+
+import com.tti.paveinsight.models.Job;
+
+// A job updated from a reply, and the split job the reply finished if it was the last sub-job outstanding
+public record PersistedReply(Job job, Job finishedParent) {
+}
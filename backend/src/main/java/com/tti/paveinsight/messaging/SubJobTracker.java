@@ -0,0 +1,88 @@
+package com.tti.paveinsight.messaging;
+
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.services.stats.StatsService;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Tracks the sub-jobs of split jobs. Each parent counts its pending and failed sub-jobs; once none
+ * is pending the parent becomes MERGING, or FAILED if any part failed. A MERGING parent and its
+ * request only become COMPLETED once the merged result is stored, and the parent becomes FAILED if
+ * the merge fails, so a split job is never COMPLETED without a result. The parent rows are
+ * locked while their counters change, so the reply writer and the outbox relay finishing sub-jobs
+ * of the same parent at once cannot both miss the last one. {@link #subJobsFinished} must run in
+ * the transaction that changes the sub-jobs' statuses.
+ */
+@Service
+@AllArgsConstructor
+public class SubJobTracker {
+
+    private final JobRepository jobRepository;
+
+    private final StatsService statsService;
+
+    // Records sub-jobs that just completed or failed; returns the parents they finished
+    public List<Job> subJobsFinished(Collection<Job> completed, Collection<Job> failed) {
+        Map<Long, int[]> finishedByParent = new HashMap<>(); // Parent ID -> {finished, failed}
+        completed.forEach(job -> finishedByParent.computeIfAbsent(job.getParentJob().getId(), id -> new int[2])[0]++);
+        for (Job job : failed) {
+            int[] counts = finishedByParent.computeIfAbsent(job.getParentJob().getId(), id -> new int[2]);
+            counts[0]++;
+            counts[1]++;
+        }
+        if (finishedByParent.isEmpty()) {
+            return List.of();
+        }
+
+        List<Job> finishedParents = new ArrayList<>();
+        for (Job parent : jobRepository.findAndLockByIdIn(finishedByParent.keySet())) {
+            if (parent.getPendingSubJobs() == null || parent.getPendingSubJobs() == 0) {
+                continue; // Already finished
+            }
+            int[] counts = finishedByParent.get(parent.getId());
+            parent.setPendingSubJobs(Math.max(0, parent.getPendingSubJobs() - counts[0]));
+            parent.setFailedSubJobs(parent.getFailedSubJobs() + counts[1]);
+            if (parent.getPendingSubJobs() > 0) {
+                continue;
+            }
+            String status = parent.getFailedSubJobs() > 0 ? "FAILED" : "MERGING";
+            statsService.jobStatusChanged(parent.getStatus(), status);
+            parent.setStatus(status); // Saved by dirty checking at commit
+            finishedParents.add(parent);
+        }
+        return finishedParents;
+    }
+
+    /**
+     * Completes a MERGING parent, and its request, with the URL of its stored merged result, or
+     * fails it when the URL is null. The given parent is updated to match. Does nothing if the
+     * parent is no longer MERGING.
+     */
+    @Transactional
+    public void mergeFinished(Job parent, String resultGeoJsonS3URL) {
+        String status = resultGeoJsonS3URL != null ? "COMPLETED" : "FAILED";
+        for (Job locked : jobRepository.findAndLockByIdIn(List.of(parent.getId()))) {
+            if (!"MERGING".equals(locked.getStatus())) {
+                return; // Deleted and submitted again, or finished elsewhere
+            }
+            statsService.jobStatusChanged(locked.getStatus(), status);
+            locked.setStatus(status);
+            if (resultGeoJsonS3URL != null) {
+                locked.setResultGeoJsonS3URL(resultGeoJsonS3URL);
+                Request request = locked.getRequest();
+                if (!"COMPLETED".equals(request.getStatus())) {
+                    statsService.requestStatusChanged(request.getStatus(), "COMPLETED");
+                    request.setStatus("COMPLETED");
+                }
+            }
+            parent.setStatus(status);
+            parent.setResultGeoJsonS3URL(locked.getResultGeoJsonS3URL());
+        }
+    }
+}
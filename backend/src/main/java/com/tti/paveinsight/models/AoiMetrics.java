@@ -0,0 +1,33 @@
+package com.tti.paveinsight.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Geometry metrics of a request's area of interest, computed when the AOI is ingested.
+ * Requests created before ingestion existed have none.
+ */
+@Embeddable
+@Getter
+@Setter
+public class AoiMetrics {
+    @Column(name = "aoi_min_lon")
+    private Double minLon;
+    @Column(name = "aoi_min_lat")
+    private Double minLat;
+    @Column(name = "aoi_max_lon")
+    private Double maxLon;
+    @Column(name = "aoi_max_lat")
+    private Double maxLat;
+    @Column(name = "aoi_area_sq_meters")
+    private Double areaSquareMeters;
+    @Column(name = "aoi_vertex_count")
+    private Integer vertexCount;
+    // Web Mercator tiles at tileZoom that intersect the AOI
+    @Column(name = "aoi_estimated_tiles")
+    private Integer estimatedTiles;
+    @Column(name = "aoi_tile_zoom")
+    private Integer tileZoom;
+}
@@ -3,6 +3,8 @@ package com.tti.paveinsight.models;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -10,6 +12,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.util.Date;
 
 @Entity
+@Table(indexes = @Index(name = "idx_job_correlation_id", columnList = "correlationId"))
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -17,14 +20,26 @@ public class Job {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id", nullable = false) // Many jobs to one request
     private Request request;
-    private String status;
-    @Column(columnDefinition = "json")
-    private String resultData;
+    // Set on the sub-jobs of a job whose AOI was split into parts
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_job_id")
+    @OnDelete(action = OnDeleteAction.CASCADE) // Sub-jobs are removed by the database together with their parent
+    private Job parentJob;
+    private Integer subJobCount; // Number of sub-jobs of a split job, null for a job that was not split
+    private Integer pendingSubJobs; // Sub-jobs of a split job that have neither completed nor failed
+    private Integer failedSubJobs;
     @Column(columnDefinition = "json")
-    private String resultGeoJsonData;
+    private String geoJson; // The part of the request's AOI a sub-job covers, null for other jobs
+    @Embedded
+    private AoiMetrics aoi; // Metrics of a sub-job's part
+    private String status;
+    @Column(length = 36)
+    private String correlationId; // Sent with the job message and echoed back in the worker's reply
+    // resultData and resultGeoJsonData live in JobResult
+    private String resultGeoJsonS3URL; // The result document itself stays in object storage
 
     private String superResolutionImageS3URL;
 
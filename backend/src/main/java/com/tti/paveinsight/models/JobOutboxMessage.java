@@ -0,0 +1,41 @@
+package com.tti.paveinsight.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.util.Date;
+
+/**
+ * A job message waiting to be published to the ML queue. Written in the same transaction as its
+ * job and deleted by JobOutboxRelay once the broker has confirmed it, so a job is published if
+ * and only if it was committed.
+ */
+@Entity
+@Table(name = "job_outbox", indexes = @Index(name = "idx_job_outbox_next_attempt", columnList = "nextAttemptAt, id"))
+@Getter
+@Setter
+public class JobOutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "job_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE) // A deleted job is never published
+    private Job job;
+    @Column(length = 36, nullable = false)
+    private String correlationId;
+    @Column(columnDefinition = "json", nullable = false)
+    private String payload; // The serialized JobDto, exactly as published
+    private String customer; // For fair sharing of the ML queue between customers
+    private Integer estimatedTiles; // Size of the job's AOI, for its predicted runtime
+    private int attempts;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date nextAttemptAt;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+    @Column(length = 500)
+    private String lastError;
+}
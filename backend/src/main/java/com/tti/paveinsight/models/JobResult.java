@@ -0,0 +1,35 @@
+package com.tti.paveinsight.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Heavy result payloads of a {@link Job}, kept in their own table so that loading a job
+ * (status, finalization, request traversal) never pulls the GeoJSON along with it.
+ * Shares its primary key with the job and is only read by the result endpoints.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class JobResult {
+    @Id
+    private Long id;
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "job_id")
+    @OnDelete(action = OnDeleteAction.CASCADE) // Removed by the database together with the job
+    private Job job;
+    @Column(columnDefinition = "json")
+    private String resultData;
+    @Column(columnDefinition = "json")
+    private String resultGeoJsonData;
+
+    public JobResult(Job job) {
+        this.job = job;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tti.paveinsight.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One road segment (GeoJSON feature) of a job's result, exploded from the result document so
+ * that PCI statistics and filters run as indexed SQL. Rows are written in JDBC batches by
+ * SegmentServiceImpl and replaced as a whole whenever the job receives a new reply.
+ */
+@Entity
+@Table(name = "job_segment", indexes = {
+        @Index(name = "idx_job_segment_job_pci", columnList = "job_id, pci"),
+        @Index(name = "idx_job_segment_job_condition", columnList = "job_id, conditionClass"),
+        @Index(name = "idx_job_segment_pci", columnList = "pci"),
+        @Index(name = "idx_job_segment_bbox", columnList = "minLon, minLat")
+})
+@Getter
+@Setter
+public class JobSegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "job_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE) // Removed by the database together with the job
+    private Job job;
+    private int segmentIndex; // Position of the feature in the result document
+    private String featureId;
+    private String streetName;
+    private String surface;
+    private Double pci;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PciCondition conditionClass;
+    private double lengthMeters;
+    private double minLon;
+    private double minLat;
+    private double maxLon;
+    private double maxLat;
+}
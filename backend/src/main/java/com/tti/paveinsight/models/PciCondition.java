@@ -0,0 +1,37 @@
+package com.tti.paveinsight.models;
+
+/**
+ * Pavement condition rating bands of the Pavement Condition Index (ASTM D6433).
+ */
+public enum PciCondition {
+    GOOD(86),
+    SATISFACTORY(71),
+    FAIR(56),
+    POOR(41),
+    VERY_POOR(26),
+    SERIOUS(11),
+    FAILED(0);
+
+    private final int minimumPci;
+
+    PciCondition(int minimumPci) {
+        this.minimumPci = minimumPci;
+    }
+
+    public int getMinimumPci() {
+        return minimumPci;
+    }
+
+    // Band of a PCI score; null for a missing score
+    public static PciCondition of(Double pci) {
+        if (pci == null || pci.isNaN()) {
+            return null;
+        }
+        for (PciCondition condition : values()) {
+            if (pci >= condition.minimumPci) {
+                return condition;
+            }
+        }
+        return FAILED;
+    }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = @Index(name = "idx_request_created_at_id", columnList = "createdAt, id"))
 @Getter
 @Setter
 @EntityListeners(AuditingEntityListener.class)
@@ -29,6 +30,8 @@ public class Request {
     private String phoneNumber;
     @Column(columnDefinition = "json")
     private String geoJson;
+    @Embedded
+    private AoiMetrics aoi;
     private String message;
     private String status;
     @OneToMany(mappedBy = "request", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,26 @@
+package com.tti.paveinsight.repositories;
+
+import com.tti.paveinsight.models.JobOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface JobOutboxRepository extends JpaRepository<JobOutboxMessage, Long> {
+    // Due messages, oldest first. Rows locked by another relay are skipped (FOR UPDATE SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<JobOutboxMessage> findByNextAttemptAtLessThanEqualOrderByIdAsc(Date now, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<JobOutboxMessage> findByIdInOrderByIdAsc(Collection<Long> ids);
+}
@@ -1,13 +1,52 @@
 package com.tti.paveinsight.repositories;
 
+import com.tti.paveinsight.dto.StatusCountDto;
 import com.tti.paveinsight.models.Job;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface JobRepository extends JpaRepository<Job, Long> {
     long countByStatus(String status);
+
+    @Query("select new com.tti.paveinsight.dto.StatusCountDto(j.status, count(j)) from Job j group by j.status")
+    List<StatusCountDto> countByStatusGrouped();
+
+    // Jobs with their requests, fetched in one query
+    @EntityGraph(attributePaths = "request")
+    List<Job> findWithRequestByIdIn(Collection<Long> ids);
+    // Row locks make concurrent transactions update the sub-job counters of a parent one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select j from Job j where j.id in :ids order by j.id")
+    List<Job> findAndLockByIdIn(@Param("ids") Collection<Long> ids);
+
+    List<Job> findByParentJobIdOrderByIdAsc(Long parentJobId);
+
+    List<Job> findByStatus(String status);
+
     boolean existsByRequestIdAndResultFinalized(UUID requestId, boolean resultFinalized);
+
+    // Flips the finalized flag without loading the job; returns 0 if the job is not part of the request
+    // or is a sub-job, whose result covers only its part of the AOI
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.resultFinalized = :finalized, j.updatedAt = current_timestamp " +
+            "where j.id = :jobId and j.request.id = :requestId and j.parentJob is null")
+    int updateResultFinalized(@Param("requestId") UUID requestId, @Param("jobId") Long jobId,
+                              @Param("finalized") boolean finalized);
+
+    @Modifying
+    @Query("update Job j set j.status = :status, j.updatedAt = current_timestamp where j.id in :jobIds")
+    int updateStatus(@Param("jobIds") Collection<Long> jobIds, @Param("status") String status);
 }
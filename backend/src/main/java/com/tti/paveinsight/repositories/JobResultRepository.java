@@ -0,0 +1,18 @@
+package com.tti.paveinsight.repositories;
+
+import com.tti.paveinsight.models.JobResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface JobResultRepository extends JpaRepository<JobResult, Long> {
+    boolean existsByIdAndResultGeoJsonDataIsNotNull(Long id);
+
+    // The persisted reply of the job submitted with this correlation ID
+    @Query("select r.resultData from JobResult r where r.job.correlationId = :correlationId")
+    Optional<String> findResultDataByCorrelationId(@Param("correlationId") String correlationId);
+}
@@ -0,0 +1,47 @@
+package com.tti.paveinsight.repositories;
+
+import com.tti.paveinsight.dto.JobSegmentDto;
+import com.tti.paveinsight.dto.SegmentConditionStatsDto;
+import com.tti.paveinsight.models.JobSegment;
+import com.tti.paveinsight.models.PciCondition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JobSegmentRepository extends JpaRepository<JobSegment, Long> {
+    long countByJobId(Long jobId);
+
+    // Segments of one job, optionally filtered by PCI range and condition band, in document order
+    @Query("select new com.tti.paveinsight.dto.JobSegmentDto(s.job.id, s.segmentIndex, s.featureId, s.streetName, " +
+            "s.surface, s.pci, s.conditionClass, s.lengthMeters, s.minLon, s.minLat, s.maxLon, s.maxLat) " +
+            "from JobSegment s where s.job.id = :jobId " +
+            "and (:minPci is null or s.pci >= :minPci) and (:maxPci is null or s.pci <= :maxPci) " +
+            "and (:condition is null or s.conditionClass = :condition) " +
+            "order by s.segmentIndex")
+    List<JobSegmentDto> findSegments(@Param("jobId") Long jobId, @Param("minPci") Double minPci,
+                                     @Param("maxPci") Double maxPci, @Param("condition") PciCondition condition,
+                                     Pageable pageable);
+
+    // Segments of all finalized results intersecting a bounding box, worst condition first
+    @Query("select new com.tti.paveinsight.dto.JobSegmentDto(s.job.id, s.segmentIndex, s.featureId, s.streetName, " +
+            "s.surface, s.pci, s.conditionClass, s.lengthMeters, s.minLon, s.minLat, s.maxLon, s.maxLat) " +
+            "from JobSegment s join s.job j where j.resultFinalized = true " +
+            "and s.minLon <= :maxLon and s.maxLon >= :minLon and s.minLat <= :maxLat and s.maxLat >= :minLat " +
+            "and (:minPci is null or s.pci >= :minPci) and (:maxPci is null or s.pci <= :maxPci) " +
+            "and (:condition is null or s.conditionClass = :condition) " +
+            "order by s.pci, s.id")
+    List<JobSegmentDto> findFinalizedSegments(@Param("minLon") double minLon, @Param("minLat") double minLat,
+                                              @Param("maxLon") double maxLon, @Param("maxLat") double maxLat,
+                                              @Param("minPci") Double minPci, @Param("maxPci") Double maxPci,
+                                              @Param("condition") PciCondition condition, Pageable pageable);
+
+    @Query("select new com.tti.paveinsight.dto.SegmentConditionStatsDto(s.conditionClass, count(s), " +
+            "sum(s.lengthMeters), sum(s.pci), sum(s.pci * s.lengthMeters)) " +
+            "from JobSegment s where s.job.id = :jobId group by s.conditionClass")
+    List<SegmentConditionStatsDto> findConditionStats(@Param("jobId") Long jobId);
+}
@@ -1,9 +1,16 @@
 package com.tti.paveinsight.repositories;
 
+import com.tti.paveinsight.dto.RequestSummaryDto;
+import com.tti.paveinsight.dto.StatusCountDto;
 import com.tti.paveinsight.models.Request;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -14,4 +21,41 @@ public interface RequestRepository extends JpaRepository<Request, UUID> {
 
     // Method to get the total number of pending requests
     long countByStatus(String status);
+
+    @Query("select new com.tti.paveinsight.dto.StatusCountDto(r.status, count(r)) from Request r group by r.status")
+    List<StatusCountDto> countByStatusGrouped();
+
+    // First page of request summaries, newest first. Sub-jobs of split jobs are not counted
+    @Query("""
+            select new com.tti.paveinsight.dto.RequestSummaryDto(
+                r.id, r.username, r.email, r.companyName, r.phoneNumber, r.message, r.status,
+                r.createdAt, r.updatedAt,
+                count(j),
+                sum(case when j.status = 'COMPLETED' then 1 else 0 end),
+                sum(case when j.status = 'PENDING' then 1 else 0 end),
+                sum(case when j.resultFinalized = true then 1 else 0 end))
+            from Request r left join r.jobs j on j.parentJob is null
+            group by r.id, r.username, r.email, r.companyName, r.phoneNumber, r.message, r.status,
+                r.createdAt, r.updatedAt
+            order by r.createdAt desc, r.id desc
+            """)
+    List<RequestSummaryDto> findFirstSummaries(Pageable pageable);
+
+    // Next page of request summaries, strictly after the (createdAt, id) cursor
+    @Query("""
+            select new com.tti.paveinsight.dto.RequestSummaryDto(
+                r.id, r.username, r.email, r.companyName, r.phoneNumber, r.message, r.status,
+                r.createdAt, r.updatedAt,
+                count(j),
+                sum(case when j.status = 'COMPLETED' then 1 else 0 end),
+                sum(case when j.status = 'PENDING' then 1 else 0 end),
+                sum(case when j.resultFinalized = true then 1 else 0 end))
+            from Request r left join r.jobs j on j.parentJob is null
+            where r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id)
+            group by r.id, r.username, r.email, r.companyName, r.phoneNumber, r.message, r.status,
+                r.createdAt, r.updatedAt
+            order by r.createdAt desc, r.id desc
+            """)
+    List<RequestSummaryDto> findSummariesAfter(@Param("createdAt") Date createdAt, @Param("id") UUID id,
+                                               Pageable pageable);
 }
@@ -0,0 +1,8 @@
+package com.tti.paveinsight.services.aoi;
+
+import java.util.List;
+
+public interface AoiService {
+    IngestedAoi ingest(String geoJson);
+    List<IngestedAoi> split(String geoJson);
+}
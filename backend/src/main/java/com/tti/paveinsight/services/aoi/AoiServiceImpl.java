@@ -0,0 +1,314 @@
+package com.tti.paveinsight.services.aoi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.AoiMetrics;
+import com.tti.paveinsight.utils.geo.AoiReader;
+import com.tti.paveinsight.utils.geo.AoiReader.AoiTooLargeException;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureWriter;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.GeoMeasure;
+import com.tti.paveinsight.utils.geo.TileMath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.geom.util.PolygonExtracter;
+import org.locationtech.jts.operation.valid.IsValidOp;
+import org.locationtech.jts.operation.valid.TopologyValidationError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks and normalizes an area of interest before it is stored, so that malformed or oversized
+ * AOIs are rejected when the request is made instead of failing in the ML worker. The AOI is
+ * parsed with a streaming reader under a vertex budget; every polygon must be valid (closed,
+ * not self-intersecting), overlapping polygons are merged, rings are wound as RFC 7946 asks
+ * (exterior counter-clockwise, holes clockwise), and size limits on extent, area and tile count
+ * are applied. Rejections throw {@link IllegalArgumentException} with the reason.
+ */
+@Slf4j
+@Service
+public class AoiServiceImpl implements AoiService {
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxDocumentBytes;
+
+    private final int maxVertices;
+
+    private final double maxAreaSquareMeters;
+
+    private final double maxExtentMeters;
+
+    private final int maxTiles;
+
+    private final int tileZoom;
+
+    private final int splitTiles;
+
+    private final int maxParts;
+
+    private final double splitOverlap;
+
+    private final Counter accepted;
+
+    private final MeterRegistry meterRegistry;
+
+    public AoiServiceImpl(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${paveinsight.aoi.max-document-bytes:1048576}") int maxDocumentBytes,
+                          @Value("${paveinsight.aoi.max-vertices:10000}") int maxVertices,
+                          @Value("${paveinsight.aoi.max-area-km2:250}") double maxAreaKm2,
+                          @Value("${paveinsight.aoi.max-extent-km:100}") double maxExtentKm,
+                          @Value("${paveinsight.aoi.max-tiles:20000}") int maxTiles,
+                          @Value("${paveinsight.aoi.tile-zoom:18}") int tileZoom,
+                          @Value("${paveinsight.aoi.split-tiles:4096}") int splitTiles,
+                          @Value("${paveinsight.aoi.max-parts:256}") int maxParts,
+                          @Value("${paveinsight.aoi.split-overlap:0.02}") double splitOverlap) {
+        if (tileZoom < 0 || tileZoom > TileMath.MAX_ZOOM) {
+            throw new IllegalArgumentException("paveinsight.aoi.tile-zoom must be between 0 and " + TileMath.MAX_ZOOM);
+        }
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxDocumentBytes = maxDocumentBytes;
+        this.maxVertices = maxVertices;
+        this.maxAreaSquareMeters = maxAreaKm2 * 1_000_000;
+        this.maxExtentMeters = maxExtentKm * 1000;
+        this.maxTiles = maxTiles;
+        this.tileZoom = tileZoom;
+        this.splitTiles = splitTiles;
+        this.maxParts = Math.max(1, maxParts);
+        this.splitOverlap = splitOverlap;
+        this.accepted = Counter.builder("paveinsight.aoi.ingested").tag("outcome", "accepted").register(meterRegistry);
+    }
+
+    public IngestedAoi ingest(String geoJson) {
+        try {
+            IngestedAoi aoi = doIngest(geoJson);
+            accepted.increment();
+            return aoi;
+        } catch (IllegalArgumentException e) {
+            String reason = e instanceof AoiTooLargeException ? "too-large" : "invalid";
+            meterRegistry.counter("paveinsight.aoi.ingested", "outcome", "rejected", "reason", reason).increment();
+            log.debug("Rejected AOI: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Splits an ingested AOI along a grid of Web Mercator tiles at a coarser zoom, each cell holding
+     * at most the configured number of tiles, so the parts can be processed in parallel. Cells grow
+     * until there are no more than the maximum number of parts, and are enlarged by the overlap so
+     * that roads on a seam are seen whole by at least one part. An AOI within the part size is
+     * returned as it is.
+     */
+    public List<IngestedAoi> split(String geoJson) {
+        AoiReader reader = new AoiReader(objectMapper, maxVertices);
+        Geometry geometry = parse(geoJson, reader);
+        List<int[]> tiles = coveringTiles(geometry, tileZoom, maxTiles);
+        if (tiles == null) {
+            throw new AoiTooLargeException("AOI covers more than " + maxTiles + " tiles at zoom " + tileZoom);
+        }
+        if (splitTiles <= 0 || tiles.size() <= splitTiles) {
+            return List.of(new IngestedAoi(writeFeature(geometry, reader.getProperties()), metrics(geometry, tiles.size())));
+        }
+        // A cell at zoom tileZoom - k holds 4^k tiles
+        int cellZoom = Math.max(0, tileZoom - (31 - Integer.numberOfLeadingZeros(splitTiles)) / 2);
+        List<int[]> cells;
+        while ((cells = coveringTiles(geometry, cellZoom, maxParts)) == null) {
+            cellZoom--;
+        }
+
+        List<IngestedAoi> parts = new ArrayList<>(cells.size());
+        for (int[] cell : cells) {
+            // A cell the AOI only touches would get a part made of nothing but overlap
+            if (!geometry.relate(GeoJsonGeometries.FACTORY.toGeometry(TileMath.tileEnvelope(cellZoom, cell[0], cell[1], 0)),
+                    "T********")) {
+                continue;
+            }
+            Envelope bounds = TileMath.tileEnvelope(cellZoom, cell[0], cell[1], splitOverlap);
+            Geometry clipped = geometry.intersection(GeoJsonGeometries.FACTORY.toGeometry(bounds));
+            List<Polygon> polygons = new ArrayList<>();
+            for (Object polygon : PolygonExtracter.getPolygons(clipped)) {
+                if (!((Polygon) polygon).isEmpty()) {
+                    polygons.add(orient((Polygon) polygon));
+                }
+            }
+            if (polygons.isEmpty()) {
+                continue; // Nothing but slivers left after clipping
+            }
+            Geometry part = polygons.size() == 1 ? polygons.get(0)
+                    : GeoJsonGeometries.FACTORY.createMultiPolygon(polygons.toArray(Polygon[]::new));
+            List<int[]> partTiles = coveringTiles(part, tileZoom, Integer.MAX_VALUE);
+            parts.add(new IngestedAoi(writeFeature(part, null), metrics(part, partTiles.size())));
+        }
+        return parts;
+    }
+
+    private IngestedAoi doIngest(String geoJson) {
+        AoiReader reader = new AoiReader(objectMapper, maxVertices);
+        Geometry geometry = parse(geoJson, reader);
+        Envelope bounds = geometry.getEnvelopeInternal();
+        double width = GeoMeasure.haversineMeters(bounds.getMinX(), centerLat(bounds), bounds.getMaxX(), centerLat(bounds));
+        double height = GeoMeasure.haversineMeters(bounds.getMinX(), bounds.getMinY(), bounds.getMinX(), bounds.getMaxY());
+        if (Math.max(width, height) > maxExtentMeters) {
+            throw new AoiTooLargeException(String.format("AOI spans %.1f km; at most %.1f km is allowed",
+                    Math.max(width, height) / 1000, maxExtentMeters / 1000));
+        }
+        double area = GeoMeasure.areaSquareMeters(geometry);
+        if (area > maxAreaSquareMeters) {
+            throw new AoiTooLargeException(String.format("AOI covers %.1f km²; at most %.1f km² is allowed",
+                    area / 1_000_000, maxAreaSquareMeters / 1_000_000));
+        }
+        List<int[]> tiles = coveringTiles(geometry, tileZoom, maxTiles);
+        if (tiles == null) {
+            throw new AoiTooLargeException("AOI covers more than " + maxTiles + " tiles at zoom " + tileZoom);
+        }
+        return new IngestedAoi(writeFeature(geometry, reader.getProperties()), metrics(geometry, tiles.size()));
+    }
+
+    // Reads the AOI and checks the polygons, see normalize
+    private Geometry parse(String geoJson, AoiReader reader) {
+        if (geoJson == null || geoJson.isBlank()) {
+            throw new IllegalArgumentException("An area of interest (geoJson) is required");
+        }
+        // A UTF-8 character is at most 3 bytes per UTF-16 char, so most documents skip the encoding
+        if ((long) geoJson.length() * 3 > maxDocumentBytes
+                && geoJson.getBytes(StandardCharsets.UTF_8).length > maxDocumentBytes) {
+            throw new AoiTooLargeException("AOI document is larger than " + maxDocumentBytes + " bytes");
+        }
+
+        try {
+            return normalize(reader.read(geoJson));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("AOI is not valid JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read AOI", e);
+        }
+    }
+
+    private AoiMetrics metrics(Geometry geometry, int tiles) {
+        Envelope bounds = geometry.getEnvelopeInternal();
+        AoiMetrics metrics = new AoiMetrics();
+        metrics.setMinLon(bounds.getMinX());
+        metrics.setMinLat(bounds.getMinY());
+        metrics.setMaxLon(bounds.getMaxX());
+        metrics.setMaxLat(bounds.getMaxY());
+        metrics.setAreaSquareMeters(GeoMeasure.areaSquareMeters(geometry));
+        metrics.setVertexCount(geometry.getNumPoints());
+        metrics.setEstimatedTiles(tiles);
+        metrics.setTileZoom(tileZoom);
+        return metrics;
+    }
+
+    // Validates each polygon, merges overlapping ones and orients the rings
+    private Geometry normalize(Geometry geometry) {
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            IsValidOp validation = new IsValidOp(geometry.getGeometryN(i));
+            if (!validation.isValid()) {
+                TopologyValidationError error = validation.getValidationError();
+                throw new IllegalArgumentException("AOI polygon is not valid: " + error.getMessage()
+                        + " at [" + error.getCoordinate().x + ", " + error.getCoordinate().y + "]");
+            }
+        }
+        if (geometry.getNumGeometries() > 1) {
+            geometry = geometry.union();
+        }
+        List<Polygon> polygons = new ArrayList<>(geometry.getNumGeometries());
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon polygon && !polygon.isEmpty()) {
+                polygons.add(orient(polygon));
+            }
+        }
+        if (polygons.isEmpty()) {
+            throw new IllegalArgumentException("AOI encloses no area");
+        }
+        return polygons.size() == 1 ? polygons.get(0)
+                : GeoJsonGeometries.FACTORY.createMultiPolygon(polygons.toArray(Polygon[]::new));
+    }
+
+    private static Polygon orient(Polygon polygon) {
+        LinearRing shell = orient(polygon.getExteriorRing(), true);
+        LinearRing[] holes = new LinearRing[polygon.getNumInteriorRing()];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = orient(polygon.getInteriorRingN(i), false);
+        }
+        return GeoJsonGeometries.FACTORY.createPolygon(shell, holes);
+    }
+
+    private static LinearRing orient(LinearRing ring, boolean counterClockwise) {
+        return Orientation.isCCW(ring.getCoordinateSequence()) == counterClockwise ? ring : ring.reverse();
+    }
+
+    /**
+     * Tiles at the given zoom that intersect the geometry, or null if there are more than the limit.
+     * Rows are clipped to the geometry first, so only columns near it are tested.
+     */
+    private static List<int[]> coveringTiles(Geometry geometry, int zoom, int limit) {
+        Envelope bounds = geometry.getEnvelopeInternal();
+        int minRow = (int) TileMath.tileY(bounds.getMaxY(), zoom);
+        int maxRow = (int) Math.min(TileMath.tileY(bounds.getMinY(), zoom), (1L << zoom) - 1);
+        List<int[]> tiles = new ArrayList<>();
+        for (int y = minRow; y <= maxRow; y++) {
+            Envelope tileRow = TileMath.tileEnvelope(zoom, 0, y, 0);
+            Envelope row = new Envelope(bounds.getMinX(), bounds.getMaxX(), tileRow.getMinY(), tileRow.getMaxY());
+            Geometry strip = geometry.intersection(GeoJsonGeometries.FACTORY.toGeometry(row));
+            if (strip.isEmpty()) {
+                continue;
+            }
+            PreparedGeometry prepared = PreparedGeometryFactory.prepare(strip);
+            Envelope stripBounds = strip.getEnvelopeInternal();
+            int minColumn = (int) TileMath.tileX(stripBounds.getMinX(), zoom);
+            int maxColumn = (int) Math.min(TileMath.tileX(stripBounds.getMaxX(), zoom), (1L << zoom) - 1);
+            for (int x = minColumn; x <= maxColumn; x++) {
+                if (prepared.intersects(GeoJsonGeometries.FACTORY.toGeometry(TileMath.tileEnvelope(zoom, x, y, 0)))) {
+                    if (tiles.size() == limit) {
+                        return null;
+                    }
+                    tiles.add(new int[]{x, y});
+                }
+            }
+        }
+        return tiles;
+    }
+
+    // A single Feature, as the ML worker reads it; properties other than an object are dropped
+    private String writeFeature(Geometry geometry, JsonNode properties) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "Feature");
+            generator.writeFieldName("geometry");
+            GeoJsonFeatureWriter.writeGeometry(generator, geometry);
+            generator.writeFieldName("properties");
+            if (properties != null && properties.isObject()) {
+                generator.writeTree(properties);
+            } else {
+                generator.writeStartObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write AOI", e);
+        }
+        return out.toString();
+    }
+
+    private static double centerLat(Envelope bounds) {
+        return (bounds.getMinY() + bounds.getMaxY()) / 2;
+    }
+}
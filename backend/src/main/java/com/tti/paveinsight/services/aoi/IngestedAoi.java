@@ -0,0 +1,7 @@
+package com.tti.paveinsight.services.aoi;
+
+import com.tti.paveinsight.models.AoiMetrics;
+
+// The normalized AOI document, a single GeoJSON Feature, and its metrics
+public record IngestedAoi(String geoJson, AoiMetrics metrics) {
+}
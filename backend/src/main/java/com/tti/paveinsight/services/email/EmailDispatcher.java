@@ -0,0 +1,298 @@
+package com.tti.paveinsight.services.email;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.dto.EmailStatusDto;
+import com.tti.paveinsight.utils.ThreadUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Sends emails off the request threads. Messages go into a bounded queue and a single sender
+ * thread delivers them over one SMTP connection, which stays open (including its STARTTLS
+ * session) while messages keep coming and is closed after an idle period. Failed deliveries are
+ * retried with exponential back-off; rejected addresses fail at once. On shutdown the queue is
+ * drained, and retries still waiting for their back-off fail. Templates are rendered by
+ * a caching template engine, so each template is parsed only once. The state of every message is
+ * kept for a day and can be looked up by its ID.
+ */
+@Slf4j
+@Service
+public class EmailDispatcher {
+
+    // Queued on shutdown to wake the sender once the messages ahead of it are delivered
+    private static final QueuedEmail SHUTDOWN = new QueuedEmail(null, null, null, null, null, null, false, null);
+
+    private final JavaMailSenderImpl mailSender;
+
+    private final TemplateEngine templateEngine;
+
+    private final BlockingQueue<QueuedEmail> queue;
+
+    private final Cache<UUID, EmailStatusDto> statuses;
+
+    private final ExecutorService sender;
+
+    private final ScheduledExecutorService retries;
+
+    private final Map<UUID, QueuedEmail> pendingRetries = new ConcurrentHashMap<>();
+
+    private final String from;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final long idleCloseMillis;
+
+    private final Counter sent;
+
+    private final Counter retried;
+
+    private final Counter failed;
+
+    private volatile boolean running = true;
+
+    public EmailDispatcher(JavaMailSenderImpl mailSender, TemplateEngine emailTemplateEngine, MeterRegistry meterRegistry,
+                           @Value("${paveinsight.email.from:${spring.mail.username:}}") String from,
+                           @Value("${paveinsight.email.queue-capacity:1000}") int queueCapacity,
+                           @Value("${paveinsight.email.max-attempts:5}") int maxAttempts,
+                           @Value("${paveinsight.email.backoff-ms:2000}") long backoffMillis,
+                           @Value("${paveinsight.email.idle-close-ms:30000}") long idleCloseMillis,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mailSender = mailSender;
+        this.templateEngine = emailTemplateEngine;
+        this.from = from;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.idleCloseMillis = idleCloseMillis;
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofDays(1))
+                .maximumSize(100_000)
+                .build();
+
+        this.sent = Counter.builder("paveinsight.email.sent").register(meterRegistry);
+        this.retried = Counter.builder("paveinsight.email.retried").register(meterRegistry);
+        this.failed = Counter.builder("paveinsight.email.failed").register(meterRegistry);
+        Gauge.builder("paveinsight.email.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sender = Executors.newSingleThreadExecutor(ThreadUtils.threadFactory("email-sender", virtualThreads));
+        sender.execute(this::run);
+    }
+
+    /**
+     * Queues an email; the body is either rendered from a template under templates/email with the
+     * given variables, or taken as is. Throws IllegalStateException when the queue is full.
+     */
+    public EmailStatusDto enqueue(String to, String subject, String template, Map<String, Object> variables,
+                                  String body, boolean html) {
+        if (to == null || to.isBlank()) {
+            throw new IllegalArgumentException("No recipient given");
+        }
+        QueuedEmail email = new QueuedEmail(UUID.randomUUID(), to, subject, template, variables, body, html, new Date());
+        EmailStatusDto status = update(email, "QUEUED", 0, null);
+        if (!running || !queue.offer(email)) {
+            statuses.invalidate(email.id());
+            throw new IllegalStateException("Email queue is full, try again later");
+        }
+        return status;
+    }
+
+    public EmailStatusDto getStatus(UUID id) {
+        return statuses.getIfPresent(id);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        retries.shutdownNow();
+        retries.awaitTermination(5, TimeUnit.SECONDS);
+        for (UUID id : pendingRetries.keySet()) {
+            QueuedEmail email = pendingRetries.remove(id);
+            if (email != null) {
+                failed.increment();
+                update(email, "FAILED", email.attempts(), "Shut down before the next attempt");
+            }
+        }
+        // A full queue keeps the sender busy, and it stops waiting for more once it is drained
+        queue.offer(SHUTDOWN);
+        sender.shutdown();
+        if (!sender.awaitTermination(30, TimeUnit.SECONDS)) {
+            sender.shutdownNow(); // Interrupts a delivery stuck on the SMTP server
+        }
+    }
+
+    private void run() {
+        Transport transport = null;
+        while (running || !queue.isEmpty()) {
+            QueuedEmail email;
+            try {
+                email = queue.poll(running ? idleCloseMillis : 0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (email == SHUTDOWN) {
+                continue;
+            }
+            if (email == null) {
+                transport = close(transport); // Idle; do not hold the SMTP connection open
+                continue;
+            }
+            int attempt = email.attempts() + 1;
+            try {
+                MimeMessage message = build(email);
+                transport = deliver(transport, message);
+                sent.increment();
+                update(email, "SENT", attempt, null);
+            } catch (SendFailedException e) {
+                if (e.getInvalidAddresses() == null || e.getInvalidAddresses().length == 0) {
+                    retry(email.withAttempts(attempt), e); // Refused for now (4xx), e.g. greylisting
+                    continue;
+                }
+                // The server refused the recipients; trying again will not help
+                failed.increment();
+                update(email, "FAILED", attempt, e.getMessage());
+                log.warn("Email to {} rejected: {}", email.to(), e.getMessage());
+            } catch (MessagingException | RuntimeException e) {
+                transport = close(transport);
+                retry(email.withAttempts(attempt), e);
+            }
+        }
+        close(transport);
+    }
+
+    // Sends over the open connection; a connection the server dropped while idle is replaced once
+    private Transport deliver(Transport transport, MimeMessage message) throws MessagingException {
+        boolean reused = transport != null && transport.isConnected();
+        if (!reused) {
+            transport = connect();
+        }
+        try {
+            transport.sendMessage(message, message.getAllRecipients());
+            return transport;
+        } catch (SendFailedException e) {
+            throw e;
+        } catch (MessagingException e) {
+            close(transport);
+            if (!reused) {
+                throw e;
+            }
+            transport = connect();
+            transport.sendMessage(message, message.getAllRecipients());
+            return transport;
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol()
+                : mailSender.getSession().getProperty("mail.transport.protocol");
+        Transport transport = mailSender.getSession().getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    private static Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Already gone
+            }
+        }
+        return null;
+    }
+
+    private MimeMessage build(QueuedEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        if (from != null && !from.isBlank()) {
+            helper.setFrom(from);
+        }
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
+        if (email.template() != null) {
+            helper.setText(templateEngine.process(email.template(), new Context(Locale.ENGLISH, email.variables())), true);
+        } else {
+            helper.setText(email.body(), email.html());
+        }
+        message.setSentDate(new Date());
+        return message;
+    }
+
+    private void retry(QueuedEmail email, Exception error) {
+        if (email.attempts() >= maxAttempts || !running) {
+            failed.increment();
+            update(email, "FAILED", email.attempts(), error.getMessage());
+            log.error("Giving up on email to {} after {} attempts: {}", email.to(), email.attempts(), error.getMessage());
+            return;
+        }
+        retried.increment();
+        update(email, "RETRYING", email.attempts(), error.getMessage());
+        long delay = Math.min(backoffMillis << Math.min(email.attempts() - 1, 10), TimeUnit.MINUTES.toMillis(10));
+        pendingRetries.put(email.id(), email);
+        try {
+            retries.schedule(() -> {
+                if (pendingRetries.remove(email.id()) == null) {
+                    return; // Failed by shutdown
+                }
+                if (!queue.offer(email)) {
+                    failed.increment();
+                    update(email, "FAILED", email.attempts(), "Email queue is full");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            if (pendingRetries.remove(email.id()) != null) {
+                failed.increment();
+                update(email, "FAILED", email.attempts(), error.getMessage());
+            }
+        }
+    }
+
+    private EmailStatusDto update(QueuedEmail email, String status, int attempts, String error) {
+        EmailStatusDto dto = new EmailStatusDto(email.id(), email.to(), email.subject(), status, attempts, error,
+                email.queuedAt(), new Date());
+        statuses.put(email.id(), dto);
+        return dto;
+    }
+
+    private record QueuedEmail(UUID id, String to, String subject, String template, Map<String, Object> variables,
+                               String body, boolean html, Date queuedAt, int attempts) {
+
+        QueuedEmail(UUID id, String to, String subject, String template, Map<String, Object> variables,
+                    String body, boolean html, Date queuedAt) {
+            this(id, to, subject, template, variables, body, html, queuedAt, 0);
+        }
+
+        QueuedEmail withAttempts(int attempts) {
+            return new QueuedEmail(id, to, subject, template, variables, body, html, queuedAt, attempts);
+        }
+    }
+}
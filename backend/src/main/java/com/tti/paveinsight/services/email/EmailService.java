@@ -1,4 +1,11 @@
 package com.tti.paveinsight.services.email;
 
-public class EmailService {
+import com.tti.paveinsight.dto.EmailStatusDto;
+
+import java.util.UUID;
+
+public interface EmailService {
+    EmailStatusDto sendEmail(String to, String subject, String body);
+    EmailStatusDto sendResultsReadyEmail(String to, UUID requestId, String link);
+    EmailStatusDto getEmailStatus(UUID id);
 }
@@ -1,54 +1,41 @@
 package com.tti.paveinsight.services.email;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+
+import com.tti.paveinsight.dto.EmailStatusDto;
+import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Emails are queued on the {@link EmailDispatcher} and sent in the background; the returned
+ * status can be polled with {@link #getEmailStatus(UUID)}.
+ */
 @Service
-public class EmailServiceImpl {
+@AllArgsConstructor
+public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender javaMailSender;
+    private final EmailDispatcher emailDispatcher;
 
-    public EmailServiceImpl(JavaMailSender javaMailSender) {
-        this.javaMailSender = javaMailSender;
+    // Method to send a simple email
+    @Override
+    public EmailStatusDto sendEmail(String to, String subject, String body) {
+        return emailDispatcher.enqueue(to, subject, null, null, body, false);
     }
 
-    @Value("spring.mail.username")
-    private String username;
+    // Method to send an email with HTML content
+    public EmailStatusDto sendHtmlEmail(String to, String subject, String body) {
+        return emailDispatcher.enqueue(to, subject, null, null, body, true);
+    }
 
-    // Method to send a simple email
-    public void sendEmail(String to, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(username);  // Set the 'from' address (can be a fixed email)
-        message.setTo(to);                        // Set the recipient's email
-        message.setSubject(subject);              // Set the email subject
-        message.setText(body);                    // Set the email body
-
-        try {
-            javaMailSender.send(message);
-            System.out.println("Email sent successfully!");
-        } catch (Exception e) {
-            System.out.println("Error while sending email: " + e.getMessage());
-        }
+    @Override
+    public EmailStatusDto sendResultsReadyEmail(String to, UUID requestId, String link) {
+        return emailDispatcher.enqueue(to, "Results Ready for Request ID " + requestId, "results-ready",
+                Map.of("requestId", requestId.toString(), "link", link == null ? "" : link), null, true);
     }
 
-    // Method to send an email with HTML content
-    public void sendHtmlEmail(String to, String subject, String body) {
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(username);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, true);  // Set to true to indicate this is HTML content
-
-            javaMailSender.send(message);
-            System.out.println("HTML Email sent successfully!");
-        } catch (Exception e) {
-            System.out.println("Error while sending HTML email: " + e.getMessage());
-        }
+    @Override
+    public EmailStatusDto getEmailStatus(UUID id) {
+        return emailDispatcher.getStatus(id);
     }
 }
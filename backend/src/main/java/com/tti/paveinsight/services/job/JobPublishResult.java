@@ -0,0 +1,7 @@
+package com.tti.paveinsight.services.job;
+
+/**
+ * Broker outcome of one published job. The reason is set when the job was not acknowledged.
+ */
+public record JobPublishResult(String correlationId, boolean acknowledged, String reason) {
+}
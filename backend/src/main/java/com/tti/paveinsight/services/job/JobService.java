@@ -1,6 +1,9 @@
 package com.tti.paveinsight.services.job;
-import com.tti.paveinsight.dto.JobDto;
+
+import java.util.List;
+import java.util.Map;
 
 public interface JobService {
-    void submitJobAsync(JobDto jobDto);
+    List<JobPublishResult> submitJobs(Map<String, String> jobs);
+    List<JobPublishResult> submitJobs(Map<String, String> jobs, Map<String, Integer> priorities);
 }
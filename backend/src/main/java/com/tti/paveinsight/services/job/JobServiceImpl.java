@@ -1,49 +1,121 @@
 package com.tti.paveinsight.services.job;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.tti.paveinsight.dto.JobDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.ReturnedMessage;
 import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.UUID;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
 @Service
-public class JobServiceImpl {
+public class JobServiceImpl implements JobService {
     private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final int publishWindow;
+    private final long confirmTimeoutMillis;
 
     @Autowired
-    public JobServiceImpl(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
+    public JobServiceImpl(RabbitTemplate rabbitTemplate,
+                          @Value("${paveinsight.jobs.publish-window:256}") int publishWindow,
+                          @Value("${paveinsight.jobs.confirm-timeout-ms:10000}") long confirmTimeoutMillis) {
         this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+        this.publishWindow = Math.max(1, publishWindow);
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+    }
+
+    /**
+     * Publishes serialized jobs, keyed by correlation ID, without waiting for each confirm: up to the publish
+     * window of messages are unconfirmed at any time. Returns the broker's outcome for every job in
+     * input order once all confirms have arrived or the confirm timeout has passed.
+     */
+    public List<JobPublishResult> submitJobs(Map<String, String> jobs) {
+        return submitJobs(jobs, Map.of());
     }
 
-    public void submitJobAsync(JobDto jobDto) {
+    // As above, with the queue priority of each job by correlation ID; jobs without one get none
+    public List<JobPublishResult> submitJobs(Map<String, String> jobs, Map<String, Integer> priorities) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMillis);
+        Semaphore window = new Semaphore(publishWindow);
+        List<CorrelationData> sent = new ArrayList<>(jobs.size());
         try {
-            // Convert JobDto to JSON string
-            String jobData = objectMapper.writeValueAsString(jobDto);
-
-            // Generate a unique correlation ID
-            String correlationId = UUID.randomUUID().toString();
-            CorrelationData correlationData = new CorrelationData(correlationId);
-
-            // Send the job to RabbitMQ with a correlation ID and specify the reply queue
-            rabbitTemplate.convertAndSend(
-                    "pci-analysis",       // Exchange name
-                    "pci-analysis-queue", // Routing key
-                    jobData,              // Job data (as JSON string)
-                    message -> {
-                        message.getMessageProperties().setReplyTo("job-reply-queue"); // Set reply queue
-                        message.getMessageProperties().setCorrelationId(correlationId); // Set correlation ID
-                        return message;
-                    },
-                    correlationData
-            );
-
-            System.out.println("Job submitted with correlation ID: " + correlationId);
-        } catch (Exception e) {
-            System.err.println("Failed to submit job: " + e.getMessage());
+            for (Map.Entry<String, String> job : jobs.entrySet()) {
+                CorrelationData correlationData = new CorrelationData(job.getKey());
+                sent.add(correlationData);
+                if (!window.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    correlationData.getFuture().complete(new CorrelationData.Confirm(false, "Not published, confirms timed out"));
+                    continue;
+                }
+                correlationData.getFuture().whenComplete((confirm, error) -> window.release());
+                try {
+                    publish(job.getValue(), priorities.get(job.getKey()), correlationData);
+                } catch (AmqpException e) {
+                    correlationData.getFuture().complete(new CorrelationData.Confirm(false, e.getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<JobPublishResult> results = new ArrayList<>(jobs.size());
+        for (CorrelationData correlationData : sent) {
+            results.add(awaitConfirm(correlationData, deadline));
+        }
+        jobs.keySet().stream().skip(sent.size())
+                .forEach(correlationId -> results.add(new JobPublishResult(correlationId, false, "Not published, interrupted")));
+        return results;
+    }
+
+    private void publish(String jobData, Integer priority, CorrelationData correlationData) {
+        // Send the job to RabbitMQ with a correlation ID and specify the reply queue
+        rabbitTemplate.convertAndSend(
+                "pci-analysis",       // Exchange name
+                "pci-analysis-queue", // Routing key
+                jobData,              // Job data (as JSON string)
+                message -> {
+                    message.getMessageProperties().setReplyTo("job-reply-queue"); // Set reply queue
+                    message.getMessageProperties().setCorrelationId(correlationData.getId()); // Set correlation ID
+                    message.getMessageProperties().setPriority(priority); // Higher is delivered first
+                    return message;
+                },
+                correlationData
+        );
+    }
+
+    private static JobPublishResult awaitConfirm(CorrelationData correlationData, long deadline) {
+        try {
+            CorrelationData.Confirm confirm = correlationData.getFuture()
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return toResult(correlationData, confirm.isAck(), confirm.getReason());
+        } catch (TimeoutException e) {
+            return new JobPublishResult(correlationData.getId(), false, "No confirm from the broker in time");
+        } catch (ExecutionException e) {
+            return new JobPublishResult(correlationData.getId(), false, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new JobPublishResult(correlationData.getId(), false, "Interrupted waiting for confirm");
+        }
+    }
+
+    // A mandatory message that could not be routed is returned and then acked, so returns are checked first
+    private static JobPublishResult toResult(CorrelationData correlationData, boolean ack, String reason) {
+        ReturnedMessage returned = correlationData.getReturned();
+        if (returned != null) {
+            return new JobPublishResult(correlationData.getId(), false,
+                    "Returned by the broker: " + returned.getReplyCode() + " " + returned.getReplyText());
+        }
+        if (ack) {
+            return new JobPublishResult(correlationData.getId(), true, null);
         }
+        return new JobPublishResult(correlationData.getId(), false, reason == null ? "Nacked by the broker" : reason);
     }
 }
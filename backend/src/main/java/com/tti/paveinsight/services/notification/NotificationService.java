@@ -4,4 +4,5 @@ import com.tti.paveinsight.models.Job;
 
 public interface NotificationService {
     void sendJobCompletionNotification(Job job);
+    void sendJobFailureNotification(Job job, String reason);
 }
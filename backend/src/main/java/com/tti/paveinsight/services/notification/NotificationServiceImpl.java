@@ -0,0 +1,51 @@
+package com.tti.paveinsight.services.notification;
+
+import com.tti.paveinsight.dto.JobNotificationDto;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.utils.TransactionUtils;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+
+/**
+ * Pushes job status changes to the STOMP topic of the job's request, so the portal can subscribe
+ * instead of polling, and to the dashboard-wide topic the admin header listens on. The payload is
+ * built immediately but only sent after the surrounding transaction has committed, so a client
+ * never sees a status the database does not have yet.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class NotificationServiceImpl implements NotificationService {
+
+    public static final String REQUEST_TOPIC_PREFIX = "/specific/requests/";
+
+    public static final String DASHBOARD_TOPIC = "/all/messages";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public void sendJobCompletionNotification(Job job) {
+        send(job, "COMPLETED", "Job completed successfully");
+    }
+
+    public void sendJobFailureNotification(Job job, String reason) {
+        send(job, "FAILED", reason == null ? "Job failed" : "Job failed: " + reason);
+    }
+
+    private void send(Job job, String status, String message) {
+        JobNotificationDto notification = new JobNotificationDto(job.getRequest().getId(), job.getId(), status, message,
+                new Date());
+        TransactionUtils.afterCommit(() -> {
+            try {
+                messagingTemplate.convertAndSend(REQUEST_TOPIC_PREFIX + notification.getRequestId(), notification);
+                messagingTemplate.convertAndSend(DASHBOARD_TOPIC, notification);
+            } catch (MessagingException e) {
+                log.warn("Failed to notify request {}: {}", notification.getRequestId(), e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package com.tti.paveinsight.services.raster;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.services.storage.StorageService;
+import com.tti.paveinsight.utils.CacheUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fixed-size blocks of S3 objects fetched with ranged reads and shared by all readers. A
+ * cloud-optimized GeoTIFF keeps its headers at the start and its tiles in contiguous runs, so
+ * the same few blocks serve every tile request of an image.
+ */
+@Service
+public class RangeBlockCache {
+
+    private final StorageService storageService;
+
+    private final int blockSize;
+
+    private final AsyncCache<BlockKey, byte[]> blocks;
+
+    private final AsyncCache<ObjectKey, Long> sizes;
+
+    public RangeBlockCache(StorageService storageService,
+                           @Value("${paveinsight.raster.block-size:65536}") int blockSize,
+                           @Value("${paveinsight.raster.block-cache-max-bytes:134217728}") long maxBytes) {
+        this.storageService = storageService;
+        this.blockSize = blockSize;
+        this.blocks = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((BlockKey key, byte[] block) -> block.length + 64)
+                .buildAsync();
+        this.sizes = Caffeine.newBuilder().maximumSize(10_000).buildAsync();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long size(String bucketName, String key) {
+        return CacheUtils.get(sizes, new ObjectKey(bucketName, key), object -> storageService.getFileSize(bucketName, key));
+    }
+
+    // Block index of the object; the last block may be shorter than the block size
+    public byte[] block(String bucketName, String key, long index) {
+        return CacheUtils.get(blocks, new BlockKey(bucketName, key, index), block -> {
+            long offset = index * blockSize;
+            int length = (int) Math.min(blockSize, size(bucketName, key) - offset);
+            return storageService.readRange(bucketName, key, offset, length);
+        });
+    }
+
+    // Fetches the missing blocks of a range with one ranged read, so a multi-block TIFF tile costs one request
+    public void prefetch(String bucketName, String key, long firstIndex, long lastIndex) {
+        long from = -1;
+        long to = -1;
+        for (long index = firstIndex; index <= lastIndex; index++) {
+            if (blocks.getIfPresent(new BlockKey(bucketName, key, index)) == null) { // Missing or still loading
+                from = from < 0 ? index : from;
+                to = index;
+            }
+        }
+        if (from < 0 || from == to) {
+            return; // Nothing or a single block missing; block() fetches it on demand
+        }
+        long offset = from * blockSize;
+        int length = (int) Math.min((to - from + 1) * blockSize, size(bucketName, key) - offset);
+        byte[] data = storageService.readRange(bucketName, key, offset, length);
+        for (long index = from; index <= to; index++) {
+            int start = (int) ((index - from) * blockSize);
+            int end = Math.min(data.length, start + blockSize);
+            blocks.put(new BlockKey(bucketName, key, index), CompletableFuture.completedFuture(Arrays.copyOfRange(data, start, end)));
+        }
+    }
+
+    public void invalidate(String bucketName, String key) {
+        sizes.synchronous().invalidate(new ObjectKey(bucketName, key));
+        blocks.asMap().keySet().removeIf(block -> block.bucketName().equals(bucketName) && block.key().equals(key));
+    }
+
+    private record ObjectKey(String bucketName, String key) {
+    }
+
+    private record BlockKey(String bucketName, String key, long index) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.tti.paveinsight.services.raster;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * Random-access ImageIO stream over an S3 object. Reads are served from {@link RangeBlockCache},
+ * so an image reader seeking through a tiled TIFF only fetches the blocks it touches.
+ */
+class RangedImageInputStream extends ImageInputStreamImpl {
+
+    private final RangeBlockCache blockCache;
+
+    private final String bucketName;
+
+    private final String key;
+
+    private final long length;
+
+    RangedImageInputStream(RangeBlockCache blockCache, String bucketName, String key) {
+        this.blockCache = blockCache;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.length = blockCache.size(bucketName, key);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public int read() {
+        if (streamPos >= length) {
+            return -1;
+        }
+        bitOffset = 0;
+        byte[] block = blockCache.block(bucketName, key, streamPos / blockCache.getBlockSize());
+        return block[(int) (streamPos++ % blockCache.getBlockSize())] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        if (streamPos >= length) {
+            return -1;
+        }
+        bitOffset = 0;
+        int blockSize = blockCache.getBlockSize();
+        long last = Math.min(length, streamPos + count) - 1;
+        blockCache.prefetch(bucketName, key, streamPos / blockSize, last / blockSize);
+        int total = 0;
+        while (total < count && streamPos < length) {
+            byte[] block = blockCache.block(bucketName, key, streamPos / blockSize);
+            int inBlock = (int) (streamPos % blockSize);
+            int chunk = Math.min(count - total, block.length - inBlock);
+            System.arraycopy(block, inBlock, buffer, offset + total, chunk);
+            total += chunk;
+            streamPos += chunk;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,241 @@
+package com.tti.paveinsight.services.raster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.services.result.JobResultInvalidatedEvent;
+import com.tti.paveinsight.utils.CacheUtils;
+import com.tti.paveinsight.utils.S3Utils;
+import com.tti.paveinsight.utils.geo.TileMath;
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Renders the super-resolution GeoTIFF of a job as 256px PNG XYZ tiles. The TIFF is read through
+ * ranged reads, so a tile only costs the TIFF tiles (or strips) it overlaps, and the overview
+ * closest to the requested zoom is used when the file has any. The image is georeferenced by the
+ * job's WGS84 bounds and sampled nearest-neighbour; pixels outside the image are transparent.
+ */
+@Service
+public class RasterTileService {
+
+    public static final int TILE_SIZE = 256;
+
+    private final RangeBlockCache blockCache;
+
+    private final S3Utils s3Utils;
+
+    private final ObjectMapper objectMapper;
+
+    private final AsyncCache<Long, RasterSource> sources;
+
+    private final AsyncCache<TileKey, byte[]> tiles;
+
+    public RasterTileService(RangeBlockCache blockCache, S3Utils s3Utils, ObjectMapper objectMapper,
+                             @Value("${paveinsight.raster.tile-cache-max-bytes:67108864}") long tileCacheMaxBytes) {
+        this.blockCache = blockCache;
+        this.s3Utils = s3Utils;
+        this.objectMapper = objectMapper;
+        this.sources = Caffeine.newBuilder().maximumSize(1_000).buildAsync();
+        this.tiles = Caffeine.newBuilder()
+                .maximumWeight(tileCacheMaxBytes)
+                .weigher((TileKey key, byte[] tile) -> tile.length + 64)
+                .buildAsync();
+    }
+
+    public boolean hasRaster(Job job) {
+        return job.getSuperResolutionTIFS3URL() != null && parseBounds(job.getBounds()) != null;
+    }
+
+    // Encoded PNG; an empty array means the tile does not overlap the image
+    public byte[] getTile(Job job, int z, int x, int y) {
+        return CacheUtils.get(tiles, new TileKey(job.getId(), z, x, y), key -> render(source(job), z, x, y));
+    }
+
+    @EventListener
+    public void onJobResultInvalidated(JobResultInvalidatedEvent event) {
+        RasterSource source = sources.synchronous().getIfPresent(event.jobId());
+        if (source != null) {
+            sources.synchronous().invalidate(event.jobId());
+            blockCache.invalidate(source.bucketName(), source.key()); // A re-run may overwrite the same object
+        }
+        tiles.asMap().keySet().removeIf(key -> key.jobId().equals(event.jobId()));
+    }
+
+    private RasterSource source(Job job) {
+        return CacheUtils.get(sources, job.getId(), id -> {
+            String url = job.getSuperResolutionTIFS3URL();
+            String bucketName = s3Utils.extractBucketNameFromUrl(url);
+            String key = s3Utils.extractFileNameFromUrl(url);
+            List<Dimension> levels = new ArrayList<>();
+            withReader(bucketName, key, reader -> {
+                int images = reader.getNumImages(true);
+                for (int i = 0; i < images; i++) {
+                    levels.add(new Dimension(reader.getWidth(i), reader.getHeight(i)));
+                }
+                return null;
+            });
+            return new RasterSource(bucketName, key, parseBounds(job.getBounds()), levels);
+        });
+    }
+
+    private byte[] render(RasterSource source, int z, int x, int y) {
+        Envelope bounds = source.bounds();
+        if (!TileMath.tileEnvelope(z, x, y, 0).intersects(bounds)) {
+            return new byte[0];
+        }
+        int level = chooseLevel(source, z);
+        Dimension size = source.levels().get(level);
+
+        // Source column of every output column and source row of every output row; -1 is outside the image
+        int[] columns = new int[TILE_SIZE];
+        int[] rows = new int[TILE_SIZE];
+        for (int i = 0; i < TILE_SIZE; i++) {
+            double lon = TileMath.longitude(x + (i + 0.5) / TILE_SIZE, z);
+            double lat = TileMath.latitude(y + (i + 0.5) / TILE_SIZE, z);
+            columns[i] = pixel((lon - bounds.getMinX()) / bounds.getWidth(), size.width);
+            rows[i] = pixel((bounds.getMaxY() - lat) / bounds.getHeight(), size.height);
+        }
+        Rectangle region = region(columns, rows);
+        if (region == null) {
+            return new byte[0];
+        }
+
+        // Decode at most about one source pixel per output pixel
+        int step = Math.max(1, Math.min(region.width, region.height) / TILE_SIZE);
+        BufferedImage decoded = withReader(source.bucketName(), source.key(), reader -> {
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(region);
+            param.setSourceSubsampling(step, step, 0, 0);
+            return reader.read(level, param);
+        });
+
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        for (int j = 0; j < TILE_SIZE; j++) {
+            if (rows[j] < 0) {
+                continue;
+            }
+            int row = Math.min(decoded.getHeight() - 1, (rows[j] - region.y) / step);
+            for (int i = 0; i < TILE_SIZE; i++) {
+                if (columns[i] >= 0) {
+                    int column = Math.min(decoded.getWidth() - 1, (columns[i] - region.x) / step);
+                    tile.setRGB(i, j, decoded.getRGB(column, row));
+                }
+            }
+        }
+        return encodePng(tile);
+    }
+
+    // Smallest overview that still has at least one pixel per output pixel, else the full image
+    private static int chooseLevel(RasterSource source, int z) {
+        double tileWidthDegrees = 360.0 / (1L << z);
+        double needed = TILE_SIZE / tileWidthDegrees; // Output pixels per degree of longitude
+        int chosen = 0;
+        for (int level = 1; level < source.levels().size(); level++) {
+            Dimension size = source.levels().get(level);
+            if (size.width > source.levels().get(chosen).width || size.width / source.bounds().getWidth() < needed) {
+                break; // Masks and other non-overview images follow the overviews
+            }
+            chosen = level;
+        }
+        return chosen;
+    }
+
+    private static int pixel(double fraction, int size) {
+        return fraction >= 0 && fraction < 1 ? (int) (fraction * size) : -1;
+    }
+
+    // Bounding rectangle of the source pixels the tile samples; null when it samples none
+    private static Rectangle region(int[] columns, int[] rows) {
+        int minColumn = Integer.MAX_VALUE, maxColumn = -1, minRow = Integer.MAX_VALUE, maxRow = -1;
+        for (int i = 0; i < TILE_SIZE; i++) {
+            if (columns[i] >= 0) {
+                minColumn = Math.min(minColumn, columns[i]);
+                maxColumn = Math.max(maxColumn, columns[i]);
+            }
+            if (rows[i] >= 0) {
+                minRow = Math.min(minRow, rows[i]);
+                maxRow = Math.max(maxRow, rows[i]);
+            }
+        }
+        if (maxColumn < 0 || maxRow < 0) {
+            return null;
+        }
+        return new Rectangle(minColumn, minRow, maxColumn - minColumn + 1, maxRow - minRow + 1);
+    }
+
+    private <T> T withReader(String bucketName, String key, ReaderAction<T> action) {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("tiff");
+        if (!readers.hasNext()) {
+            throw new IllegalStateException("No TIFF reader available");
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream input = new RangedImageInputStream(blockCache, bucketName, key)) {
+            reader.setInput(input, false, true);
+            return action.apply(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading raster " + key, e);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static byte[] encodePng(BufferedImage image) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    // {"north":..,"south":..,"east":..,"west":..} as sent by the worker, possibly double-encoded
+    private Envelope parseBounds(String bounds) {
+        if (bounds == null || bounds.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(bounds);
+            if (node.isTextual()) {
+                node = objectMapper.readTree(node.asText());
+            }
+            if (!node.hasNonNull("north") || !node.hasNonNull("south") || !node.hasNonNull("east") || !node.hasNonNull("west")) {
+                return null;
+            }
+            return new Envelope(node.get("west").asDouble(), node.get("east").asDouble(),
+                    node.get("south").asDouble(), node.get("north").asDouble());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private interface ReaderAction<T> {
+        T apply(ImageReader reader) throws IOException;
+    }
+
+    private record RasterSource(String bucketName, String key, Envelope bounds, List<Dimension> levels) {
+    }
+
+    private record TileKey(Long jobId, int z, int x, int y) {
+    }
+}
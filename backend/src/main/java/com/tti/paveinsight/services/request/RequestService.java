@@ -1,27 +1,48 @@
 package com.tti.paveinsight.services.request;
 
+import com.tti.paveinsight.dto.BulkSubmitResultDto;
 import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.dto.JobSegmentDto;
 import com.tti.paveinsight.dto.RequestDto;
+import com.tti.paveinsight.dto.RequestPageDto;
+import com.tti.paveinsight.dto.RequestStatsDto;
+import com.tti.paveinsight.dto.SegmentStatsDto;
 import com.tti.paveinsight.dto.SuperResolutionDto;
 import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.PciCondition;
+import com.tti.paveinsight.services.result.CachedResult;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
 
 public interface RequestService {
     List<RequestDto> getAllRequests();
+    RequestPageDto getRequestPage(String cursor, int size);
     RequestDto createRequest(RequestDto requestDto);
     long getTotalRequestCount();
     long getPendingRequestCount();
     long getCompletedRequestCount();
+    RequestStatsDto getRequestStats();
     RequestDto getRequestById(UUID id);
     void deleteRequestById(UUID id);
     RequestDto submitJobForRequest(UUID requestId);
+    BulkSubmitResultDto submitJobsForRequests(List<UUID> requestIds);
     RequestDto updateRequest(UUID id, RequestDto requestDto);
     List<JobDto> getResultsJobs(UUID id);
-    String getJobResultGeoJson(UUID requestId, Long jobId);
+    StreamingResponseBody getJobResultGeoJson(UUID requestId, Long jobId);
+    CachedResult getFinalizedJobResultGeoJson(UUID requestId, Long jobId);
+    CachedResult getSimplifiedJobResultGeoJson(UUID requestId, Long jobId, int lod);
+    byte[] getJobResultTile(UUID requestId, Long jobId, int z, int x, int y);
+    byte[] getSuperResolutionTile(UUID requestId, Long jobId, int z, int x, int y);
+    StreamingResponseBody getJobResultFeatures(UUID requestId, Long jobId, String bbox);
+    StreamingResponseBody getNearestJobResultFeature(UUID requestId, Long jobId, double lon, double lat);
+
+    List<JobSegmentDto> getJobSegments(UUID requestId, Long jobId, Double minPci, Double maxPci,
+                                       PciCondition condition, int limit);
+    SegmentStatsDto getJobSegmentStats(UUID requestId, Long jobId);
 
     String getJobResult(UUID requestId, Long jobId);
 
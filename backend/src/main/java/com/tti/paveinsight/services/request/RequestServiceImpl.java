@@ -1,68 +1,144 @@
 package com.tti.paveinsight.services.request;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.dto.BulkSubmitResultDto;
 import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.dto.JobSegmentDto;
+import com.tti.paveinsight.dto.JobSubmissionDto;
 import com.tti.paveinsight.dto.RequestDto;
+import com.tti.paveinsight.dto.RequestPageDto;
+import com.tti.paveinsight.dto.RequestStatsDto;
+import com.tti.paveinsight.dto.RequestSummaryDto;
+import com.tti.paveinsight.dto.SegmentStatsDto;
 import com.tti.paveinsight.dto.SuperResolutionDto;
+import com.tti.paveinsight.messaging.JobOutboxRelay;
 import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobResult;
+import com.tti.paveinsight.models.PciCondition;
 import com.tti.paveinsight.models.Request;
 import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.repositories.JobResultRepository;
 import com.tti.paveinsight.repositories.RequestRepository;
-import com.tti.paveinsight.services.job.JobServiceImpl;
+import com.tti.paveinsight.services.aoi.AoiService;
+import com.tti.paveinsight.services.aoi.IngestedAoi;
+import com.tti.paveinsight.services.job.JobPublishResult;
+import com.tti.paveinsight.services.result.CachedResult;
+import com.tti.paveinsight.services.result.FinalizedResultCache;
+import com.tti.paveinsight.services.result.JobResultInvalidatedEvent;
+import com.tti.paveinsight.services.result.ResultFeatureCache;
+import com.tti.paveinsight.services.result.ResultStorageService;
+import com.tti.paveinsight.services.result.SimplifiedResultCache;
+import com.tti.paveinsight.services.segment.SegmentService;
+import com.tti.paveinsight.services.stats.StatsService;
+import com.tti.paveinsight.services.raster.RasterTileService;
+import com.tti.paveinsight.services.tiles.VectorTileService;
 import com.tti.paveinsight.utils.JobUtils;
 import com.tti.paveinsight.utils.RequestUtils;
+import com.tti.paveinsight.utils.geo.FeatureIndex;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureWriter;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.ResultFeature;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionTemplate;
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class RequestServiceImpl implements RequestService{
     private final RequestRepository requestRepository;
     private final JobRepository jobRepository;
-    private final JobServiceImpl jobServiceImpl;
+    private final JobResultRepository jobResultRepository;
+    private final JobOutboxRelay jobOutboxRelay;
+    private final ResultStorageService resultStorageService;
+    private final FinalizedResultCache finalizedResultCache;
+    private final VectorTileService vectorTileService;
+    private final RasterTileService rasterTileService;
+    private final ResultFeatureCache resultFeatureCache;
+    private final SimplifiedResultCache simplifiedResultCache;
+    private final SegmentService segmentService;
+    private final StatsService statsService;
+    private final AoiService aoiService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
     private final RequestUtils requestUtils;
     private final JobUtils jobUtils;
 
     public List<RequestDto> getAllRequests() {
         return requestRepository.findAll().stream()
                 .map(request -> {
-                    List<JobDto> jobDtos = request.getJobs().stream().map(j -> jobUtils.convertToDto(request, j)).toList();
-                    return new RequestDto(
-                            request.getId(), request.getUsername(), request.getEmail(), request.getCompanyName(),
-                            request.getPhoneNumber(), request.getGeoJson(), request.getMessage(), request.getStatus(),
-                            request.getUpdatedAt(), request.getCreatedAt(),
-                            jobDtos);
+                    List<JobDto> jobDtos = topLevelJobs(request).stream().map(j -> jobUtils.convertToDto(request, j)).toList();
+                    return requestUtils.convertToDto(request, jobDtos);
                 }).collect(Collectors.toList());
     }
 
+    public RequestPageDto getRequestPage(String cursor, int size) {
+        // Fetch one extra row to find out whether another page exists
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<RequestSummaryDto> summaries;
+        if (cursor == null || cursor.isBlank()) {
+            summaries = requestRepository.findFirstSummaries(limit);
+        } else {
+            RequestUtils.Cursor after = requestUtils.decodeCursor(cursor);
+            summaries = requestRepository.findSummariesAfter(after.createdAt(), after.id(), limit);
+        }
+
+        if (summaries.size() <= size) {
+            return new RequestPageDto(summaries, null);
+        }
+        List<RequestSummaryDto> page = summaries.subList(0, size);
+        return new RequestPageDto(page, requestUtils.encodeCursor(page.get(size - 1)));
+    }
+
 
     public RequestDto createRequest(RequestDto requestDto) {
+        // Rejects a malformed or oversized AOI before anything is stored
+        IngestedAoi aoi = aoiService.ingest(requestDto.getGeoJson());
         Request request = new Request();
         request.setUsername(requestDto.getUsername());
         request.setEmail(requestDto.getEmail());
-        request.setGeoJson(requestDto.getGeoJson());
+        request.setGeoJson(aoi.geoJson());
+        request.setAoi(aoi.metrics());
         request.setCompanyName(requestDto.getCompanyName());
         request.setPhoneNumber(requestDto.getPhoneNumber());
         request.setMessage(requestDto.getMessage());
         request.setStatus("PENDING");
         request = requestRepository.save(request);
+        statsService.requestStatusChanged(null, request.getStatus());
         return requestUtils.convertToDto(request, null);
     }
 
+    // Counts are served from the in-memory statistics, not COUNT queries
     public long getTotalRequestCount(){
-        return requestRepository.count();
+        return statsService.getRequestCount();
     }
 
     public long getPendingRequestCount(){
-        return requestRepository.countByStatus("PENDING");
+        return statsService.getRequestCount("PENDING");
     }
 
     public long getCompletedRequestCount(){
-        return requestRepository.countByStatus("COMPLETED");
+        return statsService.getRequestCount("COMPLETED");
+    }
+
+    public RequestStatsDto getRequestStats() {
+        return statsService.getStats();
     }
 
     public RequestDto getRequestById(UUID id) {
@@ -70,89 +146,169 @@ public class RequestServiceImpl implements RequestService{
                 .orElseThrow(() -> new IllegalArgumentException("Request not found with id: " + id));
 
         // Fetch all jobs associated with the request
-        List<Job> jobs = request.getJobs();
+        List<Job> jobs = topLevelJobs(request);
 
         // Prepare a list of job DTOs
         List<JobDto> jobDtos = jobs.stream().map(job -> jobUtils.convertToDto(request, job)).toList();
 
-        return new RequestDto(
-                request.getId(),
-                request.getUsername(),
-                request.getEmail(),
-                request.getCompanyName(),
-                request.getPhoneNumber(),
-                request.getGeoJson(),
-                request.getMessage(),
-                request.getStatus(),
-                request.getUpdatedAt(),
-                request.getCreatedAt(),
-                jobDtos  // Include the list of job DTOs
-        );
+        return requestUtils.convertToDto(request, jobDtos);
     }
 
     public void deleteRequestById(UUID id) {
         if (requestRepository.existsById(id)) {
             //Step1: Remove the corresponding jobs from the database;
             Request request = requestRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Request not found with ID: " + id));
-            List<Job> jobs = request.getJobs();
+            // Sub-jobs first, the database would otherwise remove them together with their parent
+            List<Job> jobs = request.getJobs().stream()
+                    .sorted(Comparator.comparing(job -> job.getParentJob() == null))
+                    .toList();
             for(Job job: jobs){
+                eventPublisher.publishEvent(new JobResultInvalidatedEvent(job.getId()));
+                statsService.jobStatusChanged(job.getStatus(), null);
 //                request.removeJob(job);
                 jobRepository.delete(job);
                 jobRepository.save(job);
             }
 //            requestRepository.save(request);
             requestRepository.deleteById(id);
+            statsService.requestStatusChanged(request.getStatus(), null);
         } else {
             throw new IllegalArgumentException("Request not found with id: " + id);
         }
     }
 
+    // The job and its outbox message commit together; JobOutboxRelay publishes it after the commit
     public RequestDto submitJobForRequest(UUID requestId) {
-        // Retrieve the request by ID
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new IllegalArgumentException("Request not found with ID: " + requestId));
+        return transactionTemplate.execute(status -> {
+            // Retrieve the request by ID
+            Request request = requestRepository.findById(requestId)
+                    .orElseThrow(() -> new IllegalArgumentException("Request not found with ID: " + requestId));
 
-        System.out.println(request.getGeoJson());
-        // Check if a job is already linked to this request
-//        if (request.getJobId() != null) {
-//            throw new IllegalArgumentException("Job is already linked to this request with job ID: " + request.getJobId());
-//        }
+            // Create a new Job, split into sub-jobs for a large AOI, and queue it for the ML workers
+            queueJobs(createJobs(request));
+            jobOutboxRelay.wakeUpAfterCommit();
 
-        // Create a new Job and link it to the request
-        Job job = new Job();
+            List<JobDto> jobDtos = topLevelJobs(request).stream().map(j -> jobUtils.convertToDto(request, j)).toList();
 
-        job.setRequest(request);
-        job.setStatus("PENDING");
+            // Convert the updated request to RequestDto and return
+            return requestUtils.convertToDto(request, jobDtos);
+        });
+    }
 
-        job = jobRepository.save(job); // Save the job to get a generated job ID
+    /**
+     * Creates one job per request together with its outbox message in a single transaction, then
+     * has the outbox relay publish them right away with pipelined publisher confirms. Fails as a
+     * whole when any request does not exist. Jobs the broker did not acknowledge stay in the outbox
+     * and are retried in the background.
+     */
+    public BulkSubmitResultDto submitJobsForRequests(List<UUID> requestIds) {
+        if (requestIds == null || requestIds.isEmpty()) {
+            throw new IllegalArgumentException("No request IDs given");
+        }
+        List<UUID> ids = requestIds.stream().distinct().toList();
+        List<Long> outboxIds = new ArrayList<>(ids.size());
+        List<CreatedJobs> jobs = transactionTemplate.execute(status -> {
+            Map<UUID, Request> requests = requestRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Request::getId, request -> request));
+            List<CreatedJobs> created = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                Request request = requests.get(id);
+                if (request == null) {
+                    throw new IllegalArgumentException("Request not found with ID: " + id);
+                }
+                created.add(createJobs(request));
+            }
+            created.forEach(createdJobs -> outboxIds.addAll(queueJobs(createdJobs)));
+            return created;
+        });
+
+        long start = System.nanoTime();
+        Map<String, JobPublishResult> published;
+        String relayError = null;
+        try {
+            published = jobOutboxRelay.relayNow(outboxIds);
+        } catch (IllegalStateException e) {
+            published = Map.of();
+            relayError = e.getMessage();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        List<JobSubmissionDto> submissions = new ArrayList<>(jobs.size());
+        for (CreatedJobs created : jobs) {
+            // A split job counts as acknowledged when all of its sub-jobs are
+            boolean acknowledged = true;
+            String reason = null;
+            for (Job queued : created.queued()) {
+                JobPublishResult result = published.get(queued.getCorrelationId());
+                if (result == null || !result.acknowledged()) {
+                    acknowledged = false;
+                    reason = result == null ? (relayError != null ? relayError : "Published by another relay")
+                            : result.reason();
+                    break;
+                }
+            }
+            Job job = created.job();
+            submissions.add(new JobSubmissionDto(job.getRequest().getId(), job.getId(), job.getCorrelationId(),
+                    acknowledged, reason));
+        }
+        int acknowledged = (int) submissions.stream().filter(JobSubmissionDto::isAcknowledged).count();
+        log.info("Bulk submitted {} jobs, {} acknowledged in {} ms", jobs.size(), acknowledged, elapsedNanos / 1_000_000);
+        return new BulkSubmitResultDto(jobs.size(), acknowledged, jobs.size() - acknowledged, elapsedNanos / 1_000_000,
+                jobs.size() * 1e9 / Math.max(1, elapsedNanos), submissions);
+    }
+
+    /**
+     * Creates the job for a request. An AOI covering more tiles than one part may hold is split
+     * into a parent job, which is never published itself, and a sub-job per part; the sub-jobs
+     * run in parallel on the ML workers and the parent completes when the last of them is done.
+     * Requests stored before AOIs were checked have no metrics and are submitted unsplit, as they
+     * were, since their AOI may not pass the checks.
+     */
+    private CreatedJobs createJobs(Request request) {
+        List<IngestedAoi> parts = request.getAoi() == null ? List.of() : aoiService.split(request.getGeoJson());
+        Job job = newJob(request);
+        if (parts.size() <= 1) {
+            jobRepository.save(job); // Saved to get a generated job ID
+            return new CreatedJobs(job, List.of(job));
+        }
+        job.setSubJobCount(parts.size());
+        job.setPendingSubJobs(parts.size());
+        job.setFailedSubJobs(0);
+        List<Job> subJobs = new ArrayList<>(parts.size());
+        for (IngestedAoi part : parts) {
+            Job subJob = newJob(request);
+            subJob.setParentJob(job);
+            subJob.setGeoJson(part.geoJson());
+            subJob.setAoi(part.metrics());
+            subJobs.add(subJob);
+        }
+        jobRepository.save(job);
+        jobRepository.saveAll(subJobs);
+        log.info("Split the AOI of request {} into {} sub-jobs of job {}", request.getId(), subJobs.size(), job.getId());
+        return new CreatedJobs(job, subJobs);
+    }
 
-        // Link the job to the request by updating jobId in the Request entity
+    private Job newJob(Request request) {
+        Job job = new Job();
+        job.setStatus("PENDING");
+        job.setCorrelationId(UUID.randomUUID().toString());
         request.addJob(job);
-        requestRepository.save(request);
-
-        // Convert job to JobDto (if JobDto exists) or use job.getId() for reference
-        JobDto jobDto = new JobDto(
-                job.getId(),
-                job.getStatus(),
-                job.getResultData(),
-                job.getResultGeoJsonData(),
-                job.getSatelliteImageS3URL(),
-                job.getCreatedAt(),
-                job.getUpdatedAt(),
-                job.isResultFinalized(),
-                request.getId(),       // requestId from the associated request
-                request.getGeoJson()    // geoJson from the associated request
-        );
-
-        // Publish the job to RabbitMQ for processing
-        jobServiceImpl.submitJobAsync(jobDto);
-
-        List<JobDto> jobDtos = request.getJobs().stream().map(j -> jobUtils.convertToDto(request, j)).toList();
-
-        // Convert the updated request to RequestDto and return
-        return requestUtils.convertToDto(request, jobDtos);
+        statsService.jobStatusChanged(null, job.getStatus());
+        return job;
     }
 
+    // Adds the jobs to be published to the outbox; returns the outbox message IDs
+    private List<Long> queueJobs(CreatedJobs created) {
+        List<Long> outboxIds = new ArrayList<>(created.queued().size());
+        for (Job job : created.queued()) {
+            outboxIds.add(jobOutboxRelay.add(job, jobUtils.convertToDto(job.getRequest(), job)).getId());
+        }
+        return outboxIds;
+    }
+
+    // The job of a request and the jobs published for it: itself, or its sub-jobs
+    private record CreatedJobs(Job job, List<Job> queued) {
+    }
 
     public RequestDto updateRequest(UUID id, RequestDto requestDto){
         // Retrieve the existing request
@@ -167,7 +323,9 @@ public class RequestServiceImpl implements RequestService{
             request.setEmail(requestDto.getEmail());
         }
         if (requestDto.getGeoJson() != null) {
-            request.setGeoJson(requestDto.getGeoJson());
+            IngestedAoi aoi = aoiService.ingest(requestDto.getGeoJson());
+            request.setGeoJson(aoi.geoJson());
+            request.setAoi(aoi.metrics());
         }
         if (requestDto.getCompanyName() != null) {
             request.setCompanyName(requestDto.getCompanyName());
@@ -178,12 +336,14 @@ public class RequestServiceImpl implements RequestService{
         if (requestDto.getMessage() != null) {
             request.setMessage(requestDto.getMessage());
         }
+        String previousStatus = request.getStatus();
         if (requestDto.getStatus() != null) {
             request.setStatus(requestDto.getStatus()); // Assuming status can be updated
         }
         
         // Save the updated request
         request = requestRepository.save(request);
+        statsService.requestStatusChanged(previousStatus, request.getStatus());
         
         // Convert and return the updated request as a DTO
         return requestUtils.convertToDto(request, null);
@@ -194,108 +354,168 @@ public class RequestServiceImpl implements RequestService{
                 .orElseThrow(() -> new IllegalArgumentException("Request not found with id: " + id));
 
         // Get the list of jobs associated with the request
-        List<Job> jobs = request.getJobs();
+        List<Job> jobs = topLevelJobs(request);
 
         // Convert the list of jobs to a list of JobDto
-        List<JobDto> jobDtos = jobs.stream()
-                .map(job -> new JobDto(
-                        job.getId(),
-                        job.getStatus(),
-                        job.getResultData(),
-                        job.getResultGeoJsonData(),
-                        job.getSatelliteImageS3URL(),
-                        job.getCreatedAt(),
-                        job.getUpdatedAt(),
-                        job.isResultFinalized(),
-                        request.getId(), // Reference the request ID
-                        request.getGeoJson() // Reference the GeoJSON from the request
-                ))
-                .toList();
-        return jobDtos;
-    }
-
-    public String getJobResultGeoJson(UUID requestId, Long jobId) {
-        // Check if request exists
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new EntityNotFoundException("Request not found for ID: " + requestId));
+        return jobs.stream().map(job -> jobUtils.convertToDto(request, job)).toList();
+    }
 
-        // Verify job belongs to the request
-        Job job = jobRepository.findById(jobId)
-                .orElseThrow(() -> new EntityNotFoundException("Job not found for ID: " + jobId));
+    public StreamingResponseBody getJobResultGeoJson(UUID requestId, Long jobId) {
+        Job job = findJobForRequest(requestId, jobId);
+        if (!resultStorageService.hasGeoJson(job)) {
+            return null;
+        }
+        // Pipe the document from storage to the response without holding it on the heap
+        return outputStream -> {
+            try (InputStream geoJson = resultStorageService.openGeoJson(job)) {
+                geoJson.transferTo(outputStream);
+            }
+        };
+    }
 
-        if (!job.getRequest().getId().equals(requestId)) {
-            throw new IllegalArgumentException("Job does not belong to the specified request");
+    // Finalized results never change, so they are served from memory; null means stream instead
+    public CachedResult getFinalizedJobResultGeoJson(UUID requestId, Long jobId) {
+        Job job = findJobForRequest(requestId, jobId);
+        return job.isResultFinalized() ? finalizedResultCache.get(job) : null;
+    }
+
+    // Simplified result document at the given level of detail; null when the job has no result yet
+    public CachedResult getSimplifiedJobResultGeoJson(UUID requestId, Long jobId, int lod) {
+        Job job = findJobForRequest(requestId, jobId);
+        if (!resultStorageService.hasGeoJson(job)) {
+            return null;
         }
+        return simplifiedResultCache.get(job, lod);
+    }
 
-        System.out.println(job.getResultGeoJsonData());
-        // Return the job result data (assuming Job entity has a `resultData` field)
-        return job.getResultGeoJsonData();
+    // Mapbox Vector Tile of the job's result; null when the job has no result yet
+    public byte[] getJobResultTile(UUID requestId, Long jobId, int z, int x, int y) {
+        Job job = findJobForRequest(requestId, jobId);
+        if (!resultStorageService.hasGeoJson(job)) {
+            return null;
+        }
+        return vectorTileService.getTile(job, z, x, y);
     }
 
-    public String getJobResult(UUID requestId, Long jobId) {
-        // Check if request exists
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new EntityNotFoundException("Request not found for ID: " + requestId));
+    // PNG tile of the job's super-resolution GeoTIFF; null when the job has no georeferenced TIF yet
+    public byte[] getSuperResolutionTile(UUID requestId, Long jobId, int z, int x, int y) {
+        Job job = findJobForRequest(requestId, jobId);
+        if (!rasterTileService.hasRaster(job)) {
+            return null;
+        }
+        return rasterTileService.getTile(job, z, x, y);
+    }
 
-        // Verify job belongs to the request
-        Job job = jobRepository.findById(jobId)
-                .orElseThrow(() -> new EntityNotFoundException("Job not found for ID: " + jobId));
+    // Result features intersecting a "minLon,minLat,maxLon,maxLat" box; null when the job has no result yet
+    public StreamingResponseBody getJobResultFeatures(UUID requestId, Long jobId, String bbox) {
+        Envelope box = GeoJsonGeometries.parseBbox(bbox);
+        Job job = findJobForRequest(requestId, jobId);
+        if (!resultStorageService.hasGeoJson(job)) {
+            return null;
+        }
+        List<ResultFeature> features = resultFeatureCache.get(job).intersecting(box);
+        return outputStream -> {
+            try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(outputStream, objectMapper)) {
+                for (ResultFeature feature : features) {
+                    writer.write(feature);
+                }
+            }
+        };
+    }
 
-        if (!job.getRequest().getId().equals(requestId)) {
-            throw new IllegalArgumentException("Job does not belong to the specified request");
+    // The result feature closest to a point, with its distance in meters; null when the job has no result yet
+    public StreamingResponseBody getNearestJobResultFeature(UUID requestId, Long jobId, double lon, double lat) {
+        if (!Double.isFinite(lon) || !Double.isFinite(lat) || Math.abs(lon) > 180 || Math.abs(lat) > 90) {
+            throw new IllegalArgumentException("lon/lat must be a valid WGS84 position");
+        }
+        Job job = findJobForRequest(requestId, jobId);
+        if (!resultStorageService.hasGeoJson(job)) {
+            return null;
         }
+        FeatureIndex.Nearest nearest = resultFeatureCache.get(job).nearest(lon, lat);
+        return outputStream -> {
+            try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(outputStream, objectMapper)) {
+                if (nearest != null) {
+                    ResultFeature feature = nearest.feature();
+                    Map<String, Object> properties = new LinkedHashMap<>(feature.getProperties());
+                    properties.put("distanceMeters", nearest.distanceMeters());
+                    writer.write(feature.getId(), feature.getGeometry(), properties);
+                }
+            }
+        };
+    }
 
-        System.out.println(job.getResultGeoJsonData());
-        // Return the job result data (assuming Job entity has a `resultData` field)
-        return job.getResultData();
+    public List<JobSegmentDto> getJobSegments(UUID requestId, Long jobId, Double minPci, Double maxPci,
+                                              PciCondition condition, int limit) {
+        findJobForRequest(requestId, jobId);
+        return segmentService.getSegments(jobId, minPci, maxPci, condition, limit);
     }
 
-    @Override
-    public SuperResolutionDto getSuperResolutionResultData(UUID requestId, Long jobId) {
-        Request request = requestRepository.findById(requestId)
-                .orElseThrow(() -> new EntityNotFoundException("Request not found for ID: " + requestId));
+    public SegmentStatsDto getJobSegmentStats(UUID requestId, Long jobId) {
+        findJobForRequest(requestId, jobId);
+        return segmentService.getStats(jobId);
+    }
 
-        // Verify job belongs to the request
-        Job job = jobRepository.findById(jobId)
-                .orElseThrow(() -> new EntityNotFoundException("Job not found for ID: " + jobId));
+    public String getJobResult(UUID requestId, Long jobId) {
+        findJobForRequest(requestId, jobId);
+        return jobResultRepository.findById(jobId).map(JobResult::getResultData).orElse(null);
+    }
 
-        if (!job.getRequest().getId().equals(requestId)) {
-            throw new IllegalArgumentException("Job does not belong to the specified request");
-        }
-        return jobUtils.converToSuperResolutionDto(request, job);
+    @Override
+    public SuperResolutionDto getSuperResolutionResultData(UUID requestId, Long jobId) {
+        Job job = findJobForRequest(requestId, jobId);
+        return jobUtils.converToSuperResolutionDto(job.getRequest(), job);
     }
 
     @Override
     public void finalizeJob(UUID requestId, Long jobId) {
-        Request request = requestRepository.findById(requestId).orElseThrow(() -> new EntityNotFoundException("Request not found for Id: "+ requestId));
-        Job job = jobRepository.findById(jobId).orElseThrow(() -> new EntityNotFoundException("Job not found for ID: "+ jobId));
-        if(!job.getRequest().getId().equals(requestId)){
-            throw new IllegalArgumentException("Job does not belong to the specified request");
+        if (jobRepository.updateResultFinalized(requestId, jobId, true) == 0) {
+            throw new EntityNotFoundException("Job " + jobId + " not found for request " + requestId + " or part of a split job");
         }
-        job.setResultFinalized(true);
-        jobRepository.save(job);
     }
 
     @Override
     public void deleteJob(UUID requestId, Long jobId) {
-        Request request = requestRepository.findById(requestId).orElseThrow(()
-                -> new EntityNotFoundException("Request not found for Id: "+ requestId));
-        Job job = jobRepository.findById(jobId).orElseThrow(() -> new EntityNotFoundException("Job not found for ID: "+ jobId));
-        if(!job.getRequest().getId().equals(requestId)){
-            throw new IllegalArgumentException("Job does not belong to the specified request");
-        }
-        jobRepository.delete(job);
+        // The job's result row, outbox message and sub-jobs are removed by the database (ON DELETE CASCADE)
+        List<Job> deleted = transactionTemplate.execute(status -> {
+            Job job = findJobForRequest(requestId, jobId);
+            // Removing a part would leave its parent waiting for it, or merged from a missing result
+            if (job.getParentJob() != null) {
+                throw new IllegalArgumentException("Job " + jobId + " is part of job " + job.getParentJob().getId()
+                        + "; delete that job instead");
+            }
+            List<Job> jobs = new ArrayList<>(List.of(job));
+            if (job.getSubJobCount() != null) {
+                jobs.addAll(jobRepository.findByParentJobIdOrderByIdAsc(jobId));
+            }
+            jobRepository.delete(job);
+            jobs.forEach(removed -> statsService.jobStatusChanged(removed.getStatus(), null));
+            return jobs;
+        });
+        deleted.forEach(removed -> eventPublisher.publishEvent(new JobResultInvalidatedEvent(removed.getId())));
     }
 
     @Override
     public void resetFinalizedJob(UUID requestId, Long jobId){
-        Request request = requestRepository.findById(requestId).orElseThrow(() -> new EntityNotFoundException("Request not found for Id: "+ requestId));
-        Job job = jobRepository.findById(jobId).orElseThrow(() -> new EntityNotFoundException("Job not found for ID: "+ jobId));
-        if(!job.getRequest().getId().equals(requestId)){
+        if (jobRepository.updateResultFinalized(requestId, jobId, false) == 0) {
+            throw new EntityNotFoundException("Job " + jobId + " not found for request " + requestId + " or part of a split job");
+        }
+        eventPublisher.publishEvent(new JobResultInvalidatedEvent(jobId));
+    }
+
+    // The jobs of a request without the sub-jobs of split jobs, which are only parts of their parent's result
+    private static List<Job> topLevelJobs(Request request) {
+        return request.getJobs().stream().filter(job -> job.getParentJob() == null).toList();
+    }
+
+    // Loads only the job row; the owning request stays an uninitialized proxy
+    private Job findJobForRequest(UUID requestId, Long jobId) {
+        Job job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Job not found for ID: " + jobId));
+        if (!job.getRequest().getId().equals(requestId)) {
             throw new IllegalArgumentException("Job does not belong to the specified request");
         }
-        job.setResultFinalized(false);
-        jobRepository.save(job);
+        return job;
     }
 
     @Override
@@ -303,8 +523,6 @@ public class RequestServiceImpl implements RequestService{
         // Fetch the request based on requestId
         Request request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Request not found"));
-        System.out.println(request.getEmail());
-        System.out.println(emailId);
         // Check if the emailId matches the request's associated email
         return request.getEmail().equals(emailId);
     }
@@ -312,7 +530,7 @@ public class RequestServiceImpl implements RequestService{
     @Override
     public JobDto getFinalizedJob(UUID requestId) {
        Request request = requestRepository.findById(requestId).orElseThrow(() -> new RuntimeException("Request not found"));
-       List<Job> jobs = request.getJobs();
+       List<Job> jobs = topLevelJobs(request);
        Job finalizedJob = jobs.stream()
                 .filter(Job::isResultFinalized)  // Assuming there's a method to check the resultFinalized flag
                 .findFirst()
@@ -0,0 +1,100 @@
+package com.tti.paveinsight.services.result;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An immutable result document held in memory together with its precomputed
+ * encodings and strong ETags derived from the content hash, one per encoding.
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResult {
+    private final String hash;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final byte[] brotli; // null when the brotli codec is not available on this platform
+
+    // Hashes the document and compresses it once per supported encoding
+    public static CachedResult encode(byte[] identity, int brotliQuality) throws IOException {
+        return new CachedResult(hash(identity), identity, gzip(identity), brotli(identity, brotliQuality));
+    }
+
+    public int weight() {
+        return identity.length + gzip.length + (brotli == null ? 0 : brotli.length);
+    }
+
+    // Picks the smallest representation the client accepts; returns the Content-Encoding token or null
+    public String selectEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean br = false;
+        boolean gz = false;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim().toLowerCase();
+            boolean refused = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (refused) {
+                continue;
+            }
+            if (coding.equals("br")) {
+                br = true;
+            } else if (coding.equals("gzip") || coding.equals("*")) {
+                gz = true;
+            }
+        }
+        if (br && brotli != null) {
+            return "br";
+        }
+        return gz ? "gzip" : null;
+    }
+
+    // Strong ETag of the representation; each encoding is a different byte sequence, so it gets its own
+    public String etag(String encoding) {
+        if ("br".equals(encoding)) {
+            return "\"" + hash + "-br\"";
+        }
+        return "gzip".equals(encoding) ? "\"" + hash + "-gz\"" : "\"" + hash + "\"";
+    }
+
+    public byte[] body(String encoding) {
+        if ("br".equals(encoding)) {
+            return brotli;
+        }
+        return "gzip".equals(encoding) ? gzip : identity;
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] brotli(byte[] content, int quality) throws IOException {
+        if (!Brotli4jLoader.isAvailable()) {
+            return null;
+        }
+        return Encoder.compress(content, new Encoder.Parameters().setQuality(quality));
+    }
+}
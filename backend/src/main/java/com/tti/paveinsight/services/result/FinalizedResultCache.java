@@ -0,0 +1,77 @@
+package com.tti.paveinsight.services.result;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.utils.CacheUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * In-memory cache of finalized result GeoJSON documents. A finalized result never changes, so
+ * it is read from storage once, hashed for a strong ETag and compressed once per encoding.
+ * Concurrent misses for the same job share a single load. Entries are evicted by total size
+ * and invalidated whenever a job is reset, deleted or receives a new reply. A document over the
+ * per-entry limit is remembered by an empty marker entry, so it is not read again on every request.
+ */
+@Service
+public class FinalizedResultCache {
+
+    private static final CachedResult TOO_LARGE = new CachedResult("", new byte[0], new byte[0], null);
+
+    private final ResultStorageService resultStorageService;
+
+    private final AsyncCache<Long, CachedResult> cache;
+
+    private final int maxEntryBytes;
+
+    private final int brotliQuality;
+
+    public FinalizedResultCache(ResultStorageService resultStorageService,
+                                @Value("${paveinsight.result-cache.max-bytes:268435456}") long maxBytes,
+                                @Value("${paveinsight.result-cache.max-entry-bytes:67108864}") int maxEntryBytes,
+                                @Value("${paveinsight.result-cache.brotli-quality:6}") int brotliQuality) {
+        this.resultStorageService = resultStorageService;
+        this.maxEntryBytes = maxEntryBytes;
+        this.brotliQuality = brotliQuality;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long jobId, CachedResult result) -> result.weight())
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached document for a finalized job, loading it on a miss. Returns null when the
+     * job has no result or the document is larger than the per-entry limit; callers then stream it.
+     */
+    public CachedResult get(Job job) {
+        CachedResult result = CacheUtils.get(cache, job.getId(), jobId -> load(job)); // Caffeine drops a null result
+        return result == TOO_LARGE ? null : result;
+    }
+
+    @EventListener
+    public void onJobResultInvalidated(JobResultInvalidatedEvent event) {
+        cache.synchronous().invalidate(event.jobId());
+    }
+
+    private CachedResult load(Job job) {
+        if (!resultStorageService.hasGeoJson(job)) {
+            return null;
+        }
+        try (InputStream geoJson = resultStorageService.openGeoJson(job)) {
+            byte[] identity = geoJson.readNBytes(maxEntryBytes + 1);
+            if (identity.length > maxEntryBytes) {
+                return TOO_LARGE;
+            }
+            return CachedResult.encode(identity, brotliQuality);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the result of job " + job.getId(), e);
+        }
+    }
+}
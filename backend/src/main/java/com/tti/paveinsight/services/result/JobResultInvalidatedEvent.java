@@ -0,0 +1,8 @@
+package com.tti.paveinsight.services.result;
+
+/**
+ * Published whenever anything derived from a job's result must be dropped: a new reply replaced
+ * the result, the job was deleted, or its finalization was reset.
+ */
+public record JobResultInvalidatedEvent(Long jobId) {
+}
@@ -2,12 +2,16 @@ package com.tti.paveinsight.services.result;
 
 import com.tti.paveinsight.services.storage.StorageService;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class ResultAnalysisService {
@@ -15,16 +19,14 @@ public class ResultAnalysisService {
     private StorageService storageService;
 
     public File retrieveShapefileFromS3(String bucketName, String fileName) throws IOException {
-        // Fetch shapefile content as a string
-        String shapefileContent = storageService.readFile(bucketName, fileName);
-
         // Save content to a local file for analysis
         File localFile = new File("temp/" + fileName); // Ensure temp directory exists
         if (!localFile.getParentFile().exists()) {
             localFile.getParentFile().mkdirs();
         }
-        try (FileWriter writer = new FileWriter(localFile)) {
-            writer.write(shapefileContent);
+        // Copy straight from the object stream instead of going through a String
+        try (InputStream shapefileContent = storageService.openFile(bucketName, fileName)) {
+            Files.copy(shapefileContent, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
 
         return localFile;
@@ -32,6 +34,6 @@ public class ResultAnalysisService {
 
     public void analyzeShapefile(File shapefile) {
         // Placeholder for actual analysis logic
-        System.out.println("Analyzing shapefile: " + shapefile.getAbsolutePath());
+        log.info("Analyzing shapefile {}", shapefile.getAbsolutePath());
     }
 }
@@ -0,0 +1,79 @@
+package com.tti.paveinsight.services.result;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.utils.CacheUtils;
+import com.tti.paveinsight.utils.geo.FeatureIndex;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureReader;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed and spatially indexed result features per job, bounded by the total number of vertices held.
+ */
+@Service
+public class ResultFeatureCache {
+
+    private final ResultStorageService resultStorageService;
+
+    private final ObjectMapper objectMapper;
+
+    private final AsyncCache<Long, FeatureIndex> cache;
+
+    public ResultFeatureCache(ResultStorageService resultStorageService, ObjectMapper objectMapper,
+                              @Value("${paveinsight.feature-cache.max-vertices:20000000}") long maxVertices) {
+        this.resultStorageService = resultStorageService;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxVertices)
+                .weigher((Long jobId, FeatureIndex index) -> vertexCount(index.getFeatures()))
+                .buildAsync();
+    }
+
+    // Index over the job's result features; empty when the job has no result yet
+    public FeatureIndex get(Job job) {
+        if (!resultStorageService.hasGeoJson(job)) {
+            return FeatureIndex.empty();
+        }
+        return CacheUtils.get(cache, job.getId(), jobId -> load(job));
+    }
+
+    @EventListener
+    public void onJobResultInvalidated(JobResultInvalidatedEvent event) {
+        cache.synchronous().invalidate(event.jobId());
+    }
+
+    private FeatureIndex load(Job job) {
+        List<ResultFeature> features = new ArrayList<>();
+        try (InputStream geoJson = resultStorageService.openGeoJson(job);
+             GeoJsonFeatureReader reader = new GeoJsonFeatureReader(geoJson, objectMapper)) {
+            for (ResultFeature feature = reader.next(); feature != null; feature = reader.next()) {
+                if (feature.getGeometry() != null && !feature.getGeometry().isEmpty()) {
+                    features.add(feature);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read result features of job " + job.getId(), e);
+        }
+        return new FeatureIndex(Collections.unmodifiableList(features));
+    }
+
+    private static int vertexCount(List<ResultFeature> features) {
+        long vertices = 0;
+        for (ResultFeature feature : features) {
+            vertices += feature.getGeometry().getNumPoints();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, vertices);
+    }
+}
@@ -0,0 +1,201 @@
+package com.tti.paveinsight.services.result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.services.storage.StorageService;
+import com.tti.paveinsight.utils.S3Utils;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureReader;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureWriter;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import com.tti.paveinsight.utils.geo.SeamStitcher;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the result documents of jobs over adjacent or overlapping areas, such as the sub-jobs of
+ * a split job, into one. The documents are streamed from storage a feature at a time. A feature
+ * is written out right away unless it reaches into the area of another document; such seam
+ * features are held back and deduplicated and stitched by a {@link SeamStitcher} at the end. Memory
+ * use therefore grows with the seams, not with the size of the results. A document without a
+ * known area is treated as all seam.
+ */
+@Slf4j
+@Service
+public class ResultMergeService {
+
+    private final ResultStorageService resultStorageService;
+
+    private final StorageService storageService;
+
+    private final JobRepository jobRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper;
+
+    private final S3Utils s3Utils;
+
+    private final double seamToleranceMeters;
+
+    private final Timer mergeTime;
+
+    private final DistributionSummary seamFeatures;
+
+    public ResultMergeService(ResultStorageService resultStorageService, StorageService storageService,
+                              JobRepository jobRepository, ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper, S3Utils s3Utils, MeterRegistry meterRegistry,
+                              @Value("${paveinsight.aoi.seam-tolerance-m:5}") double seamToleranceMeters) {
+        this.resultStorageService = resultStorageService;
+        this.storageService = storageService;
+        this.jobRepository = jobRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.s3Utils = s3Utils;
+        this.seamToleranceMeters = seamToleranceMeters;
+        this.mergeTime = Timer.builder("paveinsight.results.merge")
+                .description("Time to merge the results of a split job into one document")
+                .register(meterRegistry);
+        this.seamFeatures = DistributionSummary.builder("paveinsight.results.merge.seam.features")
+                .description("Features held back on the seams of one merge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Merges the results of a split job's completed sub-jobs and stores the merged document next to
+     * theirs. Returns its URL; recording it as the parent's result is left to the caller.
+     */
+    public String mergeSubJobResults(Job parent) throws IOException {
+        List<Job> subJobs = jobRepository.findByParentJobIdOrderByIdAsc(parent.getId());
+        List<MergeSource> sources = new ArrayList<>(subJobs.size());
+        String siblingUrl = null;
+        for (Job subJob : subJobs) {
+            if (resultStorageService.hasGeoJson(subJob)) {
+                sources.add(new MergeSource(subJob, coverage(subJob.getGeoJson())));
+                siblingUrl = siblingUrl != null ? siblingUrl : subJob.getResultGeoJsonS3URL();
+            }
+        }
+        if (siblingUrl == null) {
+            throw new IOException("No sub-job of job " + parent.getId() + " has a stored result");
+        }
+
+        long start = System.nanoTime();
+        Path merged = Files.createTempFile("merged-" + parent.getId() + "-", ".geojson");
+        try {
+            try (OutputStream out = Files.newOutputStream(merged)) {
+                merge(sources, out);
+            }
+            String bucketName = s3Utils.extractBucketNameFromUrl(siblingUrl);
+            String fileName;
+            try (InputStream in = Files.newInputStream(merged)) {
+                fileName = storageService.uploadFile(bucketName, "job-" + parent.getId() + "-merged.geojson", in);
+            }
+            eventPublisher.publishEvent(new JobResultInvalidatedEvent(parent.getId())); // A re-merge replaces the result
+            return s3Utils.replaceFileName(siblingUrl, fileName);
+        } finally {
+            Files.deleteIfExists(merged);
+            mergeTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Writes the merged FeatureCollection of the sources to the stream
+    public void merge(List<MergeSource> sources, OutputStream out) throws IOException {
+        List<PreparedGeometry> seams = seams(sources);
+        SeamStitcher stitcher = new SeamStitcher(seamToleranceMeters);
+        int written = 0;
+        try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(out, objectMapper)) {
+            for (int i = 0; i < sources.size(); i++) {
+                PreparedGeometry seam = seams.get(i);
+                try (InputStream in = resultStorageService.openGeoJson(sources.get(i).job());
+                     GeoJsonFeatureReader reader = new GeoJsonFeatureReader(in, objectMapper)) {
+                    for (ResultFeature feature; (feature = reader.next()) != null; ) {
+                        Geometry geometry = feature.getGeometry();
+                        if (geometry != null && (seam == null || seam.intersects(geometry))) {
+                            stitcher.add(feature, i);
+                        } else {
+                            writer.write(feature);
+                            written++;
+                        }
+                    }
+                }
+            }
+            int held = stitcher.size();
+            List<ResultFeature> stitched = stitcher.stitch();
+            for (ResultFeature feature : stitched) {
+                writer.write(feature);
+            }
+            seamFeatures.record(held);
+            log.info("Merged {} results: {} features written directly, {} seam features stitched into {}",
+                    sources.size(), written, held, stitched.size());
+        }
+    }
+
+    /**
+     * The part of each source's area that lies within the tolerance of another source's area, or
+     * null when the source's area is not known.
+     */
+    private List<PreparedGeometry> seams(List<MergeSource> sources) {
+        double tolerance = seamToleranceMeters / 111_320;
+        List<PreparedGeometry> seams = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            Geometry coverage = sources.get(i).coverage();
+            if (coverage == null) {
+                seams.add(null);
+                continue;
+            }
+            List<Geometry> overlaps = new ArrayList<>();
+            for (int j = 0; j < sources.size(); j++) {
+                Geometry other = sources.get(j).coverage();
+                if (j == i || other == null) {
+                    if (j != i) {
+                        overlaps.add(coverage); // Anything may overlap an unknown area
+                    }
+                    continue;
+                }
+                if (coverage.getEnvelopeInternal().distance(other.getEnvelopeInternal()) <= tolerance) {
+                    overlaps.add(coverage.intersection(other.buffer(tolerance)));
+                }
+            }
+            Geometry seam = GeoJsonGeometries.FACTORY.buildGeometry(overlaps).union();
+            seams.add(PreparedGeometryFactory.prepare(seam));
+        }
+        return seams;
+    }
+
+    // The geometry of an AOI Feature, or null if there is none
+    private Geometry coverage(String geoJson) {
+        if (geoJson == null) {
+            return null;
+        }
+        try {
+            JsonNode feature = objectMapper.readTree(geoJson);
+            return GeoJsonGeometries.read(feature.has("geometry") ? feature.get("geometry") : feature);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unreadable AOI, merging its result as all seam: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // A result document to merge and the area it covers, null if unknown
+    public record MergeSource(Job job, Geometry coverage) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.tti.paveinsight.services.result;
+
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobResult;
+import com.tti.paveinsight.repositories.JobResultRepository;
+import com.tti.paveinsight.services.storage.StorageService;
+import com.tti.paveinsight.utils.S3Utils;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+@Service
+@AllArgsConstructor
+public class ResultStorageService {
+
+    private final StorageService storageService;
+
+    private final JobResultRepository jobResultRepository;
+
+    private final S3Utils s3Utils;
+
+    public boolean hasGeoJson(Job job) {
+        return job.getResultGeoJsonS3URL() != null
+                || jobResultRepository.existsByIdAndResultGeoJsonDataIsNotNull(job.getId());
+    }
+
+    // Opens the job's result GeoJSON for reading; the caller closes the stream
+    public InputStream openGeoJson(Job job) throws IOException {
+        String geoJsonURL = job.getResultGeoJsonS3URL();
+        if (geoJsonURL != null) {
+            return storageService.openFile(s3Utils.extractBucketNameFromUrl(geoJsonURL),
+                    s3Utils.extractFileNameFromUrl(geoJsonURL));
+        }
+        // Jobs completed before results were streamed still have the document inline
+        String inline = jobResultRepository.findById(job.getId()).map(JobResult::getResultGeoJsonData).orElse(null);
+        if (inline == null) {
+            throw new IOException("No result GeoJSON stored for job " + job.getId());
+        }
+        return new ByteArrayInputStream(inline.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package com.tti.paveinsight.services.result;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.utils.CacheUtils;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureWriter;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Level-of-detail pyramid of result GeoJSON documents for overview maps. Level 0 is the full
+ * resolution document; level n is simplified with the n-th configured tolerance (in degrees)
+ * and its coordinates rounded to a precision finer than that tolerance. Levels are built lazily
+ * on first request from the parsed features and kept, encoded, in a size-bounded cache.
+ */
+@Service
+public class SimplifiedResultCache {
+
+    private final ResultFeatureCache resultFeatureCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final double[] tolerances;
+
+    private final int brotliQuality;
+
+    private final AsyncCache<LevelKey, CachedResult> cache;
+
+    public SimplifiedResultCache(ResultFeatureCache resultFeatureCache, ObjectMapper objectMapper,
+                                 @Value("${paveinsight.lod.tolerances:0.00002,0.0001,0.0005}") double[] tolerances,
+                                 @Value("${paveinsight.lod.cache-max-bytes:134217728}") long maxBytes,
+                                 @Value("${paveinsight.result-cache.brotli-quality:6}") int brotliQuality) {
+        this.resultFeatureCache = resultFeatureCache;
+        this.objectMapper = objectMapper;
+        this.tolerances = tolerances;
+        this.brotliQuality = brotliQuality;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((LevelKey key, CachedResult result) -> result.weight())
+                .buildAsync();
+    }
+
+    // Highest supported level; level 0 is the unsimplified document
+    public int maxLevel() {
+        return tolerances.length;
+    }
+
+    public CachedResult get(Job job, int level) {
+        if (level < 1 || level > maxLevel()) {
+            throw new IllegalArgumentException("lod must be between 0 and " + maxLevel());
+        }
+        return CacheUtils.get(cache, new LevelKey(job.getId(), level), key -> build(job, tolerances[level - 1]));
+    }
+
+    @EventListener
+    public void onJobResultInvalidated(JobResultInvalidatedEvent event) {
+        cache.asMap().keySet().removeIf(key -> key.jobId().equals(event.jobId()));
+    }
+
+    private CachedResult build(Job job, double tolerance) {
+        List<ResultFeature> features = resultFeatureCache.get(job).getFeatures();
+        Geometry[] simplified = simplify(features, tolerance);
+        // One decimal finer than the tolerance keeps rounding error well inside it
+        int decimals = Math.min(15, Math.max(0, (int) Math.ceil(-Math.log10(tolerance)) + 1));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(out, objectMapper, decimals)) {
+                for (int i = 0; i < features.size(); i++) {
+                    ResultFeature feature = features.get(i);
+                    writer.write(feature.getId(), simplified[i], feature.getProperties());
+                }
+            }
+            return CachedResult.encode(out.toByteArray(), brotliQuality);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build simplified result of job " + job.getId(), e);
+        }
+    }
+
+    /*
+     * Simplifies the whole network at once so that segments do not cross each other or collapse
+     * where they did not before; falls back to per-feature simplification if the collection
+     * structure is not preserved.
+     */
+    private static Geometry[] simplify(List<ResultFeature> features, double tolerance) {
+        Geometry[] geometries = new Geometry[features.size()];
+        for (int i = 0; i < geometries.length; i++) {
+            geometries[i] = features.get(i).getGeometry();
+        }
+        Geometry network = TopologyPreservingSimplifier.simplify(
+                GeoJsonGeometries.FACTORY.createGeometryCollection(geometries), tolerance);
+        if (network.getNumGeometries() == geometries.length) {
+            for (int i = 0; i < geometries.length; i++) {
+                geometries[i] = network.getGeometryN(i);
+            }
+        } else {
+            for (int i = 0; i < geometries.length; i++) {
+                geometries[i] = TopologyPreservingSimplifier.simplify(geometries[i], tolerance);
+            }
+        }
+        return geometries;
+    }
+
+    private record LevelKey(Long jobId, int level) {
+    }
+}
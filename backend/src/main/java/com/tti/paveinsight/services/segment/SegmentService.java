@@ -0,0 +1,15 @@
+package com.tti.paveinsight.services.segment;
+
+import com.tti.paveinsight.dto.JobSegmentDto;
+import com.tti.paveinsight.dto.SegmentStatsDto;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.PciCondition;
+
+import java.util.List;
+
+public interface SegmentService {
+    int replaceSegments(Job job);
+    List<JobSegmentDto> getSegments(Long jobId, Double minPci, Double maxPci, PciCondition condition, int limit);
+    SegmentStatsDto getStats(Long jobId);
+    List<JobSegmentDto> getFinalizedSegments(String bbox, Double minPci, Double maxPci, PciCondition condition, int limit);
+}
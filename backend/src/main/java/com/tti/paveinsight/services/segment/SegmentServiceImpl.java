@@ -0,0 +1,170 @@
+package com.tti.paveinsight.services.segment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.dto.JobSegmentDto;
+import com.tti.paveinsight.dto.SegmentConditionStatsDto;
+import com.tti.paveinsight.dto.SegmentStatsDto;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.PciCondition;
+import com.tti.paveinsight.repositories.JobSegmentRepository;
+import com.tti.paveinsight.services.result.ResultStorageService;
+import com.tti.paveinsight.utils.geo.GeoJsonFeatureReader;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.GeoMeasure;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the job_segment table: one row per result feature with its PCI score, condition band,
+ * length and bounding box, so that analytics run as indexed SQL instead of parsing result documents.
+ */
+@Service
+public class SegmentServiceImpl implements SegmentService {
+
+    private static final String INSERT_SEGMENT = "insert into job_segment (job_id, segment_index, feature_id, " +
+            "street_name, surface, pci, condition_class, length_meters, min_lon, min_lat, max_lon, max_lat) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JobSegmentRepository jobSegmentRepository;
+
+    private final ResultStorageService resultStorageService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    public SegmentServiceImpl(JobSegmentRepository jobSegmentRepository, ResultStorageService resultStorageService,
+                              JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                              @Value("${paveinsight.segments.batch-size:1000}") int batchSize) {
+        this.jobSegmentRepository = jobSegmentRepository;
+        this.resultStorageService = resultStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replaces the job's segment rows with the features of its current result document. The
+     * document is streamed and rows are inserted in JDBC batches, so memory stays bounded by
+     * the batch size. Returns the number of rows written.
+     */
+    @Transactional
+    public int replaceSegments(Job job) {
+        jdbcTemplate.update("delete from job_segment where job_id = ?", job.getId());
+        if (!resultStorageService.hasGeoJson(job)) {
+            return 0;
+        }
+        int index = 0;
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        try (InputStream geoJson = resultStorageService.openGeoJson(job);
+             GeoJsonFeatureReader reader = new GeoJsonFeatureReader(geoJson, objectMapper)) {
+            for (ResultFeature feature = reader.next(); feature != null; feature = reader.next(), index++) {
+                if (feature.getGeometry() == null || feature.getGeometry().isEmpty()) {
+                    continue;
+                }
+                batch.add(toRow(job.getId(), index, feature));
+                if (batch.size() == batchSize) {
+                    jdbcTemplate.batchUpdate(INSERT_SEGMENT, batch);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read result features of job " + job.getId(), e);
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SEGMENT, batch);
+        }
+        return (int) jobSegmentRepository.countByJobId(job.getId());
+    }
+
+    public List<JobSegmentDto> getSegments(Long jobId, Double minPci, Double maxPci, PciCondition condition, int limit) {
+        return jobSegmentRepository.findSegments(jobId, minPci, maxPci, condition, PageRequest.of(0, limit));
+    }
+
+    public SegmentStatsDto getStats(Long jobId) {
+        List<SegmentConditionStatsDto> conditions = jobSegmentRepository.findConditionStats(jobId);
+        long segmentCount = 0;
+        long scoredSegmentCount = 0;
+        double totalLength = 0;
+        double scoredLength = 0;
+        double pciSum = 0;
+        double pciLengthSum = 0;
+        for (SegmentConditionStatsDto condition : conditions) {
+            segmentCount += condition.getSegmentCount();
+            totalLength += condition.getLengthMeters();
+            if (condition.getConditionClass() != null) {
+                scoredSegmentCount += condition.getSegmentCount();
+                scoredLength += condition.getLengthMeters();
+                pciSum += condition.getPciSum();
+                pciLengthSum += condition.getPciLengthSum();
+            }
+        }
+        Double averagePci = scoredSegmentCount == 0 ? null : pciSum / scoredSegmentCount;
+        Double lengthWeightedPci = scoredLength == 0 ? null : pciLengthSum / scoredLength;
+        return new SegmentStatsDto(jobId, segmentCount, scoredSegmentCount, totalLength, averagePci,
+                lengthWeightedPci, conditions);
+    }
+
+    public List<JobSegmentDto> getFinalizedSegments(String bbox, Double minPci, Double maxPci, PciCondition condition,
+                                                    int limit) {
+        Envelope box = GeoJsonGeometries.parseBbox(bbox);
+        return jobSegmentRepository.findFinalizedSegments(box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY(),
+                minPci, maxPci, condition, PageRequest.of(0, limit));
+    }
+
+    private static Object[] toRow(Long jobId, int index, ResultFeature feature) {
+        Double pci = number(feature.getProperties().get("PCI"));
+        PciCondition condition = PciCondition.of(pci);
+        Envelope envelope = feature.getGeometry().getEnvelopeInternal();
+        return new Object[]{
+                jobId, index,
+                text(feature.getId()),
+                text(feature.getProperties().get("StreetName")),
+                text(feature.getProperties().get("Surface")),
+                pci,
+                condition == null ? null : condition.name(),
+                GeoMeasure.lengthMeters(feature.getGeometry()),
+                envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY()
+        };
+    }
+
+    // Numeric property value; null when missing, not a number or not finite
+    private static Double number(Object value) {
+        double number;
+        if (value instanceof Number numeric) {
+            number = numeric.doubleValue();
+        } else if (value instanceof String text && !text.isBlank()) {
+            try {
+                number = Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        return Double.isFinite(number) ? number : null;
+    }
+
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
+}
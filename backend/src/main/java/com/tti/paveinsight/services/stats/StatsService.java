@@ -0,0 +1,179 @@
+package com.tti.paveinsight.services.stats;
+
+import com.tti.paveinsight.dto.RequestStatsDto;
+import com.tti.paveinsight.dto.StatusCountDto;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.repositories.RequestRepository;
+import com.tti.paveinsight.utils.TransactionUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request and job counts per status, kept in memory so the dashboard never runs COUNT queries.
+ * Every status change reports itself here and is applied once its transaction has committed.
+ * The counters are replaced with grouped counts from the database at startup and periodically,
+ * which corrects any drift from writes that bypass the services or changes racing a reconciliation.
+ * The counts are also exported as the paveinsight.requests and paveinsight.jobs gauges by status.
+ */
+@Slf4j
+@Service
+public class StatsService {
+
+    private static final String NO_STATUS = "NONE";
+
+    private final RequestRepository requestRepository;
+
+    private final JobRepository jobRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService reconciler;
+
+    private final Set<String> requestGauges = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> jobGauges = ConcurrentHashMap.newKeySet();
+
+    private volatile Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+
+    private volatile Map<String, LongAdder> jobs = new ConcurrentHashMap<>();
+
+    private volatile Date reconciledAt;
+
+    public StatsService(RequestRepository requestRepository, JobRepository jobRepository, MeterRegistry meterRegistry,
+                        @Value("${paveinsight.stats.reconcile-interval-ms:300000}") long reconcileIntervalMillis) {
+        this.requestRepository = requestRepository;
+        this.jobRepository = jobRepository;
+        this.meterRegistry = meterRegistry;
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcile, 0, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // A null status means the request did not exist before (from) or no longer exists (to)
+    public void requestStatusChanged(String from, String to) {
+        TransactionUtils.afterCommit(() -> {
+            move(requests, from, to);
+            registerGauges();
+        });
+    }
+
+    public void jobStatusChanged(String from, String to) {
+        TransactionUtils.afterCommit(() -> {
+            move(jobs, from, to);
+            registerGauges();
+        });
+    }
+
+    public RequestStatsDto getStats() {
+        Map<String, Long> requestCounts = snapshot(requests);
+        Map<String, Long> jobCounts = snapshot(jobs);
+        return new RequestStatsDto(total(requestCounts), requestCounts, total(jobCounts), jobCounts, reconciledAt);
+    }
+
+    public long getRequestCount() {
+        return total(snapshot(requests));
+    }
+
+    public long getRequestCount(String status) {
+        return count(requests, status);
+    }
+
+    public long getJobCount(String status) {
+        return count(jobs, status);
+    }
+
+    public void reconcile() {
+        try {
+            requests = toCounters(requestRepository.countByStatusGrouped());
+            jobs = toCounters(jobRepository.countByStatusGrouped());
+            reconciledAt = new Date();
+            registerGauges();
+        } catch (RuntimeException e) {
+            log.warn("Error reconciling request statistics: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+
+    // One gauge per status seen so far; a gauge reads the current counters, so it survives reconciliation
+    private void registerGauges() {
+        for (String status : requests.keySet()) {
+            if (requestGauges.add(status)) {
+                Gauge.builder("paveinsight.requests", this, stats -> stats.getRequestCount(status))
+                        .description("Requests by status")
+                        .tag("status", status)
+                        .register(meterRegistry);
+            }
+        }
+        for (String status : jobs.keySet()) {
+            if (jobGauges.add(status)) {
+                Gauge.builder("paveinsight.jobs", this, stats -> stats.getJobCount(status))
+                        .description("Jobs by status")
+                        .tag("status", status)
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    private static long count(Map<String, LongAdder> counters, String status) {
+        LongAdder count = counters.get(status);
+        return count == null ? 0 : Math.max(0, count.sum());
+    }
+
+    private static void move(Map<String, LongAdder> counters, String from, String to) {
+        if (from != null && from.equals(to)) {
+            return;
+        }
+        if (from != null) {
+            counters.computeIfAbsent(from, status -> new LongAdder()).decrement();
+        }
+        if (to != null) {
+            counters.computeIfAbsent(to, status -> new LongAdder()).increment();
+        }
+    }
+
+    private static Map<String, LongAdder> toCounters(List<StatusCountDto> counts) {
+        Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+        for (StatusCountDto count : counts) {
+            counters.computeIfAbsent(count.getStatus() == null ? NO_STATUS : count.getStatus(), status -> new LongAdder())
+                    .add(count.getCount());
+        }
+        return counters;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((status, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                snapshot.put(status, value);
+            }
+        });
+        return snapshot;
+    }
+
+    private static long total(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,145 @@
+package com.tti.paveinsight.services.storage;
+
+import com.tti.paveinsight.utils.ThreadUtils;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Uploads streams of unknown length to S3 without buffering them whole. The stream is cut into
+ * part-sized buffers that are uploaded in parallel. Each upload owns {@code concurrency} buffers
+ * which are reused, and the stream is only read into a free one, so memory stays at part size x
+ * concurrency whatever the object size. Streams shorter than one part are sent with a single PUT. A failed part aborts
+ * the multipart upload so no orphaned parts are left behind.
+ */
+@Service
+public class MultipartUploader {
+
+    // S3 rejects parts below 5 MiB except for the last one
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+
+    private final int partSize;
+
+    private final int concurrency;
+
+    private final ExecutorService executor;
+
+    public MultipartUploader(S3Client s3Client,
+                             @Value("${paveinsight.storage.part-size:8388608}") int partSize,
+                             @Value("${paveinsight.storage.upload-concurrency:4}") int concurrency,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.s3Client = s3Client;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.executor = ThreadUtils.newIoExecutor("s3-upload", 0, virtualThreads);
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public void upload(String bucketName, String key, InputStream content) throws IOException {
+        byte[] first = new byte[partSize];
+        int firstLength = content.readNBytes(first, 0, partSize);
+        if (firstLength < partSize) {
+            s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(key).build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(first, 0, firstLength), firstLength));
+            return;
+        }
+
+        String uploadId = s3Client.createMultipartUpload(request -> request.bucket(bucketName).key(key)).uploadId();
+        try {
+            List<CompletedPart> parts = uploadParts(bucketName, key, uploadId, content, first);
+            s3Client.completeMultipartUpload(request -> request.bucket(bucketName).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+        } catch (IOException | RuntimeException e) {
+            abort(bucketName, key, uploadId, e);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<CompletedPart> uploadParts(String bucketName, String key, String uploadId, InputStream content,
+                                            byte[] first) throws IOException {
+        // Free buffers; taking one blocks the reader until a part in flight has been sent
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(concurrency);
+        buffers.add(first);
+        for (int i = 1; i < concurrency; i++) {
+            buffers.add(new byte[partSize]);
+        }
+        List<Future<CompletedPart>> uploads = new ArrayList<>();
+        try {
+            byte[] buffer = buffers.take();
+            int length = partSize; // The first buffer is already full
+            for (int partNumber = 1; length > 0; partNumber++) {
+                uploads.add(executor.submit(uploadPart(bucketName, key, uploadId, partNumber, buffer, length, buffers)));
+                failFast(uploads);
+                buffer = buffers.take();
+                length = content.readNBytes(buffer, 0, partSize);
+            }
+            List<CompletedPart> parts = new ArrayList<>(uploads.size());
+            for (Future<CompletedPart> upload : uploads) {
+                parts.add(upload.get());
+            }
+            parts.sort(Comparator.comparing(CompletedPart::partNumber));
+            return parts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Upload of " + key + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Upload of part of " + key + " failed", e.getCause());
+        } finally {
+            uploads.forEach(upload -> upload.cancel(true));
+        }
+    }
+
+    private Callable<CompletedPart> uploadPart(String bucketName, String key, String uploadId, int partNumber,
+                                               byte[] buffer, int length, BlockingQueue<byte[]> buffers) {
+        return () -> {
+            try {
+                String eTag = s3Client.uploadPart(request -> request.bucket(bucketName).key(key).uploadId(uploadId)
+                                .partNumber(partNumber).contentLength((long) length),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } finally {
+                buffers.add(buffer);
+            }
+        };
+    }
+
+    // Stops reading the stream as soon as any part has failed
+    private static void failFast(List<Future<CompletedPart>> uploads) throws ExecutionException, InterruptedException {
+        for (Future<CompletedPart> upload : uploads) {
+            if (upload.isDone()) {
+                upload.get();
+            }
+        }
+    }
+
+    private void abort(String bucketName, String key, String uploadId, Exception cause) {
+        try {
+            s3Client.abortMultipartUpload(request -> request.bucket(bucketName).key(key).uploadId(uploadId));
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
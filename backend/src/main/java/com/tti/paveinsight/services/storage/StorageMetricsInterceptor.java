@@ -0,0 +1,83 @@
+package com.tti.paveinsight.services.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.SdkHttpHeaders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every S3 call by operation and outcome (paveinsight.storage.requests) and records the
+ * bytes moved by object reads and writes (paveinsight.storage.bytes). For streamed reads the
+ * time is to the response headers; the body is read by the caller afterwards.
+ */
+public class StorageMetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("paveinsight.storage.start");
+
+    private final MeterRegistry meterRegistry;
+
+    public StorageMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        record(operation, "success", executionAttributes);
+        switch (operation) {
+            case "GetObject" -> recordBytes(operation, "read", contentLength(context.httpResponse()));
+            case "PutObject", "UploadPart" -> recordBytes(operation, "write", contentLength(context.httpRequest()));
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME), "error", executionAttributes);
+    }
+
+    private void record(String operation, String outcome, ExecutionAttributes executionAttributes) {
+        Long start = executionAttributes.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        Timer.builder("paveinsight.storage.requests")
+                .description("S3 call latency")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordBytes(String operation, String direction, long bytes) {
+        if (bytes < 0) {
+            return;
+        }
+        DistributionSummary.builder("paveinsight.storage.bytes")
+                .description("Object bytes read from or written to S3 per call")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private static long contentLength(SdkHttpHeaders message) {
+        return message.firstMatchingHeader("Content-Length").map(Long::parseLong).orElse(-1L);
+    }
+}
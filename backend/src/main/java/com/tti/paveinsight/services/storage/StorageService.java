@@ -1,18 +1,24 @@
 package com.tti.paveinsight.services.storage;
 
+import com.tti.paveinsight.dto.UploadPartDto;
+import com.tti.paveinsight.dto.UploadSessionDto;
 import org.springframework.stereotype.Service;
 
 import org.springframework.util.StreamUtils;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.Bucket;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListPartsResponse;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,8 +28,11 @@ public class StorageService {
 
     private final S3Client s3Client;
 
-    public StorageService(S3Client s3Client) {
+    private final MultipartUploader multipartUploader;
+
+    public StorageService(S3Client s3Client, MultipartUploader multipartUploader) {
         this.s3Client = s3Client;
+        this.multipartUploader = multipartUploader;
     }
 
     public List<String> listBuckets() {
@@ -38,18 +47,73 @@ public class StorageService {
         // Generate a unique file name to prevent overwriting
         String uniqueFileName = UUID.randomUUID() + "-" + originalFileName;
 
-        // Upload the file to S3
-        s3Client.putObject(
-                PutObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(uniqueFileName)
-                        .build(),
-                software.amazon.awssdk.core.sync.RequestBody.fromInputStream(fileContent, fileContent.available())
-        );
+        // Stream the file to S3 in parts; the length does not need to be known up front
+        multipartUploader.upload(bucketName, uniqueFileName, fileContent);
 
         return uniqueFileName;
     }
 
+    // Starts a resumable upload; parts are then sent one request each and may be retried or resumed
+    public UploadSessionDto startUpload(String bucketName, String originalFileName) {
+        String uniqueFileName = UUID.randomUUID() + "-" + originalFileName;
+        String uploadId = s3Client.createMultipartUpload(request -> request.bucket(bucketName).key(uniqueFileName))
+                .uploadId();
+        return new UploadSessionDto(bucketName, uniqueFileName, uploadId, multipartUploader.getPartSize(), List.of());
+    }
+
+    // Streams one part of a resumable upload to S3; re-sending a part number replaces it
+    public UploadPartDto uploadPart(String bucketName, String key, String uploadId, int partNumber,
+                                    InputStream content, long contentLength) {
+        if (partNumber < 1 || partNumber > 10_000) {
+            throw new IllegalArgumentException("Part number must be between 1 and 10000");
+        }
+        if (contentLength <= 0 || contentLength > multipartUploader.getPartSize()) {
+            throw new IllegalArgumentException("Part size must be between 1 and " + multipartUploader.getPartSize() + " bytes");
+        }
+        String eTag = s3Client.uploadPart(request -> request.bucket(bucketName).key(key).uploadId(uploadId)
+                        .partNumber(partNumber).contentLength(contentLength),
+                RequestBody.fromInputStream(content, contentLength)).eTag();
+        return new UploadPartDto(partNumber, eTag, contentLength);
+    }
+
+    // Parts stored so far, for a client resuming an interrupted upload
+    public UploadSessionDto getUpload(String bucketName, String key, String uploadId) {
+        List<UploadPartDto> parts = listParts(bucketName, key, uploadId).stream()
+                .map(part -> new UploadPartDto(part.partNumber(), part.eTag(), part.size()))
+                .toList();
+        return new UploadSessionDto(bucketName, key, uploadId, multipartUploader.getPartSize(), parts);
+    }
+
+    public String completeUpload(String bucketName, String key, String uploadId) {
+        List<CompletedPart> parts = listParts(bucketName, key, uploadId).stream()
+                .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                .toList();
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("Upload " + uploadId + " has no parts");
+        }
+        s3Client.completeMultipartUpload(request -> request.bucket(bucketName).key(key).uploadId(uploadId)
+                .multipartUpload(upload -> upload.parts(parts)));
+        return key;
+    }
+
+    public void abortUpload(String bucketName, String key, String uploadId) {
+        s3Client.abortMultipartUpload(request -> request.bucket(bucketName).key(key).uploadId(uploadId));
+    }
+
+    private List<Part> listParts(String bucketName, String key, String uploadId) {
+        List<Part> parts = new ArrayList<>();
+        Integer marker = null;
+        ListPartsResponse page;
+        do {
+            Integer after = marker;
+            page = s3Client.listParts(request -> request.bucket(bucketName).key(key).uploadId(uploadId)
+                    .partNumberMarker(after));
+            parts.addAll(page.parts());
+            marker = page.nextPartNumberMarker();
+        } while (Boolean.TRUE.equals(page.isTruncated()));
+        return parts;
+    }
+
     public String readFile(String bucketName, String fileName) throws IOException {
         // Fetch the file from S3
         ResponseInputStream<GetObjectResponse> response = s3Client.getObject(
@@ -60,6 +124,21 @@ public class StorageService {
         return StreamUtils.copyToString(response, StandardCharsets.UTF_8);
     }
 
+    // Opens the object for streaming without buffering it; the caller closes the stream
+    public InputStream openFile(String bucketName, String fileName) {
+        return s3Client.getObject(request -> request.bucket(bucketName).key(fileName));
+    }
+
+    public long getFileSize(String bucketName, String fileName) {
+        return s3Client.headObject(request -> request.bucket(bucketName).key(fileName)).contentLength();
+    }
+
+    // Reads length bytes starting at offset with a single ranged GET
+    public byte[] readRange(String bucketName, String fileName, long offset, int length) {
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        return s3Client.getObjectAsBytes(request -> request.bucket(bucketName).key(fileName).range(range)).asByteArray();
+    }
+
     public void deleteFile(String bucketName, String fileName) {
         // Delete the file from S3
         s3Client.deleteObject(
@@ -0,0 +1,100 @@
+package com.tti.paveinsight.services.tiles;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.services.result.JobResultInvalidatedEvent;
+import com.tti.paveinsight.services.result.ResultFeatureCache;
+import com.tti.paveinsight.utils.CacheUtils;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.MvtEncoder;
+import com.tti.paveinsight.utils.geo.ResultFeature;
+import com.tti.paveinsight.utils.geo.TileMath;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.TopologyException;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renders job result features as Mapbox Vector Tiles. Features are clipped to the tile (plus a
+ * small buffer so lines do not end at tile edges) and simplified in tile pixel space, so the
+ * work per tile depends on the features in view rather than on the size of the result.
+ * Tiles of finalized jobs are kept in a bounded in-memory cache.
+ */
+@Service
+public class VectorTileService {
+
+    public static final String LAYER_NAME = "segments";
+
+    private static final int EXTENT = 4096;
+
+    private final ResultFeatureCache resultFeatureCache;
+
+    private final AsyncCache<TileKey, byte[]> finalizedTiles;
+
+    private final int buffer;
+
+    private final double simplifyTolerance;
+
+    public VectorTileService(ResultFeatureCache resultFeatureCache,
+                             @Value("${paveinsight.tiles.cache-max-bytes:67108864}") long cacheMaxBytes,
+                             @Value("${paveinsight.tiles.buffer:64}") int buffer,
+                             @Value("${paveinsight.tiles.simplify-tolerance:1.0}") double simplifyTolerance) {
+        this.resultFeatureCache = resultFeatureCache;
+        this.buffer = buffer;
+        this.simplifyTolerance = simplifyTolerance;
+        this.finalizedTiles = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((TileKey key, byte[] tile) -> tile.length + 64)
+                .buildAsync();
+    }
+
+    // Encoded tile; an empty array means no feature falls inside the tile
+    public byte[] getTile(Job job, int z, int x, int y) {
+        if (job.isResultFinalized()) {
+            return CacheUtils.get(finalizedTiles, new TileKey(job.getId(), z, x, y), key -> render(job, z, x, y));
+        }
+        return render(job, z, x, y);
+    }
+
+    @EventListener
+    public void onJobResultInvalidated(JobResultInvalidatedEvent event) {
+        finalizedTiles.asMap().keySet().removeIf(key -> key.jobId().equals(event.jobId()));
+    }
+
+    private byte[] render(Job job, int z, int x, int y) {
+        Envelope tileBounds = TileMath.tileEnvelope(z, x, y, (double) buffer / EXTENT);
+        Geometry clip = GeoJsonGeometries.FACTORY.toGeometry(
+                new Envelope(-buffer, EXTENT + buffer, -buffer, EXTENT + buffer));
+
+        MvtEncoder encoder = new MvtEncoder(LAYER_NAME, EXTENT);
+        for (ResultFeature feature : resultFeatureCache.get(job).candidates(tileBounds)) {
+            Geometry projected = TileMath.toTileCoordinates(feature.getGeometry(), z, x, y, EXTENT);
+            Geometry clipped = clip(projected, clip);
+            if (clipped.isEmpty()) {
+                continue;
+            }
+            encoder.addFeature(feature.getId(), DouglasPeuckerSimplifier.simplify(clipped, simplifyTolerance),
+                    feature.getProperties());
+        }
+        return encoder.encode();
+    }
+
+    private static Geometry clip(Geometry geometry, Geometry clip) {
+        if (clip.getEnvelopeInternal().contains(geometry.getEnvelopeInternal())) {
+            return geometry;
+        }
+        try {
+            return geometry.intersection(clip);
+        } catch (TopologyException e) {
+            // Invalid polygons from the source data; repair once and retry
+            return geometry.buffer(0).intersection(clip);
+        }
+    }
+
+    private record TileKey(Long jobId, int z, int x, int y) {
+    }
+}
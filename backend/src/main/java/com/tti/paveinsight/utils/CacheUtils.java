@@ -0,0 +1,42 @@
+package com.tti.paveinsight.utils;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+public final class CacheUtils {
+
+    private CacheUtils() {
+    }
+
+    /**
+     * Returns the cached value, loading it on the calling thread when missing. Unlike Cache.get,
+     * the loader runs outside the cache's map lock (a synchronized block), so a load that blocks
+     * on S3 does not pin a virtual thread to its carrier; concurrent callers for the same key wait
+     * on the entry's future instead. A failed load is removed and rethrown to every waiter.
+     */
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> existing = cache.asMap().putIfAbsent(key, loading);
+        if (existing == null) {
+            try {
+                V value = loader.apply(key);
+                loading.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
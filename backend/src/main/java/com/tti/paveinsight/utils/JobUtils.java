@@ -8,19 +8,21 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class JobUtils {
+    // Result payloads are served by the result endpoints only, so they are left out here
     public JobDto convertToDto(Request request, Job job) {
         return new JobDto(
                 job.getId(),
                 job.getStatus(),
-                job.getResultData(),
-                job.getResultGeoJsonData(),
+                null,
+                null,
                 job.getSatelliteImageS3URL(),
                 job.getCreatedAt(),
                 job.getUpdatedAt(),
                 job.isResultFinalized(),
                 request.getId(),  // requestId from the associated request
-                request.getGeoJson()  // geoJson from the associated request
-
+                job.getGeoJson() != null ? job.getGeoJson() : request.getGeoJson(), // A sub-job covers only its part
+                job.getParentJob() != null ? job.getParentJob().getId() : null, // Read from the proxy, the parent is not loaded
+                job.getSubJobCount()
         );
     }
     public SuperResolutionDto converToSuperResolutionDto(Request request, Job job){
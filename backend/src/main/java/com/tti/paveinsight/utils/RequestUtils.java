@@ -2,16 +2,21 @@ package com.tti.paveinsight.utils;
 
 import com.tti.paveinsight.dto.JobDto;
 import com.tti.paveinsight.dto.RequestDto;
+import com.tti.paveinsight.dto.RequestSummaryDto;
 import com.tti.paveinsight.models.Job;
 import com.tti.paveinsight.models.Request;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 public class RequestUtils {
     public RequestDto convertToDto(Request request, List<JobDto> jobs) {
-        return new RequestDto(
+        RequestDto requestDto = new RequestDto(
                 request.getId(),
                 request.getUsername(),
                 request.getEmail(),
@@ -24,5 +29,27 @@ public class RequestUtils {
                 request.getCreatedAt(),
                 jobs
         );
+        requestDto.setAoi(request.getAoi());
+        return requestDto;
+    }
+
+    // Opaque page cursor: "<createdAt millis>:<request id>" in URL-safe base64
+    public String encodeCursor(RequestSummaryDto summary) {
+        String raw = summary.getRequestCreatedAt().getTime() + ":" + summary.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Cursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    public record Cursor(Date createdAt, UUID id) {
     }
 }
@@ -11,4 +11,8 @@ public class S3Utils {
     public String extractFileNameFromUrl(String s3Url) {
         return s3Url.substring(s3Url.indexOf(".com/") + 5); // Extract file key
     }
+
+    public String replaceFileName(String s3Url, String fileName) {
+        return s3Url.substring(0, s3Url.indexOf(".com/") + 5) + fileName; // Same bucket, other key
+    }
 }
@@ -0,0 +1,43 @@
+package com.tti.paveinsight.utils;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ThreadUtils {
+
+    private ThreadUtils() {
+    }
+
+    /**
+     * Named daemon threads, or virtual threads when spring.threads.virtual.enabled is set (Java 21
+     * and later; on Java 17 asking for virtual threads fails at startup).
+     */
+    public static ThreadFactory threadFactory(String name, boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Executor for blocking I/O: a pool of platform threads (fixed size, or cached when the size is
+     * 0), or a new virtual thread per task, in which case callers bound the concurrency themselves.
+     */
+    public static ExecutorService newIoExecutor(String name, int platformThreads, boolean virtual) {
+        if (virtual) {
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.MILLISECONDS,
+                    new SynchronousQueue<>(), threadFactory(name, true));
+        }
+        if (platformThreads <= 0) {
+            return Executors.newCachedThreadPool(threadFactory(name, false));
+        }
+        return Executors.newFixedThreadPool(platformThreads, threadFactory(name, false));
+    }
+}
@@ -0,0 +1,200 @@
+package com.tti.paveinsight.utils.geo;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for an area of interest: a Polygon or MultiPolygon, bare or as a Feature, or a
+ * FeatureCollection of them. Positions are counted while they are parsed, so an oversized AOI is
+ * rejected before it is built. Rings are closed if the client left them open, repeated
+ * consecutive positions are dropped, and coordinates must be valid longitudes and latitudes.
+ */
+public class AoiReader {
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxVertices;
+
+    private int vertices;
+
+    private JsonNode properties;
+
+    public AoiReader(ObjectMapper objectMapper, int maxVertices) {
+        this.objectMapper = objectMapper;
+        this.maxVertices = maxVertices;
+    }
+
+    // The polygons of the AOI; several polygons are returned as a MultiPolygon
+    public Geometry read(String geoJson) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(geoJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("AOI must be a GeoJSON object");
+            }
+            List<Polygon> polygons = new ArrayList<>();
+            readObject(parser, polygons, true);
+            if (polygons.isEmpty()) {
+                throw new IllegalArgumentException("AOI contains no polygon");
+            }
+            return polygons.size() == 1 ? polygons.get(0)
+                    : GeoJsonGeometries.FACTORY.createMultiPolygon(polygons.toArray(Polygon[]::new));
+        }
+    }
+
+    // Properties of a top-level Feature, or null
+    public JsonNode getProperties() {
+        return properties;
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    // Reads one GeoJSON object; members may come in any order, so coordinates are kept until the type is known
+    private void readObject(JsonParser parser, List<Polygon> polygons, boolean topLevel) throws IOException {
+        String type = null;
+        List<Object> coordinates = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> type = parser.getValueAsString();
+                case "coordinates" -> coordinates = readArray(parser, value);
+                case "geometry" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        readObject(parser, polygons, false);
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        throw new IllegalArgumentException("Feature geometry must be an object");
+                    }
+                }
+                case "features" -> {
+                    if (value != JsonToken.START_ARRAY) {
+                        throw new IllegalArgumentException("FeatureCollection features must be an array");
+                    }
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readObject(parser, polygons, false);
+                    }
+                }
+                case "properties" -> {
+                    if (topLevel) {
+                        properties = objectMapper.readTree(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("GeoJSON object without a type");
+        }
+        switch (type) {
+            case "Feature", "FeatureCollection" -> {
+            }
+            case "Polygon" -> polygons.add(polygon(coordinates));
+            case "MultiPolygon" -> {
+                for (Object rings : required(coordinates)) {
+                    polygons.add(polygon(asList(rings)));
+                }
+            }
+            default -> throw new IllegalArgumentException("AOI must be a Polygon or MultiPolygon, not " + type);
+        }
+    }
+
+    // Nested coordinate arrays as lists, with positions as [lon, lat]
+    private List<Object> readArray(JsonParser parser, JsonToken start) throws IOException {
+        if (start != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("GeoJSON coordinates must be arrays");
+        }
+        List<Object> values = new ArrayList<>();
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            double lon = parser.getDoubleValue();
+            if (!parser.nextToken().isNumeric()) {
+                throw new IllegalArgumentException("A GeoJSON position needs a longitude and a latitude");
+            }
+            double lat = parser.getDoubleValue();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                // Altitude and further values are ignored
+            }
+            if (!(lon >= -180 && lon <= 180 && lat >= -90 && lat <= 90)) {
+                throw new IllegalArgumentException("Position [" + lon + ", " + lat + "] is not a longitude/latitude");
+            }
+            if (++vertices > maxVertices) {
+                throw new AoiTooLargeException("AOI has more than " + maxVertices + " vertices");
+            }
+            values.add(new Coordinate(lon, lat));
+            return values;
+        }
+        while (token != JsonToken.END_ARRAY) {
+            List<Object> nested = readArray(parser, token);
+            values.add(nested.size() == 1 && nested.get(0) instanceof Coordinate position ? position : nested);
+            token = parser.nextToken();
+        }
+        return values;
+    }
+
+    private static Polygon polygon(List<Object> rings) {
+        if (required(rings).isEmpty()) {
+            throw new IllegalArgumentException("Polygon without rings");
+        }
+        LinearRing shell = ring(asList(rings.get(0)));
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int i = 1; i < rings.size(); i++) {
+            holes[i - 1] = ring(asList(rings.get(i)));
+        }
+        return GeoJsonGeometries.FACTORY.createPolygon(shell, holes);
+    }
+
+    // Drops repeated positions and closes the ring; a ring needs at least three distinct positions
+    private static LinearRing ring(List<Object> positions) {
+        List<Coordinate> ring = new ArrayList<>(positions.size() + 1);
+        for (Object position : positions) {
+            if (!(position instanceof Coordinate coordinate)) {
+                throw new IllegalArgumentException("Polygon rings must be arrays of positions");
+            }
+            if (ring.isEmpty() || !ring.get(ring.size() - 1).equals2D(coordinate)) {
+                ring.add(coordinate);
+            }
+        }
+        if (ring.size() > 1 && ring.get(0).equals2D(ring.get(ring.size() - 1))) {
+            ring.remove(ring.size() - 1);
+        }
+        if (ring.size() < 3) {
+            throw new IllegalArgumentException("Polygon ring needs at least three distinct positions");
+        }
+        ring.add(ring.get(0).copy());
+        return GeoJsonGeometries.FACTORY.createLinearRing(ring.toArray(Coordinate[]::new));
+    }
+
+    private static List<Object> required(List<Object> coordinates) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException("Polygon without coordinates");
+        }
+        return coordinates;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value) {
+        if (!(value instanceof List<?>)) {
+            throw new IllegalArgumentException("Polygon coordinates are not nested deeply enough");
+        }
+        return (List<Object>) value;
+    }
+
+    // An AOI over the configured vertex limit
+    public static class AoiTooLargeException extends IllegalArgumentException {
+        public AoiTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.locationtech.jts.algorithm.locate.SimplePointInAreaLocator;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.index.strtree.ItemBoundable;
+import org.locationtech.jts.index.strtree.ItemDistance;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable STR-packed R-tree over a job's result features.
+ * <p>
+ * Envelopes are indexed in a local equirectangular space (longitude scaled by the cosine of the
+ * result's centre latitude) so that nearest-segment distances are close to true ground distance
+ * at the scale of a city. Queries take and return plain longitude/latitude.
+ */
+public class FeatureIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final List<ResultFeature> features;
+
+    private final STRtree tree;
+
+    private final double lonScale;
+
+    public FeatureIndex(List<ResultFeature> features) {
+        this.features = features;
+        Envelope extent = new Envelope();
+        for (ResultFeature feature : features) {
+            extent.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+        }
+        this.lonScale = extent.isNull() ? 1.0 : Math.cos(Math.toRadians(extent.centre().y));
+        this.tree = new STRtree();
+        for (ResultFeature feature : features) {
+            tree.insert(scale(feature.getGeometry().getEnvelopeInternal()), feature);
+        }
+        tree.build();
+    }
+
+    public static FeatureIndex empty() {
+        return new FeatureIndex(Collections.emptyList());
+    }
+
+    public List<ResultFeature> getFeatures() {
+        return features;
+    }
+
+    public int size() {
+        return features.size();
+    }
+
+    // Features whose envelope intersects the box; cheap candidate set for clipping
+    @SuppressWarnings("unchecked")
+    public List<ResultFeature> candidates(Envelope lonLatBox) {
+        if (features.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return tree.query(scale(lonLatBox));
+    }
+
+    // Features whose geometry intersects the box
+    public List<ResultFeature> intersecting(Envelope lonLatBox) {
+        Geometry box = GeoJsonGeometries.FACTORY.toGeometry(lonLatBox);
+        List<ResultFeature> matches = new ArrayList<>();
+        for (ResultFeature candidate : candidates(lonLatBox)) {
+            // A candidate whose envelope lies inside the box needs no exact test
+            if (lonLatBox.contains(candidate.getGeometry().getEnvelopeInternal())
+                    || box.intersects(candidate.getGeometry())) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    // Closest feature to the point, or null for an empty index
+    public Nearest nearest(double lon, double lat) {
+        if (features.isEmpty()) {
+            return null;
+        }
+        Coordinate query = new Coordinate(lon * lonScale, lat);
+        Object match = tree.nearestNeighbour(new Envelope(query), query, new ScaledDistance());
+        ResultFeature feature = (ResultFeature) match;
+        return new Nearest(feature, distance(feature.getGeometry(), query.x, query.y) * METERS_PER_DEGREE);
+    }
+
+    private Envelope scale(Envelope envelope) {
+        return new Envelope(envelope.getMinX() * lonScale, envelope.getMaxX() * lonScale,
+                envelope.getMinY(), envelope.getMaxY());
+    }
+
+    /**
+     * Distance from a scaled point to a geometry, in scaled degrees: 0 inside a polygon, otherwise
+     * to the closest vertex or segment of its lines, rings and points.
+     */
+    private double distance(Geometry geometry, double x, double y) {
+        double best = Double.MAX_VALUE;
+        for (int g = 0; g < geometry.getNumGeometries(); g++) {
+            Geometry part = geometry.getGeometryN(g);
+            if (part instanceof Polygon polygon) {
+                if (SimplePointInAreaLocator.isContained(new Coordinate(x / lonScale, y), polygon)) {
+                    return 0;
+                }
+                best = Math.min(best, distance(polygon.getExteriorRing().getCoordinateSequence(), x, y));
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    best = Math.min(best, distance(polygon.getInteriorRingN(h).getCoordinateSequence(), x, y));
+                }
+            } else if (part instanceof LineString line) {
+                best = Math.min(best, distance(line.getCoordinateSequence(), x, y));
+            } else if (part instanceof Point point) {
+                best = Math.min(best, distance(point.getCoordinateSequence(), x, y));
+            } else if (part != geometry) {
+                best = Math.min(best, distance(part, x, y)); // A collection nested in a collection
+            }
+        }
+        return best;
+    }
+
+    private double distance(CoordinateSequence sequence, double x, double y) {
+        double best = Double.MAX_VALUE;
+        if (sequence.size() == 1) {
+            best = Math.hypot(sequence.getX(0) * lonScale - x, sequence.getY(0) - y);
+        }
+        for (int i = 1; i < sequence.size(); i++) {
+            best = Math.min(best, segmentDistance(x, y,
+                    sequence.getX(i - 1) * lonScale, sequence.getY(i - 1),
+                    sequence.getX(i) * lonScale, sequence.getY(i)));
+        }
+        return best;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+
+    private class ScaledDistance implements ItemDistance {
+        @Override
+        public double distance(ItemBoundable first, ItemBoundable second) {
+            Coordinate query = (Coordinate) (first.getItem() instanceof Coordinate ? first.getItem() : second.getItem());
+            ResultFeature feature = (ResultFeature) (first.getItem() instanceof ResultFeature ? first.getItem() : second.getItem());
+            return FeatureIndex.this.distance(feature.getGeometry(), query.x, query.y);
+        }
+    }
+
+    public record Nearest(ResultFeature feature, double distanceMeters) {
+    }
+}
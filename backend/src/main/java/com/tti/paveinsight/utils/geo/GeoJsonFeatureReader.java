@@ -0,0 +1,94 @@
+package com.tti.paveinsight.utils.geo;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Pull reader over a GeoJSON document. Features of a FeatureCollection are parsed one at a time
+ * from the underlying stream, so only the current feature is held in memory. A single Feature or
+ * a bare geometry is returned as a one-element sequence.
+ */
+public class GeoJsonFeatureReader implements Closeable {
+
+    private static final TypeReference<Map<String, Object>> PROPERTIES = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonParser parser;
+
+    private final ObjectNode topLevel;
+
+    private boolean inFeatures;
+
+    private boolean finished;
+
+    public GeoJsonFeatureReader(InputStream geoJson, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(geoJson);
+        this.topLevel = objectMapper.createObjectNode();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("GeoJSON document must be a JSON object");
+        }
+    }
+
+    // Returns the next feature, or null once the document is exhausted
+    public ResultFeature next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (inFeatures) {
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new IOException("GeoJSON document ends inside the features array");
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    return toFeature(objectMapper.readTree(parser));
+                }
+                parser.skipChildren(); // Not a feature, e.g. null; the features after it are still read
+            }
+            inFeatures = false;
+        }
+        // Walk the remaining top-level members until the features array or the end of the object
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("features") && value == JsonToken.START_ARRAY) {
+                inFeatures = true;
+                return next();
+            }
+            topLevel.set(field, objectMapper.readTree(parser));
+        }
+        finished = true;
+        String type = topLevel.path("type").asText();
+        if (type.equals("FeatureCollection")) {
+            return null;
+        }
+        return type.equals("Feature") ? toFeature(topLevel)
+                : new ResultFeature(null, GeoJsonGeometries.read(topLevel), Collections.emptyMap());
+    }
+
+    private ResultFeature toFeature(JsonNode feature) {
+        JsonNode id = feature.get("id");
+        JsonNode properties = feature.get("properties");
+        Map<String, Object> values = properties == null || !properties.isObject() ? Collections.emptyMap()
+                : objectMapper.convertValue(properties, PROPERTIES);
+        return new ResultFeature(id == null || id.isNull() ? null : (id.isNumber() ? id.numberValue() : id.asText()),
+                GeoJsonGeometries.read(feature.get("geometry")), values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
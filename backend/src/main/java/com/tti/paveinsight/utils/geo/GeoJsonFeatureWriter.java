@@ -0,0 +1,130 @@
+package com.tti.paveinsight.utils.geo;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.locationtech.jts.geom.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes features as a GeoJSON FeatureCollection straight to an output stream.
+ */
+public class GeoJsonFeatureWriter implements Closeable {
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonGenerator generator;
+
+    private final double scale; // 10^decimals, or 0 to write coordinates unrounded
+
+    public GeoJsonFeatureWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this(out, objectMapper, -1);
+    }
+
+    // Rounds coordinates to the given number of decimal places; a negative value keeps full precision
+    public GeoJsonFeatureWriter(OutputStream out, ObjectMapper objectMapper, int decimals) throws IOException {
+        this.objectMapper = objectMapper;
+        this.scale = decimals < 0 ? 0 : Math.pow(10, decimals);
+        this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.writeStartObject();
+        generator.writeStringField("type", "FeatureCollection");
+        generator.writeArrayFieldStart("features");
+    }
+
+    public void write(ResultFeature feature) throws IOException {
+        write(feature.getId(), feature.getGeometry(), feature.getProperties());
+    }
+
+    public void write(Object id, Geometry geometry, Map<String, Object> properties) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "Feature");
+        if (id != null) {
+            generator.writeFieldName("id");
+            objectMapper.writeValue(generator, id);
+        }
+        generator.writeFieldName("properties");
+        objectMapper.writeValue(generator, properties);
+        generator.writeFieldName("geometry");
+        writeGeometry(generator, geometry, scale);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    public static void writeGeometry(JsonGenerator generator, Geometry geometry) throws IOException {
+        writeGeometry(generator, geometry, 0);
+    }
+
+    private static void writeGeometry(JsonGenerator generator, Geometry geometry, double scale) throws IOException {
+        if (geometry == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("type", geometry.getGeometryType());
+        if (geometry instanceof GeometryCollection && !(geometry instanceof MultiPoint)
+                && !(geometry instanceof MultiLineString) && !(geometry instanceof MultiPolygon)) {
+            generator.writeArrayFieldStart("geometries");
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                writeGeometry(generator, geometry.getGeometryN(i), scale);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeFieldName("coordinates");
+            writeCoordinates(generator, geometry, scale);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeCoordinates(JsonGenerator generator, Geometry geometry, double scale) throws IOException {
+        if (geometry instanceof Point point) {
+            writePosition(generator, point.getCoordinateSequence(), 0, scale);
+        } else if (geometry instanceof LineString line) {
+            writeSequence(generator, line.getCoordinateSequence(), scale);
+        } else if (geometry instanceof Polygon polygon) {
+            generator.writeStartArray();
+            if (!polygon.isEmpty()) {
+                writeSequence(generator, polygon.getExteriorRing().getCoordinateSequence(), scale);
+                for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                    writeSequence(generator, polygon.getInteriorRingN(i).getCoordinateSequence(), scale);
+                }
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeStartArray();
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                writeCoordinates(generator, geometry.getGeometryN(i), scale);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static void writeSequence(JsonGenerator generator, CoordinateSequence sequence, double scale) throws IOException {
+        generator.writeStartArray();
+        for (int i = 0; i < sequence.size(); i++) {
+            writePosition(generator, sequence, i, scale);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writePosition(JsonGenerator generator, CoordinateSequence sequence, int i, double scale)
+            throws IOException {
+        generator.writeStartArray();
+        generator.writeNumber(round(sequence.getX(i), scale));
+        generator.writeNumber(round(sequence.getY(i), scale));
+        generator.writeEndArray();
+    }
+
+    private static double round(double value, double scale) {
+        return scale == 0 ? value : Math.round(value * scale) / scale;
+    }
+}
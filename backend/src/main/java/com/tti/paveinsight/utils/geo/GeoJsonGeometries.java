@@ -0,0 +1,104 @@
+package com.tti.paveinsight.utils.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+/**
+ * Converts GeoJSON geometry objects to JTS geometries.
+ */
+public final class GeoJsonGeometries {
+
+    // Packed coordinates keep large result networks compact on the heap
+    public static final GeometryFactory FACTORY =
+            new GeometryFactory(new PrecisionModel(), 4326, PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+
+    private GeoJsonGeometries() {
+    }
+
+    public static Geometry read(JsonNode geometry) {
+        if (geometry == null || geometry.isNull()) {
+            return null;
+        }
+        String type = geometry.path("type").asText();
+        JsonNode coordinates = geometry.path("coordinates");
+        return switch (type) {
+            case "Point" -> FACTORY.createPoint(coordinate(coordinates));
+            case "MultiPoint" -> FACTORY.createMultiPoint(sequence(coordinates));
+            case "LineString" -> FACTORY.createLineString(sequence(coordinates));
+            case "MultiLineString" -> {
+                LineString[] lines = new LineString[coordinates.size()];
+                for (int i = 0; i < lines.length; i++) {
+                    lines[i] = FACTORY.createLineString(sequence(coordinates.get(i)));
+                }
+                yield FACTORY.createMultiLineString(lines);
+            }
+            case "Polygon" -> polygon(coordinates);
+            case "MultiPolygon" -> {
+                Polygon[] polygons = new Polygon[coordinates.size()];
+                for (int i = 0; i < polygons.length; i++) {
+                    polygons[i] = polygon(coordinates.get(i));
+                }
+                yield FACTORY.createMultiPolygon(polygons);
+            }
+            case "GeometryCollection" -> {
+                JsonNode members = geometry.path("geometries");
+                Geometry[] geometries = new Geometry[members.size()];
+                for (int i = 0; i < geometries.length; i++) {
+                    geometries[i] = read(members.get(i));
+                }
+                yield FACTORY.createGeometryCollection(geometries);
+            }
+            default -> throw new IllegalArgumentException("Unsupported GeoJSON geometry type: " + type);
+        };
+    }
+
+    // Parses a "minLon,minLat,maxLon,maxLat" bounding box as used by the GeoJSON bbox member
+    public static Envelope parseBbox(String bbox) {
+        String[] parts = bbox == null ? new String[0] : bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        double[] values = new double[4];
+        for (int i = 0; i < 4; i++) {
+            try {
+                values[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+            }
+            if (!Double.isFinite(values[i])) {
+                throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+            }
+        }
+        if (values[0] > values[2] || values[1] > values[3]) {
+            throw new IllegalArgumentException("bbox minimum must not exceed its maximum");
+        }
+        return new Envelope(values[0], values[2], values[1], values[3]);
+    }
+
+    private static Polygon polygon(JsonNode rings) {
+        if (rings.isEmpty()) {
+            return FACTORY.createPolygon();
+        }
+        LinearRing shell = FACTORY.createLinearRing(sequence(rings.get(0)));
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int i = 1; i < rings.size(); i++) {
+            holes[i - 1] = FACTORY.createLinearRing(sequence(rings.get(i)));
+        }
+        return FACTORY.createPolygon(shell, holes);
+    }
+
+    private static CoordinateSequence sequence(JsonNode positions) {
+        CoordinateSequence sequence = FACTORY.getCoordinateSequenceFactory().create(positions.size(), 2);
+        for (int i = 0; i < positions.size(); i++) {
+            JsonNode position = positions.get(i);
+            sequence.setOrdinate(i, 0, position.get(0).asDouble());
+            sequence.setOrdinate(i, 1, position.get(1).asDouble());
+        }
+        return sequence;
+    }
+
+    private static Coordinate coordinate(JsonNode position) {
+        return new Coordinate(position.get(0).asDouble(), position.get(1).asDouble());
+    }
+}
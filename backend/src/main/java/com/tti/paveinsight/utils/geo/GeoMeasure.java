@@ -0,0 +1,76 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Ground measurements of WGS84 longitude/latitude geometries.
+ */
+public final class GeoMeasure {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GeoMeasure() {
+    }
+
+    // Great-circle length of all lines; polygons count their exterior ring
+    public static double lengthMeters(Geometry geometry) {
+        double length = 0;
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (part instanceof LineString line) {
+                length += lengthMeters(line.getCoordinateSequence());
+            } else if (part instanceof Polygon polygon) {
+                length += lengthMeters(polygon.getExteriorRing().getCoordinateSequence());
+            } else if (part != geometry) {
+                length += lengthMeters(part); // Nested collection
+            }
+        }
+        return length;
+    }
+
+    // Spherical area of all polygons, holes excluded
+    public static double areaSquareMeters(Geometry geometry) {
+        double area = 0;
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (part instanceof Polygon polygon) {
+                area += ringArea(polygon.getExteriorRing().getCoordinateSequence());
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    area -= ringArea(polygon.getInteriorRingN(h).getCoordinateSequence());
+                }
+            } else if (part != geometry) {
+                area += areaSquareMeters(part);
+            }
+        }
+        return area;
+    }
+
+    public static double haversineMeters(double lon1, double lat1, double lon2, double lat2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Area enclosed by a closed ring on the sphere, regardless of its winding
+    private static double ringArea(CoordinateSequence ring) {
+        double sum = 0;
+        for (int i = 1; i < ring.size(); i++) {
+            sum += Math.toRadians(ring.getX(i) - ring.getX(i - 1))
+                    * (2 + Math.sin(Math.toRadians(ring.getY(i - 1))) + Math.sin(Math.toRadians(ring.getY(i))));
+        }
+        return Math.abs(sum * EARTH_RADIUS_METERS * EARTH_RADIUS_METERS / 2);
+    }
+
+    private static double lengthMeters(CoordinateSequence sequence) {
+        double length = 0;
+        for (int i = 1; i < sequence.size(); i++) {
+            length += haversineMeters(sequence.getX(i - 1), sequence.getY(i - 1), sequence.getX(i), sequence.getY(i));
+        }
+        return length;
+    }
+}
@@ -0,0 +1,297 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.locationtech.jts.geom.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Encodes a single-layer Mapbox Vector Tile (spec version 2). Geometries must already be in
+ * tile pixel coordinates; they are rounded to integers while encoding.
+ */
+public class MvtEncoder {
+
+    private static final int MOVE_TO = 1;
+    private static final int LINE_TO = 2;
+    private static final int CLOSE_PATH = 7;
+
+    private static final int POINT = 1;
+    private static final int LINESTRING = 2;
+    private static final int POLYGON = 3;
+
+    private final String layerName;
+
+    private final int extent;
+
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+
+    private final List<byte[]> features = new ArrayList<>();
+
+    public MvtEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    public boolean isEmpty() {
+        return features.isEmpty();
+    }
+
+    public void addFeature(Object id, Geometry geometry, Map<String, Object> properties) {
+        if (geometry == null || geometry.isEmpty()) {
+            return;
+        }
+        if (geometry.getClass() == GeometryCollection.class) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                addFeature(id, geometry.getGeometryN(i), properties);
+            }
+            return;
+        }
+        IntList commands = new IntList();
+        int type = encodeGeometry(geometry, commands);
+        if (commands.size() == 0) {
+            return;
+        }
+
+        Writer feature = new Writer();
+        if (id instanceof Number number && number.longValue() >= 0 && number.doubleValue() == number.longValue()) {
+            feature.varintField(1, number.longValue());
+        }
+        feature.packedField(2, tags(properties));
+        feature.varintField(3, type);
+        feature.packedField(4, commands);
+        features.add(feature.toByteArray());
+    }
+
+    public byte[] encode() {
+        if (features.isEmpty()) {
+            return new byte[0];
+        }
+        Writer layer = new Writer();
+        layer.varintField(15, 2);
+        layer.bytesField(1, layerName.getBytes(StandardCharsets.UTF_8));
+        for (byte[] feature : features) {
+            layer.bytesField(2, feature);
+        }
+        for (String key : keys.keySet()) {
+            layer.bytesField(3, key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object value : values.keySet()) {
+            layer.bytesField(4, encodeValue(value));
+        }
+        layer.varintField(5, extent);
+
+        Writer tile = new Writer();
+        tile.bytesField(3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private IntList tags(Map<String, Object> properties) {
+        IntList tags = new IntList();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            Object value = normalizeValue(property.getValue());
+            if (value == null) {
+                continue;
+            }
+            tags.add(keys.computeIfAbsent(property.getKey(), k -> keys.size()));
+            tags.add(values.computeIfAbsent(value, v -> values.size()));
+        }
+        return tags;
+    }
+
+    // Only scalar properties can be expressed in a tile
+    private static Object normalizeValue(Object value) {
+        if (value instanceof Float || value instanceof Double) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return value instanceof String || value instanceof Boolean ? value : null;
+    }
+
+    private static byte[] encodeValue(Object value) {
+        Writer writer = new Writer();
+        if (value instanceof String string) {
+            writer.bytesField(1, string.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Double number) {
+            writer.tag(3, 1);
+            long bits = Double.doubleToLongBits(number);
+            for (int i = 0; i < 8; i++) {
+                writer.out.write((int) (bits >>> (8 * i)) & 0xFF);
+            }
+        } else if (value instanceof Long number) {
+            writer.varintField(6, zigZag(number));
+        } else if (value instanceof Boolean bool) {
+            writer.varintField(7, bool ? 1 : 0);
+        }
+        return writer.toByteArray();
+    }
+
+    private int encodeGeometry(Geometry geometry, IntList commands) {
+        Cursor cursor = new Cursor();
+        if (geometry instanceof Puntal) {
+            List<int[]> points = new ArrayList<>();
+            for (Coordinate coordinate : geometry.getCoordinates()) {
+                points.add(new int[]{(int) Math.round(coordinate.x), (int) Math.round(coordinate.y)});
+            }
+            commands.add(command(MOVE_TO, points.size()));
+            for (int[] point : points) {
+                cursor.moveTo(point, commands);
+            }
+            return POINT;
+        }
+        if (geometry instanceof Lineal) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                List<int[]> points = rounded(((LineString) geometry.getGeometryN(i)).getCoordinateSequence(), false);
+                if (points.size() < 2) {
+                    continue;
+                }
+                commands.add(command(MOVE_TO, 1));
+                cursor.moveTo(points.get(0), commands);
+                commands.add(command(LINE_TO, points.size() - 1));
+                for (int p = 1; p < points.size(); p++) {
+                    cursor.moveTo(points.get(p), commands);
+                }
+            }
+            return LINESTRING;
+        }
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Polygon polygon = (Polygon) geometry.getGeometryN(i);
+            if (!encodeRing(polygon.getExteriorRing(), true, cursor, commands)) {
+                continue; // Holes without a shell are meaningless
+            }
+            for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                encodeRing(polygon.getInteriorRingN(h), false, cursor, commands);
+            }
+        }
+        return POLYGON;
+    }
+
+    private boolean encodeRing(LinearRing ring, boolean exterior, Cursor cursor, IntList commands) {
+        List<int[]> points = rounded(ring.getCoordinateSequence(), true);
+        if (points.size() < 3) {
+            return false;
+        }
+        // Exterior rings have a positive surveyor's area in tile space (y down), interior rings negative
+        long area = 0;
+        for (int p = 0; p < points.size(); p++) {
+            int[] a = points.get(p);
+            int[] b = points.get((p + 1) % points.size());
+            area += (long) a[0] * b[1] - (long) b[0] * a[1];
+        }
+        if (area == 0) {
+            return false;
+        }
+        if ((area > 0) != exterior) {
+            Collections.reverse(points);
+        }
+        commands.add(command(MOVE_TO, 1));
+        cursor.moveTo(points.get(0), commands);
+        commands.add(command(LINE_TO, points.size() - 1));
+        for (int p = 1; p < points.size(); p++) {
+            cursor.moveTo(points.get(p), commands);
+        }
+        commands.add(command(CLOSE_PATH, 1));
+        return true;
+    }
+
+    // Integer vertices with consecutive duplicates removed; rings drop their closing vertex
+    private static List<int[]> rounded(CoordinateSequence sequence, boolean ring) {
+        List<int[]> points = new ArrayList<>(sequence.size());
+        int[] previous = null;
+        for (int i = 0; i < sequence.size(); i++) {
+            int[] point = {(int) Math.round(sequence.getX(i)), (int) Math.round(sequence.getY(i))};
+            if (previous == null || previous[0] != point[0] || previous[1] != point[1]) {
+                points.add(point);
+                previous = point;
+            }
+        }
+        if (ring && points.size() > 1 && Arrays.equals(points.get(0), points.get(points.size() - 1))) {
+            points.remove(points.size() - 1);
+        }
+        return points;
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // Tracks the pen position; geometry parameters are zig-zag encoded deltas from it
+    private static class Cursor {
+        private int x;
+        private int y;
+
+        void moveTo(int[] point, IntList commands) {
+            commands.add((int) zigZag(point[0] - x));
+            commands.add((int) zigZag(point[1] - y));
+            x = point[0];
+            y = point[1];
+        }
+    }
+
+    private static class IntList {
+        private int[] items = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    // Minimal protobuf writer for the handful of wire types a vector tile needs
+    private static class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void tag(int field, int wireType) {
+            varint(((long) field << 3) | wireType);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void varintField(int field, long value) {
+            tag(field, 0);
+            varint(value);
+        }
+
+        void bytesField(int field, byte[] bytes) {
+            tag(field, 2);
+            varint(bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        void packedField(int field, IntList values) {
+            if (values.size() == 0) {
+                return;
+            }
+            Writer packed = new Writer();
+            for (int i = 0; i < values.size(); i++) {
+                packed.varint(values.items[i] & 0xFFFFFFFFL);
+            }
+            bytesField(field, packed.toByteArray());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
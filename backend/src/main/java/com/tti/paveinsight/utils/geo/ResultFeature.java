@@ -0,0 +1,18 @@
+package com.tti.paveinsight.utils.geo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.Map;
+
+/**
+ * One GeoJSON feature with its geometry in WGS84 longitude/latitude.
+ */
+@Getter
+@AllArgsConstructor
+public class ResultFeature {
+    private final Object id; // The GeoJSON feature id, or null when absent
+    private final Geometry geometry;
+    private final Map<String, Object> properties;
+}
@@ -0,0 +1,211 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.operation.distance.DistanceOp;
+import org.locationtech.jts.operation.linemerge.LineMerger;
+
+import java.util.*;
+
+/**
+ * Deduplicates and stitches road segments found on the seams between results of adjacent or
+ * overlapping areas. Segments from different results are pieces of the same road when they
+ * overlap for more than twice the tolerance, or when they carry the same street name and one
+ * ends where the other begins. Of a road's pieces the longest is kept whole, the others add only
+ * the stretches it does not already cover, and the lines are merged where they meet. The PCI of
+ * a stitched segment is the length-weighted mean of the PCI of its pieces.
+ */
+public class SeamStitcher {
+
+    // Property names written by the ML worker
+    private static final String PCI = "PCI";
+
+    private static final String STREET_NAME = "StreetName";
+
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    private final double tolerance; // In degrees
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    public SeamStitcher(double toleranceMeters) {
+        this.tolerance = toleranceMeters / METERS_PER_DEGREE;
+    }
+
+    // Holds a seam feature from the result with the given index
+    public void add(ResultFeature feature, int source) {
+        segments.add(new Segment(feature, source, GeoMeasure.lengthMeters(feature.getGeometry())));
+    }
+
+    public int size() {
+        return segments.size();
+    }
+
+    // The held features with the pieces of each road replaced by one stitched feature
+    public List<ResultFeature> stitch() {
+        STRtree index = new STRtree();
+        for (int i = 0; i < segments.size(); i++) {
+            Geometry geometry = segments.get(i).feature.getGeometry();
+            if (geometry != null && !geometry.isEmpty()) {
+                index.insert(geometry.getEnvelopeInternal(), i);
+            }
+        }
+
+        int[] roots = new int[segments.size()];
+        Arrays.setAll(roots, i -> i);
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            Geometry geometry = segment.feature.getGeometry();
+            if (geometry == null || geometry.isEmpty()) {
+                continue;
+            }
+            Envelope search = geometry.getEnvelopeInternal().copy();
+            search.expandBy(tolerance);
+            for (Object candidate : index.query(search)) {
+                int j = (Integer) candidate;
+                if (j > i && segments.get(j).source != segment.source && samePiece(segment, segments.get(j))) {
+                    roots[find(roots, j)] = find(roots, i);
+                }
+            }
+        }
+
+        Map<Integer, List<Segment>> roads = new LinkedHashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            roads.computeIfAbsent(find(roots, i), root -> new ArrayList<>()).add(segments.get(i));
+        }
+        List<ResultFeature> stitched = new ArrayList<>(roads.size());
+        for (List<Segment> pieces : roads.values()) {
+            stitched.add(pieces.size() == 1 ? pieces.get(0).feature : stitch(pieces));
+        }
+        return stitched;
+    }
+
+    private boolean samePiece(Segment a, Segment b) {
+        Geometry first = a.feature.getGeometry();
+        Geometry second = b.feature.getGeometry();
+        if (!first.isWithinDistance(second, tolerance)) {
+            return false;
+        }
+        Object streetA = a.feature.getProperties().get(STREET_NAME);
+        Object streetB = b.feature.getProperties().get(STREET_NAME);
+        if (streetA != null && streetB != null && !streetA.equals(streetB)) {
+            return false;
+        }
+        Geometry shorter = a.lengthMeters <= b.lengthMeters ? first : second;
+        Geometry longer = shorter == first ? second : first;
+        // A road crossing another stays within the tolerance of it for about twice the tolerance
+        if (shorter.intersection(longer.buffer(tolerance)).getLength() > 2 * tolerance) {
+            return true;
+        }
+        return streetA != null && streetB != null && endsMeet(first, second);
+    }
+
+    private boolean endsMeet(Geometry first, Geometry second) {
+        for (Coordinate end : ends(first)) {
+            for (Coordinate other : ends(second)) {
+                if (end.distance(other) <= tolerance) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ResultFeature stitch(List<Segment> pieces) {
+        pieces.sort(Comparator.comparingDouble((Segment segment) -> segment.lengthMeters).reversed());
+        Segment base = pieces.get(0);
+        Geometry covered = base.feature.getGeometry();
+        LineMerger merger = new LineMerger();
+        merger.add(covered);
+        double weightedPci = 0;
+        double scoredLength = 0;
+        for (Segment piece : pieces) {
+            Double pci = number(piece.feature.getProperties().get(PCI));
+            if (pci != null) {
+                weightedPci += pci * piece.lengthMeters;
+                scoredLength += piece.lengthMeters;
+            }
+            if (piece == base) {
+                continue;
+            }
+            Geometry rest = piece.feature.getGeometry().difference(covered.buffer(tolerance));
+            for (int i = 0; i < rest.getNumGeometries(); i++) {
+                if (rest.getGeometryN(i) instanceof LineString line && line.getLength() > tolerance) {
+                    LineString joined = joinTo(line, covered);
+                    merger.add(joined);
+                    covered = covered.union(joined);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Collection<LineString> lines = merger.getMergedLineStrings();
+        Geometry geometry = lines.size() == 1 ? lines.iterator().next()
+                : GeoJsonGeometries.FACTORY.createMultiLineString(lines.toArray(LineString[]::new));
+        Map<String, Object> properties = new LinkedHashMap<>(base.feature.getProperties());
+        properties.put(PCI, scoredLength > 0 ? Math.round(100 * weightedPci / scoredLength) / 100.0 : null);
+        return new ResultFeature(base.feature.getId(), geometry, properties);
+    }
+
+    /**
+     * Extends the ends of a line that stop short of the covered geometry, which they do by about
+     * the tolerance after the difference, to their nearest point on it; a nearest point close to
+     * an end of the covered lines is moved onto that end so the lines can be merged there.
+     */
+    private LineString joinTo(LineString line, Geometry covered) {
+        List<Coordinate> coordinates = new ArrayList<>(Arrays.asList(line.getCoordinates()));
+        Coordinate start = nearbyPoint(coordinates.get(0), covered);
+        Coordinate end = nearbyPoint(coordinates.get(coordinates.size() - 1), covered);
+        if (start != null) {
+            coordinates.add(0, start);
+        }
+        if (end != null) {
+            coordinates.add(end);
+        }
+        return GeoJsonGeometries.FACTORY.createLineString(coordinates.toArray(Coordinate[]::new));
+    }
+
+    private Coordinate nearbyPoint(Coordinate coordinate, Geometry covered) {
+        Point point = GeoJsonGeometries.FACTORY.createPoint(coordinate);
+        if (covered.distance(point) > 1.5 * tolerance) {
+            return null;
+        }
+        Coordinate nearest = DistanceOp.nearestPoints(covered, point)[0];
+        for (Coordinate end : ends(covered)) {
+            if (end.distance(nearest) <= tolerance) {
+                return end.copy();
+            }
+        }
+        return nearest;
+    }
+
+    private static List<Coordinate> ends(Geometry geometry) {
+        List<Coordinate> ends = new ArrayList<>();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof LineString line && !line.isEmpty()) {
+                ends.add(line.getCoordinateN(0));
+                ends.add(line.getCoordinateN(line.getNumPoints() - 1));
+            }
+        }
+        return ends;
+    }
+
+    private static int find(int[] roots, int i) {
+        while (roots[i] != i) {
+            roots[i] = roots[roots[i]];
+            i = roots[i];
+        }
+        return i;
+    }
+
+    private static Double number(Object value) {
+        return value instanceof Number number && Double.isFinite(number.doubleValue()) ? number.doubleValue() : null;
+    }
+
+    private record Segment(ResultFeature feature, int source, double lengthMeters) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFilter;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Web Mercator (XYZ) tile arithmetic.
+ */
+public final class TileMath {
+
+    public static final int MAX_ZOOM = 24;
+
+    private static final double MAX_LATITUDE = 85.0511287798066;
+
+    private TileMath() {
+    }
+
+    public static boolean isValidTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            return false;
+        }
+        long tiles = 1L << z;
+        return x >= 0 && y >= 0 && x < tiles && y < tiles;
+    }
+
+    // Fractional tile column of a longitude at zoom z
+    public static double tileX(double lon, int z) {
+        return (lon + 180.0) / 360.0 * (1L << z);
+    }
+
+    // Fractional tile row of a latitude at zoom z
+    public static double tileY(double lat, int z) {
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double radians = Math.toRadians(clamped);
+        return (1.0 - Math.log(Math.tan(radians) + 1.0 / Math.cos(radians)) / Math.PI) / 2.0 * (1L << z);
+    }
+
+    public static double longitude(double tileX, int z) {
+        return tileX / (1L << z) * 360.0 - 180.0;
+    }
+
+    public static double latitude(double tileY, int z) {
+        double n = Math.PI * (1.0 - 2.0 * tileY / (1L << z));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    // Longitude/latitude bounds of a tile, grown by a fraction of the tile size on every side
+    public static Envelope tileEnvelope(int z, int x, int y, double bufferFraction) {
+        return new Envelope(longitude(x - bufferFraction, z), longitude(x + 1 + bufferFraction, z),
+                latitude(y + 1 + bufferFraction, z), latitude(y - bufferFraction, z));
+    }
+
+    // Copy of a longitude/latitude geometry in the pixel space of one tile (origin top-left)
+    public static Geometry toTileCoordinates(Geometry geometry, int z, int x, int y, int extent) {
+        Geometry projected = geometry.copy();
+        projected.apply(new CoordinateSequenceFilter() {
+            @Override
+            public void filter(CoordinateSequence sequence, int i) {
+                double lon = sequence.getX(i);
+                double lat = sequence.getY(i);
+                sequence.setOrdinate(i, 0, (tileX(lon, z) - x) * extent);
+                sequence.setOrdinate(i, 1, (tileY(lat, z) - y) * extent);
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+
+            @Override
+            public boolean isGeometryChanged() {
+                return true;
+            }
+        });
+        return projected;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tti.paveinsight.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.services.storage.InMemoryS3Client;
+import com.tti.paveinsight.services.storage.MultipartUploader;
+import com.tti.paveinsight.services.storage.StorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Resumable uploads through /api/v1/storage/uploads against an in-memory S3.
+ */
+class StorageControllerTest {
+
+    private static final int PART_SIZE = MultipartUploader.MIN_PART_SIZE;
+
+    private final InMemoryS3Client s3Client = new InMemoryS3Client();
+
+    private final MultipartUploader uploader = new MultipartUploader(s3Client, PART_SIZE, 2, false);
+
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new StorageController(new StorageService(s3Client, uploader)))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    void shutDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    void resumesAnInterruptedUpload() throws Exception {
+        s3Client.setListPageSize(1); // Resuming must follow the pages of the part listing
+        byte[] content = new byte[2 * PART_SIZE + 1000];
+        Arrays.fill(content, 0, PART_SIZE, (byte) 1);
+        Arrays.fill(content, PART_SIZE, 2 * PART_SIZE, (byte) 2);
+        Arrays.fill(content, 2 * PART_SIZE, content.length, (byte) 3);
+
+        JsonNode session = objectMapper.readTree(mvc.perform(post("/api/v1/storage/uploads")
+                        .param("bucketName", "imagery").param("fileName", "scene.tif"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.partSize").value(PART_SIZE))
+                .andExpect(jsonPath("$.parts").isEmpty())
+                .andReturn().getResponse().getContentAsString());
+        String uploadId = session.get("uploadId").asText();
+        String key = session.get("key").asText();
+        assertThat(key).endsWith("-scene.tif");
+        String upload = "/api/v1/storage/uploads/" + uploadId;
+
+        mvc.perform(put(upload + "/parts/1").param("bucketName", "imagery").param("key", key)
+                        .content(Arrays.copyOfRange(content, 0, PART_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partNumber").value(1))
+                .andExpect(jsonPath("$.size").value(PART_SIZE));
+        // The connection drops during part 2; the client asks what arrived and sends the rest
+        mvc.perform(put(upload + "/parts/2").param("bucketName", "imagery").param("key", key)
+                        .content(new byte[1000]))
+                .andExpect(status().isOk());
+        mvc.perform(get(upload).param("bucketName", "imagery").param("key", key))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parts.length()").value(2))
+                .andExpect(jsonPath("$.parts[0].size").value(PART_SIZE))
+                .andExpect(jsonPath("$.parts[1].size").value(1000));
+        mvc.perform(put(upload + "/parts/2").param("bucketName", "imagery").param("key", key)
+                        .content(Arrays.copyOfRange(content, PART_SIZE, 2 * PART_SIZE)))
+                .andExpect(status().isOk());
+        mvc.perform(put(upload + "/parts/3").param("bucketName", "imagery").param("key", key)
+                        .content(Arrays.copyOfRange(content, 2 * PART_SIZE, content.length)))
+                .andExpect(status().isOk());
+
+        mvc.perform(post(upload + "/complete").param("bucketName", "imagery").param("key", key))
+                .andExpect(status().isOk());
+        assertThat(s3Client.object("imagery", key)).isEqualTo(content);
+        assertThat(s3Client.openUploads()).isZero();
+    }
+
+    @Test
+    void rejectsPartsOutsideTheLimits() throws Exception {
+        JsonNode session = startUpload();
+        String upload = "/api/v1/storage/uploads/" + session.get("uploadId").asText();
+        String key = session.get("key").asText();
+
+        mvc.perform(put(upload + "/parts/1").param("bucketName", "imagery").param("key", key)
+                        .content(new byte[PART_SIZE + 1]))
+                .andExpect(status().isBadRequest());
+        mvc.perform(put(upload + "/parts/10001").param("bucketName", "imagery").param("key", key)
+                        .content(new byte[10]))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post(upload + "/complete").param("bucketName", "imagery").param("key", key))
+                .andExpect(status().isBadRequest()); // No parts yet
+    }
+
+    @Test
+    void abortedUploadsCannotBeResumed() throws Exception {
+        JsonNode session = startUpload();
+        String upload = "/api/v1/storage/uploads/" + session.get("uploadId").asText();
+        String key = session.get("key").asText();
+        mvc.perform(put(upload + "/parts/1").param("bucketName", "imagery").param("key", key)
+                        .content(new byte[10]))
+                .andExpect(status().isOk());
+
+        mvc.perform(delete(upload).param("bucketName", "imagery").param("key", key))
+                .andExpect(status().isOk());
+
+        assertThat(s3Client.openUploads()).isZero();
+        mvc.perform(get(upload).param("bucketName", "imagery").param("key", key))
+                .andExpect(status().isBadRequest());
+        mvc.perform(put(upload + "/parts/2").param("bucketName", "imagery").param("key", key)
+                        .content(new byte[10]))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode startUpload() throws Exception {
+        return objectMapper.readTree(mvc.perform(post("/api/v1/storage/uploads")
+                        .param("bucketName", "imagery").param("fileName", "scene.tif"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,146 @@
+package com.tti.paveinsight.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobOutboxMessage;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobOutboxRepository;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.services.job.JobPublishResult;
+import com.tti.paveinsight.services.job.JobService;
+import com.tti.paveinsight.services.notification.NotificationService;
+import com.tti.paveinsight.services.stats.StatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class JobOutboxRelayTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final JobOutboxRepository outboxRepository = mock(JobOutboxRepository.class);
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final JobService jobService = mock(JobService.class);
+
+    private final StatsService statsService = mock(StatsService.class);
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+
+    private final JobTurnaroundTracker turnaroundTracker = mock(JobTurnaroundTracker.class);
+
+    private final SubJobTracker subJobTracker = mock(SubJobTracker.class);
+
+    private final JobScheduler jobScheduler = new JobScheduler(meterRegistry, 9, 60_000, 50, 3, 900_000, 24);
+
+    // Batches of 100, no background polling during a test, two attempts, back-off from one second
+    private final JobOutboxRelay relay = new JobOutboxRelay(outboxRepository, jobRepository, jobService,
+            statsService, notificationService, turnaroundTracker, subJobTracker, jobScheduler, new ObjectMapper(),
+            mock(PlatformTransactionManager.class), meterRegistry, 100, 3_600_000, 2, 1000, 300_000);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        relay.shutdown();
+    }
+
+    @Test
+    void deletesConfirmedMessagesAndRetriesTheOthersWithBackOff() {
+        JobOutboxMessage confirmed = message(10, job(1, null));
+        JobOutboxMessage nacked = message(11, job(2, null));
+        when(outboxRepository.findByIdInOrderByIdAsc(List.of(10L, 11L))).thenReturn(List.of(confirmed, nacked));
+        when(jobService.submitJobs(anyMap(), anyMap())).thenReturn(List.of(
+                new JobPublishResult("job-1", true, null),
+                new JobPublishResult("job-2", false, "Nacked by the broker")));
+
+        long start = System.currentTimeMillis();
+        Map<String, JobPublishResult> outcome = relay.relayNow(List.of(10L, 11L));
+
+        assertThat(outcome).containsOnlyKeys("job-1", "job-2");
+        assertThat(outcome.get("job-1").acknowledged()).isTrue();
+        verify(outboxRepository).deleteAllInBatch(List.of(confirmed));
+        verify(turnaroundTracker).published("job-1");
+        assertThat(nacked.getAttempts()).isEqualTo(1);
+        assertThat(nacked.getLastError()).isEqualTo("Nacked by the broker");
+        assertThat(nacked.getNextAttemptAt().getTime()).isBetween(start + 1000, System.currentTimeMillis() + 1000);
+        verify(jobRepository, never()).updateStatus(anyCollection(), anyString());
+        assertThat(meterRegistry.get("paveinsight.outbox.published").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("paveinsight.outbox.retried").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsTheJobWhenTheLastAttemptIsReturned() {
+        Job job = job(1, null);
+        JobOutboxMessage message = message(10, job);
+        when(outboxRepository.findByIdInOrderByIdAsc(List.of(10L))).thenReturn(List.of(message));
+        when(jobService.submitJobs(anyMap(), anyMap())).thenReturn(
+                List.of(new JobPublishResult("job-1", false, "Nacked by the broker")),
+                List.of(new JobPublishResult("job-1", false, "Returned by the broker: 312 NO_ROUTE")));
+
+        relay.relayNow(List.of(10L));
+        verify(outboxRepository).deleteAllInBatch(List.of());
+        verifyNoInteractions(notificationService);
+
+        relay.relayNow(List.of(10L));
+        assertThat(message.getAttempts()).isEqualTo(2);
+        assertThat(message.getLastError()).isEqualTo("Returned by the broker: 312 NO_ROUTE");
+        verify(outboxRepository).deleteAllInBatch(List.of(message));
+        verify(jobRepository).updateStatus(List.of(1L), "FAILED");
+        verify(statsService).jobStatusChanged("PENDING", "FAILED");
+        verify(notificationService).sendJobFailureNotification(job, "could not be queued for processing");
+        verify(subJobTracker, times(2)).subJobsFinished(List.of(), List.of());
+        assertThat(meterRegistry.get("paveinsight.outbox.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsASubJobGivenUpOnAsAFailedPartOfItsParent() {
+        Job parent = job(1, null);
+        parent.setSubJobCount(2);
+        parent.setFailedSubJobs(1);
+        Job subJob = job(2, parent);
+        JobOutboxMessage message = message(10, subJob);
+        message.setAttempts(1);
+        when(outboxRepository.findByIdInOrderByIdAsc(List.of(10L))).thenReturn(List.of(message));
+        when(jobService.submitJobs(anyMap(), anyMap())).thenReturn(
+                List.of(new JobPublishResult("job-2", false, "No confirm from the broker in time")));
+        when(subJobTracker.subJobsFinished(List.of(), List.of(subJob))).thenReturn(List.of(parent));
+
+        relay.relayNow(List.of(10L));
+
+        verify(jobRepository).updateStatus(List.of(2L), "FAILED");
+        verify(notificationService).sendJobFailureNotification(subJob, "could not be queued for processing");
+        verify(notificationService).sendJobFailureNotification(parent, "1 of 2 parts failed");
+    }
+
+    private static Job job(long id, Job parent) {
+        Request request = new Request();
+        request.setEmail("customer@example.com");
+        Job job = new Job();
+        job.setId(id);
+        job.setStatus("PENDING");
+        job.setCorrelationId("job-" + id);
+        job.setParentJob(parent);
+        request.addJob(job);
+        return job;
+    }
+
+    private static JobOutboxMessage message(long id, Job job) {
+        JobOutboxMessage message = new JobOutboxMessage();
+        message.setId(id);
+        message.setJob(job);
+        message.setCorrelationId(job.getCorrelationId());
+        message.setCustomer("customer@example.com");
+        message.setPayload("{}");
+        message.setCreatedAt(new Date());
+        message.setNextAttemptAt(message.getCreatedAt());
+        return message;
+    }
+}
@@ -0,0 +1,144 @@
+package com.tti.paveinsight.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobResult;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.repositories.JobResultRepository;
+import com.tti.paveinsight.services.result.JobResultInvalidatedEvent;
+import com.tti.paveinsight.services.stats.StatsService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class JobReplyBatchWriterTest {
+
+    private static final long POISONED_JOB_ID = 2L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final JobResultRepository jobResultRepository = mock(JobResultRepository.class);
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final StatsService statsService = mock(StatsService.class);
+
+    private final SubJobTracker subJobTracker = mock(SubJobTracker.class);
+
+    // Batches of up to three; the writer waits up to a second for a batch to fill
+    private final JobReplyBatchWriter writer = new JobReplyBatchWriter(jobRepository, jobResultRepository,
+            new ObjectMapper(), eventPublisher, statsService, subJobTracker, mock(PlatformTransactionManager.class),
+            meterRegistry, 3, 1000);
+
+    JobReplyBatchWriterTest() {
+        // Every transaction loads fresh jobs, as a new persistence context would
+        when(jobRepository.findWithRequestByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id < 100).map(JobReplyBatchWriterTest::job).toList();
+        });
+        when(jobRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Job> jobs = invocation.getArgument(0);
+            for (Job job : jobs) {
+                if (job.getId() == POISONED_JOB_ID) {
+                    throw new IllegalStateException("Data too long for column 'bounds'");
+                }
+            }
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    @Test
+    void retriesAFailedBatchPerReplySoAPoisonedReplyFailsAlone() throws Exception {
+        CompletableFuture<PersistedReply> first = writer.enqueue(reply(1L, null));
+        CompletableFuture<PersistedReply> poisoned = writer.enqueue(reply(POISONED_JOB_ID, null));
+        CompletableFuture<PersistedReply> third = writer.enqueue(reply(3L, null));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).job().getStatus()).isEqualTo("COMPLETED");
+        assertThat(third.get(5, TimeUnit.SECONDS).job().getStatus()).isEqualTo("COMPLETED");
+        assertThatThrownBy(() -> poisoned.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        // The batch of three, then each reply on its own
+        DistributionSummary batchSizes = meterRegistry.get("paveinsight.job.replies.batch.size").summary();
+        assertThat(batchSizes.count()).isEqualTo(4);
+        assertThat(batchSizes.totalAmount()).isEqualTo(6);
+        verify(eventPublisher).publishEvent(new JobResultInvalidatedEvent(1L));
+        verify(eventPublisher).publishEvent(new JobResultInvalidatedEvent(3L));
+        verify(eventPublisher, never()).publishEvent(new JobResultInvalidatedEvent(POISONED_JOB_ID));
+    }
+
+    @Test
+    void failsTheReplyOfAnUnknownJobWithoutItsNeighbours() throws Exception {
+        CompletableFuture<PersistedReply> known = writer.enqueue(reply(1L, null));
+        CompletableFuture<PersistedReply> unknown = writer.enqueue(reply(100L, null));
+
+        assertThat(known.get(5, TimeUnit.SECONDS).job().getId()).isEqualTo(1L);
+        assertThatThrownBy(() -> unknown.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Job not found for correlation ID: reply-100");
+    }
+
+    @Test
+    void marksAFailedReplyFailedWithoutInvalidatingTheResult() throws Exception {
+        PersistedReply persisted = writer.enqueue(reply(1L, "out of memory")).get(5, TimeUnit.SECONDS);
+
+        assertThat(persisted.job().getStatus()).isEqualTo("FAILED");
+        assertThat(persisted.job().getResultGeoJsonS3URL()).isEqualTo("s3://results/earlier.geojson");
+        // The reply itself is persisted, so JobReplyCache can still answer for it
+        ArgumentCaptor<Iterable<JobResult>> results = ArgumentCaptor.captor();
+        verify(jobResultRepository).saveAll(results.capture());
+        assertThat(results.getValue()).singleElement()
+                .extracting(JobResult::getResultData, InstanceOfAssertFactories.STRING)
+                .contains("\"error\":\"out of memory\"");
+        assertThat(persisted.finishedParent()).isNull();
+        verify(statsService).jobStatusChanged("RUNNING", "FAILED");
+        verify(subJobTracker).subJobsFinished(Set.of(), Set.of());
+        verify(eventPublisher, never()).publishEvent(any(JobResultInvalidatedEvent.class));
+    }
+
+    private static Job job(long id) {
+        Request request = new Request();
+        request.setStatus("PENDING");
+        Job job = new Job();
+        job.setId(id);
+        job.setStatus("RUNNING");
+        job.setResultGeoJsonS3URL("s3://results/earlier.geojson");
+        request.addJob(job);
+        return job;
+    }
+
+    private static JobReplyMessage reply(Long jobId, String error) {
+        JobReplyMessage reply = new JobReplyMessage();
+        reply.setJobId(jobId);
+        reply.setCorrelationId("reply-" + jobId);
+        reply.setError(error);
+        reply.setJobStatus(error == null ? "complete" : "incomplete");
+        reply.setResultGeoJsonS3URL(error == null ? "s3://results/" + jobId + ".geojson" : null);
+        return reply;
+    }
+}
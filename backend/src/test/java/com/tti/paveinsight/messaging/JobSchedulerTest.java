@@ -0,0 +1,112 @@
+package com.tti.paveinsight.messaging;
+
+import com.tti.paveinsight.models.JobOutboxMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Priorities 0-9, jobs up to a minute are short, 50 ms per tile, 15 minutes per aging level
+    private final JobScheduler scheduler = new JobScheduler(meterRegistry, 9, 60_000, 50, 3, 900_000, 24);
+
+    @Test
+    void costsALevelPerDoublingOfThePredictedRuntime() {
+        Map<String, Integer> priorities = scheduler.priorities(List.of(
+                message("short", "a", 100, 0),    // 5 s
+                message("unknown", "a", null, 0), // Taken as short
+                message("medium", "a", 5000, 0),  // 250 s, a little over 4 minutes
+                message("large", "a", 20_000, 0), // 1,000 s, a little over 16 minutes
+                message("waited", "a", 20_000, 3_600_000)));
+
+        assertThat(priorities).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "short", 9, "unknown", 9, "medium", 6, "large", 4, "waited", 8));
+    }
+
+    @Test
+    void lowersCustomersAboveTheirFairShare() {
+        for (int i = 0; i < 50; i++) {
+            scheduler.published(message("a" + i, "a", 1000, 0), 9);
+        }
+        scheduler.published(message("b0", "b", 1000, 0), 9);
+        scheduler.published(message("c0", "c", 1000, 0), 9);
+
+        Map<String, Integer> priorities = scheduler.priorities(List.of(
+                message("a-next", "a", 1000, 0), message("b-next", "b", 1000, 0), message("d-next", "d", 1000, 0)));
+
+        assertThat(priorities).containsExactlyInAnyOrderEntriesOf(Map.of("a-next", 7, "b-next", 9, "d-next", 9));
+    }
+
+    @Test
+    void releasesTheShareOfRepliedJobs() {
+        for (int i = 0; i < 50; i++) {
+            scheduler.published(message("a" + i, "a", 1000, 0), 9);
+        }
+        scheduler.published(message("b0", "b", 1000, 0), 9);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 50; i++) {
+            scheduler.replied(reply("a" + i, now, now + 50_000));
+        }
+
+        assertThat(scheduler.priorities(List.of(message("a-next", "a", 1000, 0)))).containsEntry("a-next", 9);
+        assertThat(meterRegistry.get("paveinsight.job.dispatched").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("paveinsight.job.queue.wait").tag("priority", "high").timer().count()).isEqualTo(50);
+    }
+
+    @Test
+    void learnsTheTimePerTileFromReplies() {
+        scheduler.published(message("a0", "a", 1000, 0), 9);
+        long now = System.currentTimeMillis();
+        scheduler.replied(reply("a0", now, now + 1000 * 550));
+
+        // 50 + 0.2 * (550 - 50) ms per tile
+        assertThat(meterRegistry.get("paveinsight.job.predicted.millis.per.tile").gauge().value()).isEqualTo(150);
+    }
+
+    @Test
+    void capsNewJobsBelowAnOverdueJobForABoundedTime() throws InterruptedException {
+        // Priorities 0-3, 200 ms per aging level; the large job is predicted to take 20 ms
+        JobScheduler aging = new JobScheduler(meterRegistry, 3, 1, 0.001, 3, 200, 24);
+        aging.published(message("large", "a", 20_000, 0), 0);
+        long published = System.currentTimeMillis();
+
+        assertThat(aging.priorities(List.of(message("fresh", "b", 1, 0)))).containsEntry("fresh", 3);
+
+        sleepUntil(published + 300);
+        assertThat(aging.priorities(List.of(message("fresh", "b", 1, 0)))).containsEntry("fresh", 0);
+
+        // Once the ceiling would have risen past the top level, its reply is taken as lost
+        sleepUntil(published + 1100);
+        assertThat(aging.priorities(List.of(message("fresh", "b", 1, 0)))).containsEntry("fresh", 3);
+        assertThat(meterRegistry.get("paveinsight.job.dispatched").gauge().value()).isZero();
+    }
+
+    private static JobOutboxMessage message(String correlationId, String customer, Integer estimatedTiles, long ageMillis) {
+        JobOutboxMessage message = new JobOutboxMessage();
+        message.setCorrelationId(correlationId);
+        message.setCustomer(customer);
+        message.setEstimatedTiles(estimatedTiles);
+        message.setCreatedAt(new Date(System.currentTimeMillis() - ageMillis));
+        return message;
+    }
+
+    private static JobReplyMessage reply(String correlationId, long startedAt, long finishedAt) {
+        JobReplyMessage reply = new JobReplyMessage();
+        reply.setCorrelationId(correlationId);
+        reply.setJobStatus("complete");
+        reply.setStartedAt(startedAt);
+        reply.setFinishedAt(finishedAt);
+        return reply;
+    }
+
+    private static void sleepUntil(long millis) throws InterruptedException {
+        Thread.sleep(Math.max(0, millis - System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,87 @@
+package com.tti.paveinsight.messaging;
+
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.services.stats.StatsService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SubJobTrackerTest {
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final StatsService statsService = mock(StatsService.class);
+
+    private final SubJobTracker tracker = new SubJobTracker(jobRepository, statsService);
+
+    private final Job parent = parent();
+
+    SubJobTrackerTest() {
+        when(jobRepository.findAndLockByIdIn(anyCollection())).thenReturn(List.of(parent));
+    }
+
+    @Test
+    void leavesTheParentAndItsRequestOpenUntilTheMergedResultIsStored() {
+        assertThat(tracker.subJobsFinished(List.of(subJob(2), subJob(3)), List.of())).containsExactly(parent);
+
+        assertThat(parent.getStatus()).isEqualTo("MERGING");
+        assertThat(parent.getRequest().getStatus()).isEqualTo("PENDING");
+
+        tracker.mergeFinished(parent, "s3://results/merged.geojson");
+
+        assertThat(parent.getStatus()).isEqualTo("COMPLETED");
+        assertThat(parent.getResultGeoJsonS3URL()).isEqualTo("s3://results/merged.geojson");
+        assertThat(parent.getRequest().getStatus()).isEqualTo("COMPLETED");
+        verify(statsService).jobStatusChanged("MERGING", "COMPLETED");
+        verify(statsService).requestStatusChanged("PENDING", "COMPLETED");
+    }
+
+    @Test
+    void failsTheParentWhenTheMergeFails() {
+        tracker.subJobsFinished(List.of(subJob(2), subJob(3)), List.of());
+
+        tracker.mergeFinished(parent, null);
+
+        assertThat(parent.getStatus()).isEqualTo("FAILED");
+        assertThat(parent.getResultGeoJsonS3URL()).isNull();
+        assertThat(parent.getRequest().getStatus()).isEqualTo("PENDING");
+        verify(statsService, never()).requestStatusChanged(anyString(), anyString());
+    }
+
+    @Test
+    void failsTheParentWithoutMergingWhenAPartFailed() {
+        tracker.subJobsFinished(List.of(subJob(2)), List.of(subJob(3)));
+        assertThat(parent.getStatus()).isEqualTo("FAILED");
+
+        // A late merge cannot complete it
+        tracker.mergeFinished(parent, "s3://results/merged.geojson");
+
+        assertThat(parent.getStatus()).isEqualTo("FAILED");
+        assertThat(parent.getResultGeoJsonS3URL()).isNull();
+    }
+
+    private Job subJob(long id) {
+        Job subJob = new Job();
+        subJob.setId(id);
+        subJob.setParentJob(parent);
+        return subJob;
+    }
+
+    private static Job parent() {
+        Request request = new Request();
+        request.setStatus("PENDING");
+        Job parent = new Job();
+        parent.setId(1L);
+        parent.setStatus("RUNNING");
+        parent.setSubJobCount(2);
+        parent.setPendingSubJobs(2);
+        parent.setFailedSubJobs(0);
+        request.addJob(parent);
+        return parent;
+    }
+}
@@ -0,0 +1,208 @@
+package com.tti.paveinsight.services.aoi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.utils.geo.AoiReader.AoiTooLargeException;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import com.tti.paveinsight.utils.geo.TileMath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AoiServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // 1 MiB documents, 10,000 vertices, 250 km², 100 km, 20,000 tiles at zoom 18, no splitting
+    private final AoiServiceImpl aoiService = service(250, 20_000, 0);
+
+    @Test
+    void normalizesToAFeatureWithCounterClockwiseShells() throws IOException {
+        // Clockwise, open, with properties that are not an object
+        IngestedAoi aoi = aoiService.ingest("{\"type\":\"Feature\",\"properties\":[],\"geometry\":{\"type\":\"Polygon\","
+                + "\"coordinates\":[[[-96.34,30.62],[-96.34,30.629],[-96.3295,30.629],[-96.3295,30.62]]]}}");
+
+        JsonNode feature = objectMapper.readTree(aoi.geoJson());
+        assertThat(feature.get("type").asText()).isEqualTo("Feature");
+        assertThat(feature.get("properties").isObject()).isTrue();
+        Polygon polygon = (Polygon) GeoJsonGeometries.read(feature.get("geometry"));
+        assertThat(Orientation.isCCW(polygon.getExteriorRing().getCoordinateSequence())).isTrue();
+        assertThat(aoi.metrics().getVertexCount()).isEqualTo(5);
+        assertThat(aoi.metrics().getAreaSquareMeters()).isCloseTo(1_000_000, within(50_000.0));
+        assertThat(aoi.metrics().getEstimatedTiles()).isEqualTo(72);
+        assertThat(aoi.metrics().getTileZoom()).isEqualTo(18);
+        assertThat(aoi.metrics().getMinLon()).isEqualTo(-96.34);
+        assertThat(aoi.metrics().getMaxLat()).isEqualTo(30.629);
+    }
+
+    @Test
+    void windsHolesClockwise() throws IOException {
+        IngestedAoi aoi = aoiService.ingest("{\"type\":\"Polygon\",\"coordinates\":["
+                + "[[-96.34,30.62],[-96.33,30.62],[-96.33,30.63],[-96.34,30.63],[-96.34,30.62]],"
+                + "[[-96.338,30.622],[-96.332,30.622],[-96.332,30.628],[-96.338,30.628],[-96.338,30.622]]]}");
+
+        Polygon polygon = (Polygon) geometry(aoi);
+        assertThat(Orientation.isCCW(polygon.getExteriorRing().getCoordinateSequence())).isTrue();
+        assertThat(Orientation.isCCW(polygon.getInteriorRingN(0).getCoordinateSequence())).isFalse();
+    }
+
+    @Test
+    void mergesOverlappingPolygons() throws IOException {
+        IngestedAoi overlapping = aoiService.ingest("{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0.01,0],[0.01,0.01],[0,0.01],[0,0]]]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[0.005,0],[0.015,0],[0.015,0.01],[0.005,0.01],[0.005,0]]]}}]}");
+        IngestedAoi disjoint = aoiService.ingest("{\"type\":\"MultiPolygon\",\"coordinates\":["
+                + "[[[0,0],[0.01,0],[0.01,0.01],[0,0.01],[0,0]]],[[[0.02,0],[0.03,0],[0.03,0.01],[0.02,0.01],[0.02,0]]]]}");
+
+        assertThat(geometry(overlapping)).isInstanceOf(Polygon.class);
+        assertThat(geometry(overlapping).getArea()).isCloseTo(0.00015, within(1e-9));
+        assertThat(geometry(disjoint)).isInstanceOf(MultiPolygon.class);
+    }
+
+    @Test
+    void rejectsMissingAndMalformedDocuments() {
+        assertInvalid(null, "is required");
+        assertInvalid("  ", "is required");
+        assertInvalid("{\"type\":", "not valid JSON");
+        assertInvalid("{\"type\":\"Point\",\"coordinates\":[0,0]}", "Polygon or MultiPolygon");
+    }
+
+    @Test
+    void rejectsSelfIntersectingPolygons() {
+        assertInvalid("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0.01,0.01],[0.01,0],[0,0.01],[0,0]]]}",
+                "not valid: Self-intersection");
+        assertInvalid("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0.01,0],[0.01,0.01],[0,0.01],[0,0]],"
+                + "[[0.02,0.02],[0.03,0.02],[0.03,0.03],[0.02,0.02]]]}", "not valid: Hole lies outside shell");
+    }
+
+    @Test
+    void rejectsOversizedAreasOfInterest() {
+        AoiServiceImpl smallLimits = service(1, 20, 0);
+
+        assertTooLarge(aoiService, square(2.0), "spans 222.4 km");
+        assertTooLarge(smallLimits, square(0.018), "covers 4.0 km²");
+        assertTooLarge(smallLimits, square(0.008), "more than 20 tiles at zoom 18");
+        assertTooLarge(new AoiServiceImpl(objectMapper, meterRegistry, 50, 10_000, 250, 100, 20_000, 18, 0, 256, 0.02),
+                square(0.005), "larger than 50 bytes");
+        assertTooLarge(new AoiServiceImpl(objectMapper, meterRegistry, 1 << 20, 4, 250, 100, 20_000, 18, 0, 256, 0.02),
+                square(0.005), "more than 4 vertices");
+        assertThat(meterRegistry.counter("paveinsight.aoi.ingested", "outcome", "rejected", "reason", "too-large").count())
+                .isEqualTo(5);
+    }
+
+    @Test
+    void keepsAnAreaWithinThePartSizeWhole() throws IOException {
+        // 56 tiles, with the properties of the Feature
+        List<IngestedAoi> parts = service(250, 20_000, 56).split("{\"type\":\"Feature\",\"properties\":{\"name\":\"Campus\"},"
+                + "\"geometry\":" + square(0.009) + "}");
+
+        assertThat(parts).hasSize(1);
+        assertThat(parts.get(0).metrics().getEstimatedTiles()).isEqualTo(56);
+        assertThat(objectMapper.readTree(parts.get(0).geoJson()).at("/properties/name").asText()).isEqualTo("Campus");
+    }
+
+    @Test
+    void splitsAlongCellsOfAtMostTheSplitTiles() throws IOException {
+        // 64 tiles at zoom 18 make a cell at zoom 15, of 8 x 8 tiles; the square spans 2 x 2 cells
+        List<IngestedAoi> parts = service(250, 20_000, 64).split("{\"type\":\"Feature\",\"properties\":{\"name\":\"Campus\"},"
+                + "\"geometry\":" + square(0.02) + "}");
+
+        assertThat(parts).hasSize(4);
+        double area = 0;
+        for (IngestedAoi part : parts) {
+            Envelope bounds = geometry(part).getEnvelopeInternal();
+            int x = (int) TileMath.tileX(bounds.centre().x, 15);
+            int y = (int) TileMath.tileY(bounds.centre().y, 15);
+            assertThat(TileMath.tileEnvelope(15, x, y, 0.02).contains(bounds)).isTrue();
+            assertThat(part.metrics().getTileZoom()).isEqualTo(18);
+            assertThat(part.metrics().getEstimatedTiles()).isBetween(1, 100); // 8 x 8, and a row and column of overlap
+            assertThat(objectMapper.readTree(part.geoJson()).get("properties").isEmpty()).isTrue();
+            area += geometry(part).getArea();
+        }
+        assertThat(area).isGreaterThan(0.02 * 0.02);
+    }
+
+    @Test
+    void usesFewerLargerCellsBeyondTheMaximumParts() throws IOException {
+        // The square spans 2 x 2 cells at zoom 15 but fits one at zoom 14
+        AoiServiceImpl twoParts = new AoiServiceImpl(objectMapper, meterRegistry, 1 << 20, 10_000, 250, 100, 20_000,
+                18, 64, 2, 0.02);
+
+        List<IngestedAoi> parts = twoParts.split(square(0.02));
+
+        assertThat(parts).hasSize(1);
+        assertThat(geometry(parts.get(0)).getArea()).isCloseTo(0.02 * 0.02, within(1e-12));
+    }
+
+    @Test
+    void overlapsAdjacentPartsByAFractionOfTheCell() throws IOException {
+        List<IngestedAoi> parts = service(250, 20_000, 64).split(square(0.02));
+
+        double seam = TileMath.longitude(16385, 15);
+        double overlap = 0.02 * (TileMath.longitude(1, 15) - TileMath.longitude(0, 15));
+        List<Geometry> west = parts.stream().map(this::geometry).filter(part -> part.getEnvelopeInternal().getMinX() == 0).toList();
+        List<Geometry> east = parts.stream().map(this::geometry).filter(part -> part.getEnvelopeInternal().getMinX() > 0).toList();
+        assertThat(west).hasSize(2);
+        assertThat(east).hasSize(2);
+        west.forEach(part -> assertThat(part.getEnvelopeInternal().getMaxX()).isCloseTo(seam + overlap, within(1e-9)));
+        east.forEach(part -> assertThat(part.getEnvelopeInternal().getMinX()).isCloseTo(seam - overlap, within(1e-9)));
+    }
+
+    @Test
+    void skipsCellsTheAreaDoesNotReachInto() throws IOException {
+        // An L, which leaves out the north-east cell, resting on the equator, a cell edge at every zoom
+        String corner = "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0.02,0],[0.02,0.005],[0.005,0.005],"
+                + "[0.005,0.02],[0,0.02],[0,0]]]}";
+
+        List<IngestedAoi> parts = service(250, 20_000, 64).split(corner);
+
+        assertThat(parts).hasSize(3);
+        assertThat(parts).noneMatch(part -> geometry(part).getEnvelopeInternal().getMinX() > 0
+                && geometry(part).getEnvelopeInternal().getMinY() > 0);
+    }
+
+    private AoiServiceImpl service(double maxAreaKm2, int maxTiles, int splitTiles) {
+        return new AoiServiceImpl(objectMapper, meterRegistry, 1 << 20, 10_000, maxAreaKm2, 100, maxTiles, 18,
+                splitTiles, 256, 0.02);
+    }
+
+    private Geometry geometry(IngestedAoi aoi) {
+        try {
+            return GeoJsonGeometries.read(objectMapper.readTree(aoi.geoJson()).get("geometry"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A square of the given side in degrees, at the equator
+    static String square(double side) {
+        return "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[" + side + ",0],[" + side + "," + side + "],[0," + side + "],[0,0]]]}";
+    }
+
+    private void assertInvalid(String geoJson, String reason) {
+        assertThatThrownBy(() -> aoiService.ingest(geoJson))
+                .isInstanceOf(IllegalArgumentException.class)
+                .isNotInstanceOf(AoiTooLargeException.class)
+                .hasMessageContaining(reason);
+    }
+
+    private static void assertTooLarge(AoiServiceImpl service, String geoJson, String reason) {
+        assertThatThrownBy(() -> service.ingest(geoJson))
+                .isInstanceOf(AoiTooLargeException.class)
+                .hasMessageContaining(reason);
+    }
+}
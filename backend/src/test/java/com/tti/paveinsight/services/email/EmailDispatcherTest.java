@@ -0,0 +1,127 @@
+package com.tti.paveinsight.services.email;
+
+import com.tti.paveinsight.config.MailConfig;
+import com.tti.paveinsight.dto.EmailStatusDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SmtpStub smtp = new SmtpStub();
+
+    private EmailDispatcher dispatcher;
+
+    EmailDispatcherTest() throws Exception {
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        smtp.close();
+    }
+
+    @Test
+    void deliversQueuedMessagesOverOneConnection() throws Exception {
+        dispatcher = dispatcher(200, 30_000);
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(dispatcher.enqueue("user" + i + "@example.com", "Results ready", "results-ready",
+                    Map.of("requestId", "request-" + i, "link", "https://example.com/" + i), null, true).getId());
+        }
+
+        for (UUID id : ids) {
+            assertThat(awaitStatus(id, "SENT").getAttempts()).isEqualTo(1);
+        }
+        assertThat(smtp.delivered()).isEqualTo(10);
+        assertThat(smtp.connections()).isEqualTo(1);
+        assertThat(meterRegistry.get("paveinsight.email.sent").counter().count()).isEqualTo(10);
+    }
+
+    @Test
+    void retriesATemporaryRefusalWithBackOff() throws Exception {
+        dispatcher = dispatcher(200, 30_000);
+        smtp.refuseNext(2);
+
+        UUID id = dispatcher.enqueue("user@example.com", "Job failed", null, null, "Sorry", false).getId();
+
+        assertThat(awaitStatus(id, "SENT").getAttempts()).isEqualTo(3);
+        assertThat(smtp.delivered()).isEqualTo(1);
+        // Back-off of 200 ms, then 400 ms
+        List<Long> dataAt = smtp.dataAt();
+        assertThat(dataAt).hasSize(3);
+        assertThat(dataAt.get(1) - dataAt.get(0)).isGreaterThanOrEqualTo(200);
+        assertThat(dataAt.get(2) - dataAt.get(1)).isGreaterThanOrEqualTo(400);
+        assertThat(meterRegistry.get("paveinsight.email.retried").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void failsARejectedRecipientWithoutRetrying() throws Exception {
+        dispatcher = dispatcher(200, 30_000);
+
+        UUID rejected = dispatcher.enqueue("nobody" + SmtpStub.REJECTED_DOMAIN, "Job failed", null, null, "Sorry", false).getId();
+        UUID accepted = dispatcher.enqueue("user@example.com", "Job failed", null, null, "Sorry", false).getId();
+
+        EmailStatusDto status = awaitStatus(rejected, "FAILED");
+        assertThat(status.getAttempts()).isEqualTo(1);
+        assertThat(status.getLastError()).isNotBlank();
+        // The connection survives the rejection
+        awaitStatus(accepted, "SENT");
+        assertThat(smtp.dataAt()).hasSize(1);
+        assertThat(smtp.connections()).isEqualTo(1);
+        assertThat(meterRegistry.get("paveinsight.email.retried").counter().count()).isZero();
+    }
+
+    @Test
+    void shutsDownWithoutWaitingForTheIdleTimeoutAndFailsPendingRetries() throws Exception {
+        // Long enough that neither the idle timeout nor the retry is reached in the test
+        dispatcher = dispatcher(60_000, 60_000);
+        UUID sent = dispatcher.enqueue("user@example.com", "Results ready", null, null, "Done", false).getId();
+        awaitStatus(sent, "SENT");
+        smtp.refuseNext(1);
+        UUID retrying = dispatcher.enqueue("other@example.com", "Results ready", null, null, "Done", false).getId();
+        awaitStatus(retrying, "RETRYING");
+
+        long start = System.currentTimeMillis();
+        dispatcher.shutdown();
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(5_000);
+        EmailStatusDto status = dispatcher.getStatus(retrying);
+        assertThat(status.getStatus()).isEqualTo("FAILED");
+        assertThat(status.getAttempts()).isEqualTo(1);
+        assertThat(meterRegistry.get("paveinsight.email.failed").counter().count()).isEqualTo(1);
+    }
+
+    private EmailDispatcher dispatcher(long backoffMillis, long idleCloseMillis) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.localhost", "localhost");
+        return new EmailDispatcher(mailSender, new MailConfig().emailTemplateEngine(), meterRegistry,
+                "noreply@example.com", 100, 5, backoffMillis, idleCloseMillis, false);
+    }
+
+    private EmailStatusDto awaitStatus(UUID id, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        EmailStatusDto current = dispatcher.getStatus(id);
+        while (!status.equals(current.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            current = dispatcher.getStatus(id);
+        }
+        assertThat(current.getStatus()).isEqualTo(status);
+        return current;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tti.paveinsight.services.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal SMTP server on a local port, enough for Jakarta Mail to deliver plain messages without
+ * authentication or STARTTLS. Recipients at the rejected domain are refused with 550, and the
+ * first given number of messages are refused after DATA with 451, as a greylisting server does.
+ * Counts the connections made and records the time of every DATA.
+ */
+public class SmtpStub implements AutoCloseable {
+
+    public static final String REJECTED_DOMAIN = "@rejected.example.com";
+
+    private final ServerSocket server;
+
+    private final List<Socket> sockets = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Long> dataAt = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger delivered = new AtomicInteger();
+
+    private final AtomicInteger refusals = new AtomicInteger();
+
+    public SmtpStub() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "smtp-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public int delivered() {
+        return delivered.get();
+    }
+
+    // Times of the DATA commands, accepted or refused, in milliseconds
+    public List<Long> dataAt() {
+        return List.copyOf(dataAt);
+    }
+
+    public void refuseNext(int messages) {
+        refusals.set(messages);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.incrementAndGet();
+                sockets.add(socket);
+                Thread session = new Thread(() -> serve(socket), "smtp-stub-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return; // Closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.US_ASCII)) {
+            reply(out, "220 smtp-stub ready");
+            boolean recipients = false;
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 smtp-stub");
+                } else if (command.startsWith("MAIL")) {
+                    recipients = false;
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT")) {
+                    if (command.contains(REJECTED_DOMAIN.toUpperCase())) {
+                        reply(out, "550 No such user");
+                    } else {
+                        recipients = true;
+                        reply(out, "250 OK");
+                    }
+                } else if (command.startsWith("DATA")) {
+                    if (!recipients) {
+                        reply(out, "503 No valid recipients");
+                        continue;
+                    }
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    for (line = in.readLine(); line != null && !line.equals("."); line = in.readLine()) {
+                        // The message itself is not checked
+                    }
+                    dataAt.add(System.currentTimeMillis());
+                    if (refusals.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                        reply(out, "451 Greylisted, try again later");
+                    } else {
+                        delivered.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK"); // RSET, NOOP
+                }
+            }
+        } catch (IOException e) {
+            // Closed by the client or the test
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private static void reply(PrintWriter out, String line) {
+        out.print(line + "\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,208 @@
+package com.tti.paveinsight.services.raster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.services.storage.InMemoryS3Client;
+import com.tti.paveinsight.services.storage.InMemoryS3Client.RangeRead;
+import com.tti.paveinsight.services.storage.MultipartUploader;
+import com.tti.paveinsight.services.storage.StorageService;
+import com.tti.paveinsight.utils.S3Utils;
+import com.tti.paveinsight.utils.geo.TileMath;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.plugins.tiff.TIFFField;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RasterTileServiceTest {
+
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    // A 1024px square image of 4 x 4 uncompressed TIFF tiles of 256px, each in its own colour
+    private static final int IMAGE_SIZE = 1024;
+
+    private static final int TIFF_TILE_SIZE = 256;
+
+    private static final double WEST = -96.32, EAST = -96.30, SOUTH = 30.60, NORTH = 30.62;
+
+    private final InMemoryS3Client s3Client = new InMemoryS3Client();
+
+    private final RasterTileService service = new RasterTileService(
+            new RangeBlockCache(new StorageService(s3Client, mock(MultipartUploader.class)),
+                    BLOCK_SIZE, 64L * 1024 * 1024),
+            new S3Utils(), new ObjectMapper(), 16L * 1024 * 1024);
+
+    private final byte[] tif = tiledTiff();
+
+    // Byte ranges of the TIFF tiles in the file, as {offset, length} in row-major order
+    private final long[][] tiffTiles = tiffTiles(tif);
+
+    private final Job job = job();
+
+    RasterTileServiceTest() {
+        s3Client.putObject("rasters", "sr/1.tif", tif);
+    }
+
+    @Test
+    void rendersATileInsideTheImageFromTheTiffTileItCovers() {
+        // The centre of the second TIFF tile of the second row
+        int z = 18;
+        int x = (int) TileMath.tileX(WEST + 1.5 * (EAST - WEST) / 4, z);
+        int y = (int) TileMath.tileY(NORTH - 1.5 * (NORTH - SOUTH) / 4, z);
+
+        BufferedImage tile = decode(service.getTile(job, z, x, y));
+
+        for (int j = 0; j < RasterTileService.TILE_SIZE; j += 15) {
+            for (int i = 0; i < RasterTileService.TILE_SIZE; i += 15) {
+                assertThat(tile.getRGB(i, j)).isEqualTo(0xff000000 | colour(1, 1));
+            }
+        }
+        List<RangeRead> reads = s3Client.rangeReads();
+        assertOnlyTouches(reads, 1 * 4 + 1);
+        assertThat(reads.stream().mapToLong(read -> read.last() - read.first() + 1).sum()).isLessThan(tif.length / 4);
+    }
+
+    @Test
+    void leavesThePixelsWestOfTheImageTransparent() {
+        int z = 18;
+        int x = (int) TileMath.tileX(WEST, z); // The tile the west edge runs through
+        int y = (int) TileMath.tileY(NORTH - 1.5 * (NORTH - SOUTH) / 4, z);
+
+        BufferedImage tile = decode(service.getTile(job, z, x, y));
+
+        int transparent = 0;
+        int row = RasterTileService.TILE_SIZE / 2;
+        for (int i = 0; i < RasterTileService.TILE_SIZE; i++) {
+            int argb = tile.getRGB(i, row);
+            if (argb >>> 24 == 0) {
+                transparent++;
+                assertThat(transparent).as("transparent pixels come first").isEqualTo(i + 1);
+            } else {
+                assertThat(argb).isEqualTo(0xff000000 | colour(0, 1));
+            }
+        }
+        assertThat(tile.getRGB(0, row) >>> 24).isZero();
+        assertThat(transparent).isLessThan(RasterTileService.TILE_SIZE);
+        assertOnlyTouches(s3Client.rangeReads(), 1 * 4);
+    }
+
+    @Test
+    void returnsAnEmptyTileAwayFromTheImageWithoutReadingPixels() {
+        // Loads the image structure, then a tile on the other side of the world
+        decode(service.getTile(job, 18, (int) TileMath.tileX(WEST + 0.001, 18), (int) TileMath.tileY(NORTH - 0.001, 18)));
+        int reads = s3Client.rangeReads().size();
+
+        assertThat(service.getTile(job, 18, 0, 0)).isEmpty();
+        assertThat(service.getTile(job, 10, 1000, 1000)).isEmpty();
+        assertThat(s3Client.rangeReads()).hasSize(reads);
+    }
+
+    // Every read is of whole blocks, no block is read twice, and none holds only pixels of other TIFF tiles
+    private void assertOnlyTouches(List<RangeRead> reads, int tiffTile) {
+        Set<Long> blocks = new HashSet<>();
+        for (RangeRead read : reads) {
+            assertThat(read.first() % BLOCK_SIZE).isZero();
+            for (long block = read.first() / BLOCK_SIZE; block <= read.last() / BLOCK_SIZE; block++) {
+                assertThat(blocks.add(block)).as("block %d read once", block).isTrue();
+                long start = block * BLOCK_SIZE;
+                long end = Math.min(tif.length, start + BLOCK_SIZE);
+                if (overlaps(start, end, tiffTiles[tiffTile])) {
+                    continue;
+                }
+                for (long[] other : tiffTiles) {
+                    assertThat(start >= other[0] && end <= other[0] + other[1])
+                            .as("block %d lies inside another TIFF tile", block).isFalse();
+                }
+            }
+        }
+        // All of the covered TIFF tile was read
+        long[] covered = tiffTiles[tiffTile];
+        for (long block = covered[0] / BLOCK_SIZE; block <= (covered[0] + covered[1] - 1) / BLOCK_SIZE; block++) {
+            assertThat(blocks).contains(block);
+        }
+    }
+
+    private static boolean overlaps(long start, long end, long[] range) {
+        return start < range[0] + range[1] && range[0] < end;
+    }
+
+    private static int colour(int column, int row) {
+        return (0x40 * column) << 16 | (0x40 * row) << 8 | 0xc0;
+    }
+
+    private static BufferedImage decode(byte[] png) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] tiledTiff() {
+        BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < IMAGE_SIZE; y++) {
+            for (int x = 0; x < IMAGE_SIZE; x++) {
+                image.setRGB(x, y, colour(x / TIFF_TILE_SIZE, y / TIFF_TILE_SIZE));
+            }
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setTiling(TIFF_TILE_SIZE, TIFF_TILE_SIZE, 0, 0);
+            param.setCompressionMode(ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static long[][] tiffTiles(byte[] tif) {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("tiff").next();
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(tif))) {
+            reader.setInput(stream);
+            TIFFDirectory directory = TIFFDirectory.createFromMetadata(reader.getImageMetadata(0));
+            TIFFField offsets = directory.getTIFFField(BaselineTIFFTagSet.TAG_TILE_OFFSETS);
+            TIFFField lengths = directory.getTIFFField(BaselineTIFFTagSet.TAG_TILE_BYTE_COUNTS);
+            long[][] tiles = new long[offsets.getCount()][];
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = new long[]{offsets.getAsLong(i), lengths.getAsLong(i)};
+            }
+            return tiles;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static Job job() {
+        Job job = new Job();
+        job.setId(1L);
+        job.setSuperResolutionTIFS3URL("https://rasters.s3.amazonaws.com/sr/1.tif");
+        job.setBounds("{\"north\":" + NORTH + ",\"south\":" + SOUTH + ",\"east\":" + EAST + ",\"west\":" + WEST + "}");
+        return job;
+    }
+}
@@ -0,0 +1,148 @@
+package com.tti.paveinsight.services.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.dto.BulkSubmitResultDto;
+import com.tti.paveinsight.dto.JobDto;
+import com.tti.paveinsight.dto.JobSubmissionDto;
+import com.tti.paveinsight.messaging.JobOutboxRelay;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.models.JobOutboxMessage;
+import com.tti.paveinsight.models.Request;
+import com.tti.paveinsight.repositories.JobRepository;
+import com.tti.paveinsight.repositories.JobResultRepository;
+import com.tti.paveinsight.repositories.RequestRepository;
+import com.tti.paveinsight.services.aoi.AoiService;
+import com.tti.paveinsight.services.job.JobPublishResult;
+import com.tti.paveinsight.services.raster.RasterTileService;
+import com.tti.paveinsight.services.result.FinalizedResultCache;
+import com.tti.paveinsight.services.result.ResultFeatureCache;
+import com.tti.paveinsight.services.result.ResultStorageService;
+import com.tti.paveinsight.services.result.SimplifiedResultCache;
+import com.tti.paveinsight.services.segment.SegmentService;
+import com.tti.paveinsight.services.stats.StatsService;
+import com.tti.paveinsight.services.tiles.VectorTileService;
+import com.tti.paveinsight.utils.JobUtils;
+import com.tti.paveinsight.utils.RequestUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class RequestServiceImplTest {
+
+    private final RequestRepository requestRepository = mock(RequestRepository.class);
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final JobOutboxRelay jobOutboxRelay = mock(JobOutboxRelay.class);
+
+    private final AoiService aoiService = mock(AoiService.class);
+
+    private final RequestServiceImpl requestService = new RequestServiceImpl(requestRepository, jobRepository,
+            mock(JobResultRepository.class), jobOutboxRelay, mock(ResultStorageService.class),
+            mock(FinalizedResultCache.class), mock(VectorTileService.class), mock(RasterTileService.class),
+            mock(ResultFeatureCache.class), mock(SimplifiedResultCache.class), mock(SegmentService.class),
+            mock(StatsService.class), aoiService, new ObjectMapper(), mock(ApplicationEventPublisher.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new RequestUtils(), new JobUtils());
+
+    private final List<Job> savedJobs = new ArrayList<>();
+
+    private final Request first = request();
+
+    private final Request second = request();
+
+    RequestServiceImplTest() {
+        AtomicLong jobIds = new AtomicLong();
+        when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> {
+            Job job = invocation.getArgument(0);
+            job.setId(jobIds.incrementAndGet()); // Generated by the database
+            savedJobs.add(job);
+            return job;
+        });
+        // Outbox message IDs are 100 above the ID of their job
+        when(jobOutboxRelay.add(any(Job.class), any())).thenAnswer(invocation -> {
+            JobOutboxMessage message = new JobOutboxMessage();
+            message.setId(100 + invocation.<Job>getArgument(0).getId());
+            return message;
+        });
+        when(requestRepository.findAllById(anyIterable())).thenReturn(List.of(first, second));
+    }
+
+    @Test
+    void reportsTheBrokerOutcomeOfEachJob() {
+        when(jobOutboxRelay.relayNow(List.of(101L, 102L))).thenAnswer(invocation -> Map.of(
+                savedJobs.get(0).getCorrelationId(), new JobPublishResult(savedJobs.get(0).getCorrelationId(), true, null),
+                savedJobs.get(1).getCorrelationId(), new JobPublishResult(savedJobs.get(1).getCorrelationId(), false,
+                        "Returned by the broker: 312 NO_ROUTE")));
+
+        // A duplicate ID is submitted once
+        BulkSubmitResultDto result = requestService.submitJobsForRequests(List.of(first.getId(), second.getId(), first.getId()));
+
+        assertThat(result.getSubmitted()).isEqualTo(2);
+        assertThat(result.getAcknowledged()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getJobs()).extracting(JobSubmissionDto::getRequestId).containsExactly(first.getId(), second.getId());
+        assertThat(result.getJobs()).extracting(JobSubmissionDto::isAcknowledged).containsExactly(true, false);
+        assertThat(result.getJobs().get(1).getReason()).isEqualTo("Returned by the broker: 312 NO_ROUTE");
+        assertThat(savedJobs).extracting(Job::getStatus).containsOnly("PENDING");
+    }
+
+    @Test
+    void leavesTheJobsInTheOutboxWhenTheRelayFails() {
+        when(jobOutboxRelay.relayNow(anyCollection()))
+                .thenThrow(new IllegalStateException("Outbox relay failed: Connection refused"));
+
+        BulkSubmitResultDto result = requestService.submitJobsForRequests(List.of(first.getId(), second.getId()));
+
+        assertThat(result.getAcknowledged()).isZero();
+        assertThat(result.getJobs()).extracting(JobSubmissionDto::getReason)
+                .containsOnly("Outbox relay failed: Connection refused");
+        verify(jobOutboxRelay, times(2)).add(any(Job.class), any());
+    }
+
+    @Test
+    void rejectsTheWholeBatchWhenARequestDoesNotExist() {
+        UUID unknown = UUID.randomUUID();
+
+        assertThatThrownBy(() -> requestService.submitJobsForRequests(List.of(first.getId(), unknown)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Request not found with ID: " + unknown);
+        verify(jobOutboxRelay, never()).relayNow(anyCollection());
+    }
+
+    @Test
+    void listsASplitJobWithoutItsSubJobs() {
+        Job parent = new Job();
+        parent.setId(1L);
+        parent.setSubJobCount(2);
+        first.addJob(parent);
+        for (long id = 2; id <= 3; id++) {
+            Job subJob = new Job();
+            subJob.setId(id);
+            subJob.setParentJob(parent);
+            first.addJob(subJob);
+        }
+        when(requestRepository.findById(first.getId())).thenReturn(Optional.of(first));
+
+        assertThat(requestService.getResultsJobs(first.getId())).extracting(JobDto::getId).containsExactly(1L);
+        assertThat(requestService.getRequestById(first.getId()).getJobs()).extracting(JobDto::getId).containsExactly(1L);
+    }
+
+    private static Request request() {
+        Request request = new Request();
+        request.setId(UUID.randomUUID());
+        request.setStatus("PENDING");
+        return request;
+    }
+}
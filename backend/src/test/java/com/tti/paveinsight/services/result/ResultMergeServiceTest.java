@@ -0,0 +1,113 @@
+package com.tti.paveinsight.services.result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tti.paveinsight.models.Job;
+import com.tti.paveinsight.services.result.ResultMergeService.MergeSource;
+import com.tti.paveinsight.utils.geo.GeoJsonGeometries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResultMergeServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ResultStorageService resultStorageService = mock(ResultStorageService.class);
+
+    private final ResultMergeService mergeService = new ResultMergeService(resultStorageService, null, null, null,
+            objectMapper, null, meterRegistry, 5);
+
+    private final Map<Job, Geometry> coverage = new HashMap<>();
+
+    // Two areas side by side that overlap between 0.0098 and 0.0102
+    private final Job west = job(1, 0, 0.0102,
+            road("Inner West", 70, 0.001, 0.003, 0.004, 0.003),
+            road("Main St", 80, 0, 0.005, 0.0102, 0.005),
+            road("Seam Rd", 50, 0.0099, 0, 0.0099, 0.01),
+            road("Other St", 30, 0.0095, 0.008, 0.0102, 0.008));
+
+    private final Job east = job(2, 0.0098, 0.02,
+            road("Inner East", 60, 0.015, 0.003, 0.018, 0.003),
+            road("Main St", 40, 0.0098, 0.005, 0.02, 0.005),
+            road("Seam Rd", 60, 0.0099, 0, 0.0099, 0.01),
+            road("Other St", 90, 0.0098, 0.008, 0.0105, 0.008));
+
+    @Test
+    void writesInnerFeaturesAndStitchesTheSeams() throws IOException {
+        Map<String, JsonNode> features = merge(List.of(new MergeSource(west, coverage.get(west)),
+                new MergeSource(east, coverage.get(east))));
+
+        assertThat(features).containsOnlyKeys("Inner West", "Inner East", "Main St", "Seam Rd", "Other St");
+        assertThat(features.get("Inner West").at("/properties/PCI").asDouble()).isEqualTo(70);
+        assertThat(features.get("Main St").at("/geometry/type").asText()).isEqualTo("LineString");
+        JsonNode mainSt = features.get("Main St").at("/geometry/coordinates");
+        assertThat(mainSt.get(0).get(0).asDouble()).isZero();
+        assertThat(mainSt.get(mainSt.size() - 1).get(0).asDouble()).isEqualTo(0.02);
+        assertThat(features.get("Main St").at("/properties/PCI").asDouble()).isEqualTo(60);
+        assertThat(features.get("Seam Rd").at("/properties/PCI").asDouble()).isEqualTo(55);
+        assertThat(features.get("Other St").at("/properties/PCI").asDouble()).isCloseTo(
+                (30 * 0.0007 + 90 * 0.0007) / 0.0014, within(0.01));
+        // Only the roads on the seam were held back
+        assertThat(meterRegistry.summary("paveinsight.results.merge.seam.features").totalAmount()).isEqualTo(6);
+    }
+
+    @Test
+    void treatsResultsOfUnknownAreaAsAllSeam() throws IOException {
+        Map<String, JsonNode> features = merge(List.of(new MergeSource(west, null), new MergeSource(east, null)));
+
+        assertThat(features).containsOnlyKeys("Inner West", "Inner East", "Main St", "Seam Rd", "Other St");
+        assertThat(features.get("Main St").at("/properties/PCI").asDouble()).isEqualTo(60);
+        assertThat(meterRegistry.summary("paveinsight.results.merge.seam.features").totalAmount()).isEqualTo(8);
+    }
+
+    // The merged features by street name, which must each appear once
+    private Map<String, JsonNode> merge(List<MergeSource> sources) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mergeService.merge(sources, out);
+
+        JsonNode merged = objectMapper.readTree(out.toByteArray());
+        assertThat(merged.get("type").asText()).isEqualTo("FeatureCollection");
+        Map<String, JsonNode> features = new HashMap<>();
+        for (JsonNode feature : merged.get("features")) {
+            assertThat(features.put(feature.at("/properties/StreetName").asText(), feature)).isNull();
+        }
+        return features;
+    }
+
+    // A job whose result holds the given features, over the area between the longitudes
+    private Job job(long id, double minLon, double maxLon, String... features) {
+        Job job = new Job();
+        job.setId(id);
+        byte[] document = ("{\"type\":\"FeatureCollection\",\"features\":[" + String.join(",", features) + "]}")
+                .getBytes(StandardCharsets.UTF_8);
+        try {
+            when(resultStorageService.openGeoJson(job)).thenAnswer(invocation -> new ByteArrayInputStream(document));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        coverage.put(job, GeoJsonGeometries.FACTORY.toGeometry(new Envelope(minLon, maxLon, 0, 0.01)));
+        return job;
+    }
+
+    private static String road(String streetName, int pci, double x1, double y1, double x2, double y2) {
+        return "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[" + x1 + "," + y1 + "],["
+                + x2 + "," + y2 + "]]},\"properties\":{\"StreetName\":\"" + streetName + "\",\"PCI\":" + pci + "}}";
+    }
+}
@@ -0,0 +1,223 @@
+package com.tti.paveinsight.services.storage;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for S3 covering single PUTs and multipart uploads, with the multipart rules
+ * the application relies on: parts replace earlier parts of the same number, every part but
+ * the last must be at least 5 MiB, and listParts is paged. Part uploads can be made to fail and
+ * are slowed down so tests can observe their concurrency. Objects can be read whole or with a
+ * single "bytes=first-last" range; every ranged read is recorded.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicInteger activeParts = new AtomicInteger();
+
+    private final AtomicInteger peakParts = new AtomicInteger();
+
+    private final AtomicInteger uploadCount = new AtomicInteger();
+
+    private final List<RangeRead> rangeReads = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile int failingPart = -1;
+
+    private volatile long partDelayMillis;
+
+    private volatile int listPageSize = 1000;
+
+    public byte[] object(String bucketName, String key) {
+        return objects.get(bucketName + "/" + key);
+    }
+
+    public void putObject(String bucketName, String key, byte[] content) {
+        objects.put(bucketName + "/" + key, content);
+    }
+
+    public List<RangeRead> rangeReads() {
+        return List.copyOf(rangeReads);
+    }
+
+    public int openUploads() {
+        return uploads.size();
+    }
+
+    public int peakConcurrentParts() {
+        return peakParts.get();
+    }
+
+    public void failPart(int partNumber) {
+        failingPart = partNumber;
+    }
+
+    public void setPartDelayMillis(long partDelayMillis) {
+        this.partDelayMillis = partDelayMillis;
+    }
+
+    public void setListPageSize(int listPageSize) {
+        this.listPageSize = listPageSize;
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        objects.put(request.bucket() + "/" + request.key(), read(body));
+        return PutObjectResponse.builder().eTag(eTag(object(request.bucket(), request.key()))).build();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        return HeadObjectResponse.builder().contentLength((long) stored(request.bucket(), request.key()).length).build();
+    }
+
+    @Override
+    public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+        byte[] content = stored(request.bucket(), request.key());
+        if (request.range() != null) {
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            long first = Long.parseLong(range[0]);
+            long last = Math.min(Long.parseLong(range[1]), content.length - 1);
+            rangeReads.add(new RangeRead(request.key(), first, last));
+            content = Arrays.copyOfRange(content, (int) first, (int) last + 1);
+        }
+        return ResponseBytes.fromByteArray(GetObjectResponse.builder().contentLength((long) content.length).build(), content);
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = "upload-" + uploadCount.incrementAndGet();
+        uploads.put(uploadId, new Upload(request.bucket(), request.key()));
+        return CreateMultipartUploadResponse.builder().bucket(request.bucket()).key(request.key()).uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        Upload upload = upload(request.uploadId(), request.bucket(), request.key());
+        int active = activeParts.incrementAndGet();
+        peakParts.accumulateAndGet(active, Math::max);
+        try {
+            byte[] content = read(body);
+            Thread.sleep(partDelayMillis);
+            if (request.partNumber() == failingPart) {
+                throw S3Exception.builder().statusCode(500).message("Part " + request.partNumber() + " failed").build();
+            }
+            upload.parts().put(request.partNumber(), content);
+            return UploadPartResponse.builder().eTag(eTag(content)).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw S3Exception.builder().message("Interrupted").build();
+        } finally {
+            activeParts.decrementAndGet();
+        }
+    }
+
+    @Override
+    public ListPartsResponse listParts(ListPartsRequest request) {
+        Upload upload = upload(request.uploadId(), request.bucket(), request.key());
+        int after = request.partNumberMarker() == null ? 0 : request.partNumberMarker();
+        List<Part> page = new ArrayList<>();
+        Map.Entry<Integer, byte[]> last = null;
+        for (Map.Entry<Integer, byte[]> part : upload.parts().tailMap(after, false).entrySet()) {
+            if (page.size() == listPageSize) {
+                return ListPartsResponse.builder().parts(page).isTruncated(true).nextPartNumberMarker(last.getKey()).build();
+            }
+            page.add(Part.builder().partNumber(part.getKey()).eTag(eTag(part.getValue())).size((long) part.getValue().length).build());
+            last = part;
+        }
+        return ListPartsResponse.builder().parts(page).isTruncated(false).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Upload upload = upload(request.uploadId(), request.bucket(), request.key());
+        List<CompletedPart> parts = request.multipartUpload().parts();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int previous = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            CompletedPart part = parts.get(i);
+            byte[] stored = upload.parts().get(part.partNumber());
+            if (stored == null || !eTag(stored).equals(part.eTag())) {
+                throw S3Exception.builder().statusCode(400).message("InvalidPart " + part.partNumber()).build();
+            }
+            if (part.partNumber() <= previous) {
+                throw S3Exception.builder().statusCode(400).message("InvalidPartOrder").build();
+            }
+            if (i < parts.size() - 1 && stored.length < MultipartUploader.MIN_PART_SIZE) {
+                throw S3Exception.builder().statusCode(400).message("EntityTooSmall").build();
+            }
+            content.writeBytes(stored);
+            previous = part.partNumber();
+        }
+        objects.put(request.bucket() + "/" + request.key(), content.toByteArray());
+        uploads.remove(request.uploadId());
+        return CompleteMultipartUploadResponse.builder().bucket(request.bucket()).key(request.key()).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        upload(request.uploadId(), request.bucket(), request.key());
+        uploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return "s3";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private byte[] stored(String bucketName, String key) {
+        byte[] content = object(bucketName, key);
+        if (content == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("No such key: " + key).build();
+        }
+        return content;
+    }
+
+    private Upload upload(String uploadId, String bucketName, String key) {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null || !upload.bucketName().equals(bucketName) || !upload.key().equals(key)) {
+            throw NoSuchUploadException.builder().statusCode(404).message("No such upload: " + uploadId).build();
+        }
+        return upload;
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String eTag(byte[] content) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(content)) + "-" + content.length + "\"";
+    }
+
+    // Inclusive byte range of a ranged GET
+    public record RangeRead(String key, long first, long last) {
+    }
+
+    private record Upload(String bucketName, String key, ConcurrentSkipListMap<Integer, byte[]> parts) {
+        Upload(String bucketName, String key) {
+            this(bucketName, key, new ConcurrentSkipListMap<>());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tti.paveinsight.services.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartUploaderTest {
+
+    private static final int PART_SIZE = MultipartUploader.MIN_PART_SIZE;
+
+    private final InMemoryS3Client s3Client = new InMemoryS3Client();
+
+    private final MultipartUploader uploader = new MultipartUploader(s3Client, PART_SIZE, 3, false);
+
+    @AfterEach
+    void shutDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    void sendsShortStreamsWithASinglePut() throws IOException {
+        byte[] content = content(1000);
+
+        uploader.upload("bucket", "small.geojson", new ByteArrayInputStream(content));
+
+        assertThat(s3Client.object("bucket", "small.geojson")).isEqualTo(content);
+        assertThat(s3Client.peakConcurrentParts()).isZero();
+    }
+
+    @Test
+    void uploadsPartsInParallelAndInOrder() throws IOException {
+        s3Client.setPartDelayMillis(50);
+        byte[] content = content(7 * PART_SIZE + 12_345);
+
+        uploader.upload("bucket", "imagery.tif", new ByteArrayInputStream(content));
+
+        assertThat(s3Client.object("bucket", "imagery.tif")).isEqualTo(content);
+        assertThat(s3Client.peakConcurrentParts()).isBetween(2, 3);
+        assertThat(s3Client.openUploads()).isZero();
+    }
+
+    @Test
+    void endsWithAFullPartWhenTheLengthIsAMultipleOfThePartSize() throws IOException {
+        byte[] content = content(2 * PART_SIZE);
+
+        uploader.upload("bucket", "exact.tif", new ByteArrayInputStream(content));
+
+        assertThat(s3Client.object("bucket", "exact.tif")).isEqualTo(content);
+    }
+
+    @Test
+    void abortsTheUploadWhenAPartFails() {
+        s3Client.failPart(3);
+        InputStream content = new ByteArrayInputStream(content(6 * PART_SIZE));
+
+        assertThatThrownBy(() -> uploader.upload("bucket", "broken.tif", content))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("broken.tif");
+        assertThat(s3Client.object("bucket", "broken.tif")).isNull();
+        assertThat(s3Client.openUploads()).isZero();
+    }
+
+    // Bytes that differ between parts, so parts stitched in the wrong order are noticed
+    static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + i / PART_SIZE);
+        }
+        return content;
+    }
+}
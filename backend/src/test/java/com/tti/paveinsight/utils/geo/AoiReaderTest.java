@@ -0,0 +1,118 @@
+package com.tti.paveinsight.utils.geo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AoiReaderTest {
+
+    private static final String SQUARE = "[[[-96.34,30.62],[-96.33,30.62],[-96.33,30.63],[-96.34,30.63],[-96.34,30.62]]]";
+
+    private static final String OTHER_SQUARE = "[[[-96.30,30.62],[-96.29,30.62],[-96.29,30.63],[-96.30,30.63],[-96.30,30.62]]]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsABarePolygon() throws IOException {
+        AoiReader reader = new AoiReader(objectMapper, 100);
+
+        Geometry aoi = reader.read("{\"type\":\"Polygon\",\"coordinates\":" + SQUARE + "}");
+
+        assertThat(aoi).isInstanceOf(Polygon.class);
+        assertThat(aoi.getNumPoints()).isEqualTo(5);
+        assertThat(reader.getVertices()).isEqualTo(5);
+        assertThat(reader.getProperties()).isNull();
+    }
+
+    @Test
+    void readsAFeatureWithItsProperties() throws IOException {
+        AoiReader reader = new AoiReader(objectMapper, 100);
+
+        // Members in any order, coordinates before the type
+        Geometry aoi = reader.read("{\"properties\":{\"name\":\"Northgate\"},\"geometry\":{\"coordinates\":" + SQUARE
+                + ",\"type\":\"Polygon\"},\"type\":\"Feature\"}");
+
+        assertThat(aoi).isInstanceOf(Polygon.class);
+        assertThat(reader.getProperties().get("name").asText()).isEqualTo("Northgate");
+    }
+
+    @Test
+    void readsTheFeaturesOfACollectionAsAMultiPolygon() throws IOException {
+        AoiReader reader = new AoiReader(objectMapper, 100);
+
+        Geometry aoi = reader.read("{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"properties\":{\"ignored\":true},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":" + SQUARE + "}},"
+                + "{\"type\":\"Feature\",\"geometry\":null},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPolygon\",\"coordinates\":[" + OTHER_SQUARE + "]}}]}");
+
+        assertThat(aoi).isInstanceOf(MultiPolygon.class);
+        assertThat(aoi.getNumGeometries()).isEqualTo(2);
+        assertThat(reader.getProperties()).isNull(); // Only a top-level Feature's properties are kept
+    }
+
+    @Test
+    void closesOpenRingsAndDropsRepeatedPositions() throws IOException {
+        AoiReader reader = new AoiReader(objectMapper, 100);
+
+        Polygon aoi = (Polygon) reader.read("{\"type\":\"Polygon\",\"coordinates\":[[[-96.34,30.62,120.5],[-96.34,30.62],"
+                + "[-96.33,30.62],[-96.33,30.63],[-96.33,30.63],[-96.34,30.63]]]}");
+
+        assertThat(aoi.getExteriorRing().getNumPoints()).isEqualTo(5);
+        assertThat(aoi.getExteriorRing().isClosed()).isTrue();
+    }
+
+    @Test
+    void rejectsDocumentsThatAreNotPolygons() {
+        assertRejected("[]", "must be a GeoJSON object");
+        assertRejected("{\"coordinates\":" + SQUARE + "}", "without a type");
+        assertRejected("{\"type\":\"Point\",\"coordinates\":[-96.34,30.62]}", "not Point");
+        assertRejected("{\"type\":\"LineString\",\"coordinates\":[[-96.34,30.62],[-96.33,30.62]]}", "not LineString");
+        assertRejected("{\"type\":\"FeatureCollection\",\"features\":[]}", "contains no polygon");
+        assertRejected("{\"type\":\"FeatureCollection\",\"features\":{}}", "features must be an array");
+        assertRejected("{\"type\":\"Feature\",\"geometry\":\"Polygon\"}", "geometry must be an object");
+    }
+
+    @Test
+    void rejectsMalformedCoordinates() {
+        assertRejected("{\"type\":\"Polygon\"}", "without coordinates");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[]}", "without rings");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":\"none\"}", "must be arrays");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[-96.34,30.62],[-96.33,30.62]]}", "not nested deeply enough");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[[-96.34,30.62],[-96.33,30.62]],[-96.33,30.63],[-96.34,30.63]]]}",
+                "arrays of positions");
+        assertRejected("{\"type\":\"MultiPolygon\",\"coordinates\":[[-96.34,30.62]]}", "not nested deeply enough");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[-96.34],[-96.33,30.62],[-96.33,30.63]]]}",
+                "needs a longitude and a latitude");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[-96.34,30.62],[-96.34,30.62],[-96.33,30.62],[-96.34,30.62]]]}",
+                "at least three distinct positions");
+    }
+
+    @Test
+    void rejectsPositionsOutsideLongitudeAndLatitude() {
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[200,0],[1,1],[0,0]]]}", "[200.0, 0.0]");
+        assertRejected("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,-91],[1,1],[0,0]]]}", "not a longitude/latitude");
+    }
+
+    @Test
+    void rejectsTooManyVerticesWhileParsing() {
+        AoiReader reader = new AoiReader(objectMapper, 4);
+
+        assertThatThrownBy(() -> reader.read("{\"type\":\"Polygon\",\"coordinates\":" + SQUARE + "}"))
+                .isInstanceOf(AoiReader.AoiTooLargeException.class)
+                .hasMessageContaining("more than 4 vertices");
+    }
+
+    private void assertRejected(String geoJson, String reason) {
+        assertThatThrownBy(() -> new AoiReader(objectMapper, 100).read(geoJson))
+                .isInstanceOf(IllegalArgumentException.class)
+                .isNotInstanceOf(AoiReader.AoiTooLargeException.class)
+                .hasMessageContaining(reason);
+    }
+}
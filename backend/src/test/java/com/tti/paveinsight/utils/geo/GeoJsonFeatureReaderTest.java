@@ -0,0 +1,68 @@
+package com.tti.paveinsight.utils.geo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeoJsonFeatureReaderTest {
+
+    private static final String ROAD = "{\"type\":\"Feature\",\"id\":%d,\"properties\":{\"PCI\":%d},"
+            + "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[-96.34,30.62],[-96.33,30.62]]}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsTheFeaturesOfACollectionWhateverTheMemberOrder() throws IOException {
+        List<ResultFeature> features = readAll("{\"features\":[" + road(1, 70) + "," + road(2, 40)
+                + "],\"type\":\"FeatureCollection\"}");
+
+        assertThat(features).extracting(ResultFeature::getId).containsExactly(1, 2);
+        assertThat(features.get(1).getProperties()).containsEntry("PCI", 40);
+        assertThat(features.get(0).getGeometry().getNumPoints()).isEqualTo(2);
+    }
+
+    @Test
+    void skipsElementsThatAreNotFeatures() throws IOException {
+        List<ResultFeature> features = readAll("{\"type\":\"FeatureCollection\",\"features\":[" + road(1, 70)
+                + ",null,42,[1,2]," + road(2, 40) + "],\"name\":\"results\"}");
+
+        assertThat(features).extracting(ResultFeature::getId).containsExactly(1, 2);
+    }
+
+    @Test
+    void readsASingleFeature() throws IOException {
+        List<ResultFeature> features = readAll(road(7, 55));
+
+        assertThat(features).extracting(ResultFeature::getId).containsExactly(7);
+        assertThat(features.get(0).getProperties()).containsEntry("PCI", 55);
+    }
+
+    @Test
+    void rejectsADocumentThatEndsInsideTheFeatures() {
+        assertThatThrownBy(() -> readAll("{\"type\":\"FeatureCollection\",\"features\":[" + road(1, 70) + ","))
+                .isInstanceOf(IOException.class);
+    }
+
+    private List<ResultFeature> readAll(String geoJson) throws IOException {
+        List<ResultFeature> features = new ArrayList<>();
+        try (GeoJsonFeatureReader reader = new GeoJsonFeatureReader(
+                new ByteArrayInputStream(geoJson.getBytes(StandardCharsets.UTF_8)), objectMapper)) {
+            for (ResultFeature feature; (feature = reader.next()) != null; ) {
+                features.add(feature);
+            }
+        }
+        return features;
+    }
+
+    private static String road(int id, int pci) {
+        return String.format(ROAD, id, pci);
+    }
+}
@@ -0,0 +1,198 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the encoder against the geometry examples of the vector tile specification, decoding
+ * the tile with a minimal protobuf reader.
+ */
+class MvtEncoderTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    @Test
+    void encodesPointsAsInTheSpecification() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        encoder.addFeature(null, FACTORY.createPoint(new Coordinate(25, 17)), Map.of());
+
+        assertThat(geometry(onlyFeature(encoder))).containsExactly(9, 50, 34);
+        assertThat(fields(onlyFeature(encoder)).get(3)).containsExactly(1L);
+    }
+
+    @Test
+    void encodesLineStringsAsInTheSpecification() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        encoder.addFeature(null, line(2, 2, 2, 10, 10, 10), Map.of());
+
+        assertThat(geometry(onlyFeature(encoder))).containsExactly(9, 4, 4, 18, 0, 16, 16, 0);
+        assertThat(fields(onlyFeature(encoder)).get(3)).containsExactly(2L);
+    }
+
+    @Test
+    void encodesPolygonsAsInTheSpecification() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        encoder.addFeature(null, polygon(3, 6, 8, 12, 20, 34, 3, 6), Map.of());
+
+        assertThat(geometry(onlyFeature(encoder))).containsExactly(9, 6, 12, 18, 10, 12, 24, 44, 15);
+        assertThat(fields(onlyFeature(encoder)).get(3)).containsExactly(3L);
+    }
+
+    @Test
+    void windsExteriorRingsPositively() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        encoder.addFeature(null, polygon(3, 6, 20, 34, 8, 12, 3, 6), Map.of()); // The spec ring reversed
+
+        // The ring of the specification example again, starting from (8, 12)
+        assertThat(geometry(onlyFeature(encoder))).containsExactly(9, 16, 24, 18, 24, 44, 33, 55, 15);
+    }
+
+    @Test
+    void roundsAndDropsDegenerateGeometries() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        encoder.addFeature(1, line(2.2, 2.4, 1.8, 2.1), Map.of()); // Collapses to one point
+        encoder.addFeature(2, polygon(0, 0, 0.2, 0, 0.2, 0.2, 0, 0), Map.of());
+        encoder.addFeature(3, FACTORY.createLineString(), Map.of());
+        encoder.addFeature(4, null, Map.of());
+
+        assertThat(encoder.isEmpty()).isTrue();
+        assertThat(encoder.encode()).isEmpty();
+    }
+
+    @Test
+    void sharesKeysAndValuesBetweenFeatures() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("StreetName", "Texas Ave");
+        first.put("PCI", 72.5);
+        first.put("Cracks", 3);
+        first.put("Nested", Map.of("a", 1)); // Not a scalar, left out
+        first.put("Missing", null);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("PCI", 72.5f);
+        second.put("Paved", true);
+        encoder.addFeature(7L, line(0, 0, 10, 10), first);
+        encoder.addFeature(-1, line(0, 0, 10, 10), second);
+
+        Map<Integer, List<Object>> layer = layer(encoder);
+        assertThat(layer.get(15)).containsExactly(2L);
+        assertThat(string(layer.get(1).get(0))).isEqualTo("segments");
+        assertThat(layer.get(5)).containsExactly(4096L);
+        assertThat(layer.get(3)).extracting(MvtEncoderTest::string).containsExactly("StreetName", "PCI", "Cracks", "Paved");
+        List<Map<Integer, List<Object>>> values = layer.get(4).stream().map(value -> fields((byte[]) value)).toList();
+        assertThat(values).hasSize(4); // The float 72.5 shares the double's value
+        assertThat(string(values.get(0).get(1).get(0))).isEqualTo("Texas Ave");
+        assertThat(values.get(1)).isEqualTo(Map.of(3, List.of(Double.doubleToLongBits(72.5))));
+        assertThat(values.get(2)).isEqualTo(Map.of(6, List.of(6L))); // zig-zag 3
+        assertThat(values.get(3)).isEqualTo(Map.of(7, List.of(1L)));
+
+        Map<Integer, List<Object>> firstFeature = fields((byte[]) layer.get(2).get(0));
+        Map<Integer, List<Object>> secondFeature = fields((byte[]) layer.get(2).get(1));
+        assertThat(firstFeature.get(1)).containsExactly(7L);
+        assertThat(packed((byte[]) firstFeature.get(2).get(0))).containsExactly(0, 0, 1, 1, 2, 2);
+        assertThat(secondFeature).doesNotContainKey(1); // Negative IDs cannot be expressed
+        assertThat(packed((byte[]) secondFeature.get(2).get(0))).containsExactly(1, 1, 3, 3);
+    }
+
+    @Test
+    void splitsGeometryCollectionsIntoFeatures() {
+        MvtEncoder encoder = new MvtEncoder("segments", 4096);
+        Geometry collection = FACTORY.createGeometryCollection(new Geometry[]{
+                FACTORY.createPoint(new Coordinate(1, 1)), line(0, 0, 5, 5)});
+        encoder.addFeature(1, collection, Map.of());
+
+        assertThat(layer(encoder).get(2)).hasSize(2);
+    }
+
+    private Geometry line(double... xy) {
+        return FACTORY.createLineString(coordinates(xy));
+    }
+
+    private Geometry polygon(double... xy) {
+        return FACTORY.createPolygon(coordinates(xy));
+    }
+
+    private static Coordinate[] coordinates(double... xy) {
+        Coordinate[] coordinates = new Coordinate[xy.length / 2];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = new Coordinate(xy[2 * i], xy[2 * i + 1]);
+        }
+        return coordinates;
+    }
+
+    private static Map<Integer, List<Object>> layer(MvtEncoder encoder) {
+        Map<Integer, List<Object>> tile = fields(encoder.encode());
+        assertThat(tile.keySet()).containsExactly(3);
+        assertThat(tile.get(3)).hasSize(1);
+        return fields((byte[]) tile.get(3).get(0));
+    }
+
+    private static byte[] onlyFeature(MvtEncoder encoder) {
+        List<Object> features = layer(encoder).get(2);
+        assertThat(features).hasSize(1);
+        return (byte[]) features.get(0);
+    }
+
+    private static List<Integer> geometry(byte[] feature) {
+        return packed((byte[]) fields(feature).get(4).get(0));
+    }
+
+    private static String string(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.UTF_8);
+    }
+
+    // Field number to values: varints and fixed64 as Long, length-delimited as byte[]
+    private static Map<Integer, List<Object>> fields(byte[] message) {
+        ByteArrayInputStream in = new ByteArrayInputStream(message);
+        Map<Integer, List<Object>> fields = new LinkedHashMap<>();
+        while (in.available() > 0) {
+            long key = varint(in);
+            Object value = switch ((int) (key & 0x7)) {
+                case 0 -> varint(in);
+                case 1 -> {
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits |= (long) in.read() << (8 * i);
+                    }
+                    yield bits;
+                }
+                case 2 -> {
+                    byte[] bytes = new byte[(int) varint(in)];
+                    in.read(bytes, 0, bytes.length);
+                    yield bytes;
+                }
+                default -> throw new IllegalStateException("Unexpected wire type in " + key);
+            };
+            fields.computeIfAbsent((int) (key >>> 3), field -> new ArrayList<>()).add(value);
+        }
+        return fields;
+    }
+
+    private static List<Integer> packed(byte[] bytes) {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        List<Integer> values = new ArrayList<>();
+        while (in.available() > 0) {
+            values.add((int) varint(in));
+        }
+        return values;
+    }
+
+    private static long varint(ByteArrayInputStream in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
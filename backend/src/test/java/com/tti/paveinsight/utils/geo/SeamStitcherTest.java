@@ -0,0 +1,98 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SeamStitcherTest {
+
+    private final SeamStitcher stitcher = new SeamStitcher(5);
+
+    @Test
+    void keepsOneOfTheSameRoadSeenByTwoResults() {
+        stitcher.add(road("a", "Seam Rd", 50, 0.0099, 0, 0.0099, 0.01), 0);
+        stitcher.add(road("b", "Seam Rd", 60, 0.0099, 0, 0.0099, 0.01), 1);
+
+        List<ResultFeature> stitched = stitcher.stitch();
+
+        assertThat(stitched).hasSize(1);
+        assertThat(stitched.get(0).getGeometry().getLength()).isCloseTo(0.01, within(1e-9));
+        assertThat(stitched.get(0).getProperties().get("PCI")).isEqualTo(55.0);
+    }
+
+    @Test
+    void keepsDuplicatesWithinOneResult() {
+        stitcher.add(road("a", "Seam Rd", 50, 0.0099, 0, 0.0099, 0.01), 0);
+        stitcher.add(road("b", "Seam Rd", 60, 0.0099, 0, 0.0099, 0.01), 0);
+
+        assertThat(stitcher.stitch()).hasSize(2);
+    }
+
+    @Test
+    void stitchesARoadCutByTheSeamWithALengthWeightedPci() {
+        // Both results see the road a little past the seam at 0.01
+        stitcher.add(road("a", "Main St", 80, 0, 0.005, 0.0102, 0.005), 0);
+        stitcher.add(road("b", "Main St", 40, 0.0098, 0.005, 0.03, 0.005), 1);
+
+        List<ResultFeature> stitched = stitcher.stitch();
+
+        assertThat(stitched).hasSize(1);
+        ResultFeature road = stitched.get(0);
+        assertThat(road.getGeometry()).isInstanceOf(LineString.class);
+        LineString line = (LineString) road.getGeometry();
+        assertThat(line.getLength()).isCloseTo(0.03, within(1e-6));
+        assertThat(List.of(line.getCoordinateN(0).x, line.getCoordinateN(line.getNumPoints() - 1).x))
+                .containsExactlyInAnyOrder(0.0, 0.03);
+        // The longer piece gives the id and properties, the PCI is weighted by 0.0102 and 0.0202 degrees
+        assertThat(road.getId()).isEqualTo("b");
+        assertThat((Double) road.getProperties().get("PCI")).isCloseTo((80 * 0.0102 + 40 * 0.0202) / 0.0304, within(0.01));
+    }
+
+    @Test
+    void joinsPiecesOfANamedRoadThatMeetEndToEnd() {
+        stitcher.add(road("a", "Main St", 70, 0, 0.005, 0.01, 0.005), 0);
+        stitcher.add(road("b", "Main St", 70, 0.01, 0.005, 0.02, 0.005), 1);
+
+        List<ResultFeature> stitched = stitcher.stitch();
+
+        assertThat(stitched).hasSize(1);
+        assertThat(stitched.get(0).getGeometry()).isInstanceOf(LineString.class);
+        assertThat(stitched.get(0).getGeometry().getLength()).isCloseTo(0.02, within(1e-9));
+    }
+
+    @Test
+    void keepsCrossingAndDifferentlyNamedRoadsApart() {
+        stitcher.add(road("a", null, 50, 0, 0.005, 0.01, 0.005), 0);
+        stitcher.add(road("b", null, 60, 0.005, 0, 0.005, 0.01), 1);
+        stitcher.add(road("c", "Main St", 80, 0, 0.008, 0.01, 0.008), 0);
+        stitcher.add(road("d", "Frontage Rd", 40, 0, 0.008, 0.01, 0.008), 1);
+
+        assertThat(stitcher.stitch()).extracting(ResultFeature::getId).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    void leavesThePciOutWhenNoPieceHasOne() {
+        stitcher.add(road("a", "Seam Rd", null, 0.0099, 0, 0.0099, 0.01), 0);
+        stitcher.add(road("b", "Seam Rd", null, 0.0099, 0, 0.0099, 0.01), 1);
+
+        List<ResultFeature> stitched = stitcher.stitch();
+
+        assertThat(stitched).hasSize(1);
+        assertThat(stitched.get(0).getProperties()).containsEntry("PCI", null);
+    }
+
+    private static ResultFeature road(String id, String streetName, Integer pci, double x1, double y1, double x2, double y2) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("StreetName", streetName);
+        properties.put("PCI", pci);
+        LineString line = GeoJsonGeometries.FACTORY.createLineString(new Coordinate[]{new Coordinate(x1, y1), new Coordinate(x2, y2)});
+        return new ResultFeature(id, line, properties);
+    }
+}
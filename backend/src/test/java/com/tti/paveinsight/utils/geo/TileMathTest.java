@@ -0,0 +1,83 @@
+package com.tti.paveinsight.utils.geo;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TileMathTest {
+
+    @Test
+    void validTilesAreWithinTheZoomAndGrid() {
+        assertThat(TileMath.isValidTile(0, 0, 0)).isTrue();
+        assertThat(TileMath.isValidTile(3, 7, 7)).isTrue();
+        assertThat(TileMath.isValidTile(3, 8, 0)).isFalse();
+        assertThat(TileMath.isValidTile(3, 0, -1)).isFalse();
+        assertThat(TileMath.isValidTile(-1, 0, 0)).isFalse();
+        assertThat(TileMath.isValidTile(TileMath.MAX_ZOOM, (1 << TileMath.MAX_ZOOM) - 1, 0)).isTrue();
+        assertThat(TileMath.isValidTile(TileMath.MAX_ZOOM + 1, 0, 0)).isFalse();
+    }
+
+    @Test
+    void projectsToFractionalTiles() {
+        assertThat(TileMath.tileX(-180, 4)).isEqualTo(0.0);
+        assertThat(TileMath.tileX(0, 4)).isEqualTo(8.0);
+        assertThat(TileMath.tileY(0, 4)).isCloseTo(8.0, within(1e-9));
+        // College Station, TX at zoom 13
+        assertThat((int) TileMath.tileX(-96.33, 13)).isEqualTo(1903);
+        assertThat((int) TileMath.tileY(30.62, 13)).isEqualTo(3363);
+    }
+
+    @Test
+    void clampsLatitudesToTheMercatorLimit() {
+        assertThat(TileMath.tileY(90, 2)).isCloseTo(0.0, within(1e-9));
+        assertThat(TileMath.tileY(-90, 2)).isCloseTo(4.0, within(1e-9));
+    }
+
+    @Test
+    void inverseProjectionRoundTrips() {
+        for (double lon : new double[]{-179.5, -96.33, 0, 45.25, 179.9}) {
+            assertThat(TileMath.longitude(TileMath.tileX(lon, 11), 11)).isCloseTo(lon, within(1e-9));
+        }
+        for (double lat : new double[]{-80, -30.5, 0, 30.62, 85}) {
+            assertThat(TileMath.latitude(TileMath.tileY(lat, 11), 11)).isCloseTo(lat, within(1e-9));
+        }
+    }
+
+    @Test
+    void tileEnvelopeGrowsByTheBuffer() {
+        Envelope tile = TileMath.tileEnvelope(1, 0, 0, 0);
+        assertThat(tile.getMinX()).isEqualTo(-180.0);
+        assertThat(tile.getMaxX()).isEqualTo(0.0);
+        assertThat(tile.getMinY()).isCloseTo(0.0, within(1e-9));
+        assertThat(tile.getMaxY()).isCloseTo(85.0511287798066, within(1e-9));
+
+        Envelope buffered = TileMath.tileEnvelope(1, 0, 0, 0.25);
+        assertThat(buffered.getMinX()).isEqualTo(-225.0);
+        assertThat(buffered.getMaxX()).isEqualTo(45.0);
+        assertThat(buffered.getMinY()).isLessThan(0.0);
+        assertThat(buffered.covers(tile)).isTrue();
+    }
+
+    @Test
+    void tileCoordinatesHaveTheOriginTopLeft() {
+        int z = 13;
+        int x = 1903;
+        int y = 3363;
+        Envelope tile = TileMath.tileEnvelope(z, x, y, 0);
+        LineString line = GeoJsonGeometries.FACTORY.createLineString(new Coordinate[]{
+                new Coordinate(tile.getMinX(), tile.getMaxY()), new Coordinate(tile.getMaxX(), tile.getMinY())});
+
+        Geometry projected = TileMath.toTileCoordinates(line, z, x, y, 4096);
+
+        assertThat(projected.getCoordinates()[0].x).isCloseTo(0.0, within(1e-6));
+        assertThat(projected.getCoordinates()[0].y).isCloseTo(0.0, within(1e-6));
+        assertThat(projected.getCoordinates()[1].x).isCloseTo(4096.0, within(1e-6));
+        assertThat(projected.getCoordinates()[1].y).isCloseTo(4096.0, within(1e-6));
+        assertThat(line.getCoordinates()[0].x).isEqualTo(tile.getMinX()); // The input is not modified
+    }
+}
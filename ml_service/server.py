@@ -3,6 +3,7 @@
 import asyncio
 import json
 import os
+import time
 import logging
 import pika
 from pika.adapters.asyncio_connection import AsyncioConnection
@@ -15,6 +16,8 @@ load_dotenv(os.path.join(os.path.dirname(__file__), '.', '.env'))
 
 # Configuration (replace with environment variables in production)
 RABBITMQ_HOST = os.getenv('RABBITMQ_HOST')
+# Must match paveinsight.scheduling.max-priority in the backend, which declares the same queue
+QUEUE_MAX_PRIORITY = int(os.getenv('PCI_QUEUE_MAX_PRIORITY', '9'))
 
 LOG_FORMAT = '%(levelname)s - %(asctime)s - %(name)s - %(message)s'
 logging.basicConfig(level=logging.INFO, format=LOG_FORMAT)
@@ -123,7 +126,8 @@ class AsyncConsumer:
     def setup_queue(self):
         """Declares and binds the queue to the exchange."""
         LOGGER.info("Declaring and binding queue: %s", self.QUEUE)
-        self._channel.queue_declare(queue=self.QUEUE, durable=True, callback=self.on_queue_declared)
+        self._channel.queue_declare(queue=self.QUEUE, durable=True, arguments={'x-max-priority': QUEUE_MAX_PRIORITY},
+                                    callback=self.on_queue_declared)
     
     def on_qos_set(self, _unused_frame):
         """Callback when QoS is set. Begins message consumption."""
@@ -190,7 +194,10 @@ class AsyncConsumer:
             "superResolutionTIFS3URL": None,
             "jobStatus": None,
             "jobId": job_data.get("id"),
-            "error": None
+            "error": None,
+            # Lets the backend tell queue wait from processing time and learn job runtimes
+            "startedAt": int(time.time() * 1000),
+            "finishedAt": None
         }
         # print(message)
         try:
@@ -223,6 +230,7 @@ class AsyncConsumer:
             message["jobStatus"] = "incomplete"
             message["error"] = str(e)
 
+        message["finishedAt"] = int(time.time() * 1000)
         message_body = json.dumps(message)
         # Publishing the reply to the job-reply-queue on the separate reply channel
         if self._reply_channel: